@@ -85,7 +85,10 @@ class ClassDumper {
     ImmutableList<Path> unreadableFiles =
         entries.stream()
             .map(ClassPathEntry::getJar)
-            .filter(jar -> !Files.isRegularFile(jar) || !Files.isReadable(jar))
+            .filter(
+                jar ->
+                    !(Files.isRegularFile(jar) || Files.isDirectory(jar))
+                        || !Files.isReadable(jar))
             .collect(toImmutableList());
     checkArgument(
         unreadableFiles.isEmpty(), "Some jar files are not readable: %s", unreadableFiles);
@@ -143,9 +146,18 @@ class ClassDumper {
 
   /** Returns a map from classes to the symbol references they contain. */
   SymbolReferences findSymbolReferences() throws IOException {
+    return findSymbolReferences(inputClassPath);
+  }
+
+  /**
+   * Returns a map from the classes in {@code sourceEntries} to the symbol references they contain.
+   *
+   * @param sourceEntries entries of the input class path
+   */
+  SymbolReferences findSymbolReferences(List<ClassPathEntry> sourceEntries) throws IOException {
     SymbolReferences.Builder builder = new SymbolReferences.Builder();
 
-    for (ClassPathEntry jar : inputClassPath) {
+    for (ClassPathEntry jar : sourceEntries) {
       int totalClassFileCount = 0;
       int incompatibleClassFileCount = 0;
       for (JavaClass javaClass : listClasses(jar)) {
@@ -160,21 +172,26 @@ class ClassDumper {
           incompatibleClassFileCount++;
         }
       }
-      if (incompatibleClassFileCount > 0) {
-        logger.warning(
-            String.format(
-                "%s has %d (out of %d) incompatible class files (class file major version is outside %d <= v <= %d).",
-                jar,
-                incompatibleClassFileCount,
-                totalClassFileCount,
-                MINIMUM_CLASS_FILE_MAJOR_VERSION,
-                MAXIMUM_CLASS_FILE_MAJOR_VERSION));
-      }
+      logIncompatibleClassFiles(jar, incompatibleClassFileCount, totalClassFileCount);
     }
 
     return builder.build();
   }
 
+  static void logIncompatibleClassFiles(
+      ClassPathEntry entry, int incompatibleClassFileCount, int totalClassFileCount) {
+    if (incompatibleClassFileCount > 0) {
+      logger.warning(
+          String.format(
+              "%s has %d (out of %d) incompatible class files (class file major version is outside %d <= v <= %d).",
+              entry,
+              incompatibleClassFileCount,
+              totalClassFileCount,
+              MINIMUM_CLASS_FILE_MAJOR_VERSION,
+              MAXIMUM_CLASS_FILE_MAJOR_VERSION));
+    }
+  }
+
   private static final int MINIMUM_CLASS_FILE_MAJOR_VERSION = 45;
   private static final int MAXIMUM_CLASS_FILE_MAJOR_VERSION = 52;
 
@@ -185,14 +202,14 @@ class ClassDumper {
    * @see <a href="https://docs.oracle.com/javase/specs/jvms/se11/html/jvms-4.html#jvms-4.1">Java
    *     Virtual Machine Specification: The ClassFile Structure: minor_version, major_version</a>
    */
-  private static boolean isCompatibleClassFileVersion(JavaClass javaClass) {
+  static boolean isCompatibleClassFileVersion(JavaClass javaClass) {
     int classFileMajorVersion = javaClass.getMajor();
     return MINIMUM_CLASS_FILE_MAJOR_VERSION <= classFileMajorVersion
         && classFileMajorVersion <= MAXIMUM_CLASS_FILE_MAJOR_VERSION;
   }
 
-  private static SymbolReferences.Builder findSymbolReferences(
-      ClassFile source, JavaClass javaClass) {
+  /** Returns the symbol references in {@code javaClass}, whose location is {@code source}. */
+  static SymbolReferences.Builder findSymbolReferences(ClassFile source, JavaClass javaClass) {
     SymbolReferences.Builder builder = new SymbolReferences.Builder();
 
     ConstantPool constantPool = javaClass.getConstantPool();
@@ -339,7 +356,16 @@ class ClassDumper {
     // location of the target class, and sometimes the superclass is unavailable.
 
     String filename = classRepository.getFileName(className);
-    return fileNameToClassPathEntry.get(filename);
+    return findClassFileLocation(filename);
+  }
+
+  /**
+   * Returns the first class path entry containing the class file of {@code fileName}. Null if the
+   * file is not in the class path.
+   */
+  @Nullable
+  ClassPathEntry findClassFileLocation(String fileName) {
+    return fileNameToClassPathEntry.get(fileName);
   }
 
   /**
@@ -375,7 +401,11 @@ class ClassDumper {
       }
     }
 
-    ImmutableList<String> corruptedFiles = corruptedClassFileNames.build();
+    logCorruptedClassFiles(entry, corruptedClassFileNames.build());
+    return javaClasses.build();
+  }
+
+  static void logCorruptedClassFiles(ClassPathEntry entry, List<String> corruptedFiles) {
     int corruptedFileCount = corruptedFiles.size();
     if (corruptedFileCount > 0) {
       logger.warning(
@@ -387,7 +417,6 @@ class ClassDumper {
                   ? " and other " + (corruptedFileCount - 1) + " files"
                   : ""));
     }
-    return javaClasses.build();
   }
 
   /** Returns true if two class names (binary name JLS 13.1) have the same package. */
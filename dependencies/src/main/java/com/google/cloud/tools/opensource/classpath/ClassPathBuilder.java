@@ -51,7 +51,8 @@ public final class ClassPathBuilder {
    * Builds a classpath from the transitive dependency graph from {@code artifacts}. When there are
    * multiple versions of an artifact in the dependency tree, the closest to the root in
    * breadth-first order is picked up. This "pick closest" strategy follows Maven's dependency
-   * mediation.
+   * mediation. The built-in mediation strategies take time linear to the number of paths in the
+   * dependency graph.
    *
    * @param artifacts the first artifacts that appear in the classpath, in order
    * @param full if true all optional dependencies and their transitive dependencies are included.
@@ -97,6 +98,6 @@ public final class ClassPathBuilder {
       throws InvalidVersionSpecificationException {
     AnnotatedClassPath classPathAnnotatedWithDependencyPath = dependencyMediation.mediate(result);
     return new ClassPathResult(
-        classPathAnnotatedWithDependencyPath, result.getUnresolvedArtifacts());
+        classPathAnnotatedWithDependencyPath, result.getUnresolvedArtifacts(), result);
   }
 }
@@ -17,20 +17,33 @@
 package com.google.cloud.tools.opensource.classpath;
 
 import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.collect.ImmutableList.toImmutableList;
 
 import com.google.cloud.tools.opensource.dependencies.Artifacts;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
+import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.Enumeration;
 import java.util.Objects;
 import java.util.jar.JarEntry;
 import java.util.jar.JarFile;
+import java.util.stream.Stream;
+import javax.annotation.Nullable;
 import org.eclipse.aether.artifact.Artifact;
 
-/** An entry in a class path. */
+/**
+ * An entry in a class path. The entry is a JAR file or a directory of class files, such as
+ * {@code target/classes} of a Maven project before packaging.
+ */
 public final class ClassPathEntry {
 
+  // Names of the class files in the JAR files read in this JVM, up to a million names in total
+  private static final SharedJarCache<ImmutableSet<String>> sharedFileNames =
+      new SharedJarCache<>(1_000_000, ImmutableSet::size);
+
   private Path jar;
   private Artifact artifact;
   private ImmutableSet<String> fileNames;
@@ -50,7 +63,7 @@ public final class ClassPathEntry {
     this.artifact = artifact;
   }
 
-  /** Returns the path to JAR file. */
+  /** Returns the path to the JAR file or the directory of class files. */
   Path getJar() {
     return jar;
   }
@@ -63,6 +76,18 @@ public final class ClassPathEntry {
     return artifact;
   }
 
+  /**
+   * Returns {@code groupId:artifactId:classifier} of the Maven artifact, which stays the same
+   * across the versions of the artifact, or null if the JAR file does not have Maven coordinates.
+   */
+  @Nullable
+  String getVersionlessKey() {
+    if (artifact == null) {
+      return null;
+    }
+    return artifact.getGroupId() + ":" + artifact.getArtifactId() + ":" + artifact.getClassifier();
+  }
+
   @Override
   public boolean equals(Object other) {
     if (this == other) {
@@ -102,6 +127,22 @@ public final class ClassPathEntry {
    * Example: {@code BOOT-INF.classes.com.google.Foo}.
    */
   private void readFileNames() throws IOException {
+    try {
+      this.fileNames = sharedFileNames.get(jar, () -> listFileNames(jar));
+    } catch (IOException ex) {
+      throw new IOException("Failed to read content of " + jar, ex);
+    }
+  }
+
+  private static ImmutableSet<String> listFileNames(Path jar) throws IOException {
+    if (Files.isDirectory(jar)) {
+      ImmutableSet.Builder<String> builder = ImmutableSet.builder();
+      for (String name : listClassFiles(jar)) {
+        builder.add(name.replace('/', '.').substring(0, name.length() - 6));
+      }
+      return builder.build();
+    }
+
     try (JarFile jarFile = new JarFile(jar.toFile())) {
       ImmutableSet.Builder<String> builder = ImmutableSet.builder();
       
@@ -114,14 +155,26 @@ public final class ClassPathEntry {
           builder.add(className);
         }
       }
-      this.fileNames = builder.build();
-    } catch (IOException ex) {
-      throw new IOException("Failed to read content of " + jar, ex);
+      return builder.build();
+    }
+  }
+
+  /**
+   * Returns the paths of the .class files in {@code directory} relative to it, separated by / as in
+   * JAR files, in sorted order.
+   */
+  static ImmutableList<String> listClassFiles(Path directory) throws IOException {
+    try (Stream<Path> files = Files.walk(directory)) {
+      return files
+          .filter(file -> file.toString().endsWith(".class") && Files.isRegularFile(file))
+          .map(file -> directory.relativize(file).toString().replace(File.separatorChar, '/'))
+          .sorted()
+          .collect(toImmutableList());
     }
   }
 
   /**
-   * Returns the names of the .class files in this entry's jar file.
+   * Returns the names of the .class files in this entry's jar file or directory.
    * A file name is the name of the .class file in the JAR file, without the 
    * suffix {@code .class} and after converting each / to a period.
    * 
@@ -0,0 +1,546 @@
+/*
+ * Copyright 2020 Google LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.opensource.classpath;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.cloud.tools.opensource.dependencies.DependencyGraph;
+import com.google.cloud.tools.opensource.dependencies.DependencyPath;
+import com.google.cloud.tools.opensource.dependencies.UnresolvableArtifactProblem;
+import com.google.common.collect.ImmutableList;
+import com.google.common.hash.Hashing;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.eclipse.aether.artifact.Artifact;
+import org.eclipse.aether.artifact.DefaultArtifact;
+import org.eclipse.aether.graph.DefaultDependencyNode;
+import org.eclipse.aether.graph.Dependency;
+import org.eclipse.aether.graph.DependencyNode;
+import org.eclipse.aether.graph.Exclusion;
+
+/**
+ * A resolved class path saved to a file, so that a later run on the same inputs can check linkage
+ * errors without accessing Maven repositories.
+ *
+ * <p>A lockfile holds the inputs that produced the class path, the class path entries in order
+ * with the SHA-256 checksums of their files, the dependency paths to the entries, the unresolvable
+ * artifact problems, and the dependency graph from which the class path was built. The file is
+ * binary; artifacts and dependencies appear once and paths refer to them by index.
+ */
+public final class ClassPathLockfile {
+
+  private static final int MAGIC = 0x4c434c4b; // "LCLK"
+
+  // Increment when the file format changes
+  private static final int FORMAT_VERSION = 1;
+
+  private final ImmutableList<String> inputs;
+  private final ImmutableList<Artifact> artifacts;
+  private final ClassPathResult classPathResult;
+  private final ImmutableList<String> checksums;
+
+  private ClassPathLockfile(
+      ImmutableList<String> inputs,
+      ImmutableList<Artifact> artifacts,
+      ClassPathResult classPathResult,
+      ImmutableList<String> checksums) {
+    this.inputs = inputs;
+    this.artifacts = artifacts;
+    this.classPathResult = classPathResult;
+    this.checksums = checksums;
+  }
+
+  /**
+   * Returns a lockfile for {@code classPathResult} resolved from {@code artifacts}.
+   *
+   * @param inputs strings that identify the inputs of the resolution, such as BOM coordinates and
+   *     repository URLs. {@link #isUpToDate(List)} compares them to tell whether the lockfile
+   *     applies to a later run
+   * @param artifacts the artifacts at the beginning of the class path
+   * @param classPathResult the resolved class path
+   * @throws IOException when there is a problem reading a file in the class path
+   */
+  public static ClassPathLockfile create(
+      List<String> inputs, List<Artifact> artifacts, ClassPathResult classPathResult)
+      throws IOException {
+    checkNotNull(classPathResult);
+    ImmutableList.Builder<String> checksums = ImmutableList.builder();
+    for (ClassPathEntry entry : classPathResult.getClassPath()) {
+      checksums.add(checksum(entry.getJar()));
+    }
+    return new ClassPathLockfile(
+        ImmutableList.copyOf(inputs),
+        ImmutableList.copyOf(artifacts),
+        classPathResult,
+        checksums.build());
+  }
+
+  /** Returns the artifacts at the beginning of the class path. */
+  public ImmutableList<Artifact> getArtifacts() {
+    return artifacts;
+  }
+
+  /** Returns the class path and the dependency graph saved in this lockfile. */
+  public ClassPathResult getClassPathResult() {
+    return classPathResult;
+  }
+
+  /**
+   * Returns true if this lockfile was created for {@code inputs} and the files in the class path
+   * have not changed since.
+   *
+   * @throws IOException when there is a problem reading a file in the class path
+   */
+  public boolean isUpToDate(List<String> inputs) throws IOException {
+    if (!this.inputs.equals(inputs)) {
+      return false;
+    }
+    ImmutableList<ClassPathEntry> classPath = classPathResult.getClassPath();
+    for (int i = 0; i < classPath.size(); i++) {
+      Path jar = classPath.get(i).getJar();
+      if (!Files.isRegularFile(jar) || !checksums.get(i).equals(checksum(jar))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static String checksum(Path file) throws IOException {
+    return com.google.common.io.Files.asByteSource(file.toFile()).hash(Hashing.sha256()).toString();
+  }
+
+  /**
+   * Writes this lockfile to {@code path}. The file is written to a temporary file and then moved,
+   * so that a failed write or a concurrent reader does not see a partial lockfile.
+   */
+  public void write(Path path) throws IOException {
+    Path directory = path.toAbsolutePath().getParent();
+    Path temporaryFile = Files.createTempFile(directory, "lockfile", ".tmp");
+    try {
+      try (DataOutputStream output =
+          new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporaryFile)))) {
+        new Writer(output).write();
+      }
+      Files.move(
+          temporaryFile, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } finally {
+      Files.deleteIfExists(temporaryFile);
+    }
+  }
+
+  /**
+   * Reads the lockfile at {@code path}.
+   *
+   * @throws IOException when the file cannot be read or is not a lockfile of this format version
+   */
+  public static ClassPathLockfile read(Path path) throws IOException {
+    try (DataInputStream input =
+        new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+      return new Reader(input).read();
+    }
+  }
+
+  /** Writes the artifacts and the dependencies in tables, before the records that use them. */
+  private final class Writer {
+    private final DataOutputStream output;
+    private final Map<Artifact, Integer> artifactIndex = new LinkedHashMap<>();
+    private final Map<Dependency, Integer> dependencyIndex = new LinkedHashMap<>();
+
+    private Writer(DataOutputStream output) {
+      this.output = output;
+    }
+
+    private void write() throws IOException {
+      ImmutableList<ClassPathEntry> classPath = classPathResult.getClassPath();
+      ImmutableList<UnresolvableArtifactProblem> artifactProblems =
+          classPathResult.getArtifactProblems();
+      DependencyGraph dependencyGraph = classPathResult.getDependencyGraph();
+      List<DependencyPath> graphPaths =
+          dependencyGraph == null ? ImmutableList.of() : dependencyGraph.list();
+
+      // Fills the tables first, as the reader needs them before the records
+      artifacts.forEach(this::indexArtifact);
+      for (ClassPathEntry entry : classPath) {
+        indexArtifact(artifactOf(entry));
+        classPathResult.getDependencyPaths(entry).forEach(this::indexPath);
+      }
+      for (UnresolvableArtifactProblem problem : artifactProblems) {
+        indexArtifact(problem.getArtifact());
+        for (DependencyNode node : problem.getDependencyPath()) {
+          indexNode(node);
+        }
+      }
+      graphPaths.forEach(this::indexPath);
+
+      output.writeInt(MAGIC);
+      output.writeInt(FORMAT_VERSION);
+      output.writeInt(inputs.size());
+      for (String input : inputs) {
+        output.writeUTF(input);
+      }
+      writeArtifactTable();
+      writeDependencyTable();
+
+      output.writeInt(artifacts.size());
+      for (Artifact artifact : artifacts) {
+        output.writeInt(artifactIndex.get(artifact));
+      }
+
+      output.writeInt(classPath.size());
+      for (int i = 0; i < classPath.size(); i++) {
+        ClassPathEntry entry = classPath.get(i);
+        output.writeInt(artifactIndex.get(artifactOf(entry)));
+        output.writeUTF(checksums.get(i));
+        ImmutableList<DependencyPath> dependencyPaths = classPathResult.getDependencyPaths(entry);
+        output.writeInt(dependencyPaths.size());
+        for (DependencyPath dependencyPath : dependencyPaths) {
+          writePath(dependencyPath);
+        }
+      }
+
+      output.writeInt(artifactProblems.size());
+      for (UnresolvableArtifactProblem problem : artifactProblems) {
+        output.writeInt(artifactIndex.get(problem.getArtifact()));
+        ImmutableList<DependencyNode> nodes = problem.getDependencyPath();
+        output.writeInt(nodes.size());
+        for (DependencyNode node : nodes) {
+          writeNode(node);
+        }
+      }
+
+      output.writeBoolean(dependencyGraph != null);
+      output.writeInt(graphPaths.size());
+      for (DependencyPath dependencyPath : graphPaths) {
+        writePath(dependencyPath);
+      }
+    }
+
+    private Artifact artifactOf(ClassPathEntry entry) throws IOException {
+      Artifact artifact = entry.getArtifact();
+      if (artifact == null) {
+        throw new IOException("Class path entry without Maven coordinates: " + entry);
+      }
+      return artifact;
+    }
+
+    private void indexArtifact(Artifact artifact) {
+      if (artifact != null) {
+        artifactIndex.putIfAbsent(artifact, artifactIndex.size());
+      }
+    }
+
+    private void indexDependency(Dependency dependency) {
+      indexArtifact(dependency.getArtifact());
+      dependencyIndex.putIfAbsent(dependency, dependencyIndex.size());
+    }
+
+    private void indexPath(DependencyPath dependencyPath) {
+      indexArtifact(dependencyPath.get(0));
+      dependencyPath.getDependencies().forEach(this::indexDependency);
+    }
+
+    private void indexNode(DependencyNode node) {
+      if (node.getDependency() != null) {
+        indexDependency(node.getDependency());
+      } else {
+        indexArtifact(node.getArtifact());
+      }
+    }
+
+    private void writeArtifactTable() throws IOException {
+      output.writeInt(artifactIndex.size());
+      for (Artifact artifact : artifactIndex.keySet()) {
+        output.writeUTF(artifact.getGroupId());
+        output.writeUTF(artifact.getArtifactId());
+        output.writeUTF(artifact.getClassifier());
+        output.writeUTF(artifact.getExtension());
+        output.writeUTF(artifact.getVersion());
+        Map<String, String> properties = artifact.getProperties();
+        output.writeInt(properties.size());
+        for (Map.Entry<String, String> property : properties.entrySet()) {
+          output.writeUTF(property.getKey());
+          output.writeUTF(property.getValue());
+        }
+        File file = artifact.getFile();
+        output.writeBoolean(file != null);
+        if (file != null) {
+          output.writeUTF(file.getAbsolutePath());
+        }
+      }
+    }
+
+    private void writeDependencyTable() throws IOException {
+      output.writeInt(dependencyIndex.size());
+      for (Dependency dependency : dependencyIndex.keySet()) {
+        output.writeInt(artifactIndex.get(dependency.getArtifact()));
+        output.writeUTF(dependency.getScope());
+        Boolean optional = dependency.getOptional();
+        output.writeByte(optional == null ? 0 : optional ? 2 : 1);
+        output.writeInt(dependency.getExclusions().size());
+        for (Exclusion exclusion : dependency.getExclusions()) {
+          output.writeUTF(exclusion.getGroupId());
+          output.writeUTF(exclusion.getArtifactId());
+          output.writeUTF(exclusion.getClassifier());
+          output.writeUTF(exclusion.getExtension());
+        }
+      }
+    }
+
+    private void writePath(DependencyPath dependencyPath) throws IOException {
+      Artifact root = dependencyPath.get(0);
+      output.writeInt(root == null ? -1 : artifactIndex.get(root));
+      ImmutableList<Dependency> dependencies = dependencyPath.getDependencies();
+      output.writeInt(dependencies.size());
+      for (Dependency dependency : dependencies) {
+        output.writeInt(dependencyIndex.get(dependency));
+      }
+    }
+
+    private void writeNode(DependencyNode node) throws IOException {
+      if (node.getDependency() != null) {
+        output.writeByte(0);
+        output.writeInt(dependencyIndex.get(node.getDependency()));
+      } else if (node.getArtifact() != null) {
+        output.writeByte(1);
+        output.writeInt(artifactIndex.get(node.getArtifact()));
+      } else {
+        output.writeByte(2);
+      }
+    }
+  }
+
+  private static final class Reader {
+    private final DataInputStream input;
+    private final List<Artifact> artifactTable = new ArrayList<>();
+    private final List<Dependency> dependencyTable = new ArrayList<>();
+
+    // The paths read so far, so that paths with the same prefix share their nodes as they do when
+    // the dependency graph is built. The key of a child path combines the ID of the parent path
+    // and the index of the dependency.
+    private final List<DependencyPath> pathNodes = new ArrayList<>();
+    // For each path ID, the ID of the parent path, or -1 for a root path
+    private final List<Integer> parentPathIds = new ArrayList<>();
+    // For each path ID, the index of the last dependency, or of the artifact for a root path
+    private final List<Integer> lastElementIndexes = new ArrayList<>();
+    private final Map<Integer, Integer> rootPathIds = new HashMap<>();
+    private final Map<Long, Integer> childPathIds = new HashMap<>();
+
+    private Reader(DataInputStream input) {
+      this.input = input;
+    }
+
+    private ClassPathLockfile read() throws IOException {
+      if (input.readInt() != MAGIC) {
+        throw new IOException("Not a class path lockfile");
+      }
+      int formatVersion = input.readInt();
+      if (formatVersion != FORMAT_VERSION) {
+        throw new IOException("Unsupported lockfile format version: " + formatVersion);
+      }
+      int inputCount = input.readInt();
+      ImmutableList.Builder<String> inputs = ImmutableList.builder();
+      for (int i = 0; i < inputCount; i++) {
+        inputs.add(input.readUTF());
+      }
+      readArtifactTable();
+      readDependencyTable();
+
+      int artifactCount = input.readInt();
+      ImmutableList.Builder<Artifact> artifacts = ImmutableList.builder();
+      for (int i = 0; i < artifactCount; i++) {
+        artifacts.add(artifactTable.get(input.readInt()));
+      }
+
+      AnnotatedClassPath annotatedClassPath = new AnnotatedClassPath();
+      ImmutableList.Builder<String> checksums = ImmutableList.builder();
+      int entryCount = input.readInt();
+      for (int i = 0; i < entryCount; i++) {
+        ClassPathEntry entry = new ClassPathEntry(artifactTable.get(input.readInt()));
+        checksums.add(input.readUTF());
+        int pathCount = input.readInt();
+        for (int j = 0; j < pathCount; j++) {
+          annotatedClassPath.put(entry, readPath());
+        }
+      }
+
+      int problemCount = input.readInt();
+      List<UnresolvableArtifactProblem> artifactProblems = new ArrayList<>(problemCount);
+      for (int i = 0; i < problemCount; i++) {
+        Artifact artifact = artifactTable.get(input.readInt());
+        int nodeCount = input.readInt();
+        List<DependencyNode> nodes = new ArrayList<>(nodeCount);
+        for (int j = 0; j < nodeCount; j++) {
+          nodes.add(readNode());
+        }
+        artifactProblems.add(
+            nodes.isEmpty()
+                ? new UnresolvableArtifactProblem(artifact)
+                : new UnresolvableArtifactProblem(nodes));
+      }
+
+      boolean hasDependencyGraph = input.readBoolean();
+      int graphPathCount = input.readInt();
+      List<Integer> graphPathIds = new ArrayList<>(graphPathCount);
+      for (int i = 0; i < graphPathCount; i++) {
+        graphPathIds.add(readPathId());
+      }
+      DependencyGraph dependencyGraph =
+          hasDependencyGraph ? DependencyGraph.from(rebuildTree(graphPathIds)) : null;
+
+      ClassPathResult classPathResult =
+          new ClassPathResult(annotatedClassPath, artifactProblems, dependencyGraph);
+      return new ClassPathLockfile(
+          inputs.build(), artifacts.build(), classPathResult, checksums.build());
+    }
+
+    private void readArtifactTable() throws IOException {
+      int count = input.readInt();
+      for (int i = 0; i < count; i++) {
+        String groupId = input.readUTF();
+        String artifactId = input.readUTF();
+        String classifier = input.readUTF();
+        String extension = input.readUTF();
+        String version = input.readUTF();
+        int propertyCount = input.readInt();
+        Map<String, String> properties = new HashMap<>();
+        for (int j = 0; j < propertyCount; j++) {
+          properties.put(input.readUTF(), input.readUTF());
+        }
+        File file = input.readBoolean() ? Paths.get(input.readUTF()).toFile() : null;
+        artifactTable.add(
+            new DefaultArtifact(
+                groupId, artifactId, classifier, extension, version, properties, file));
+      }
+    }
+
+    private void readDependencyTable() throws IOException {
+      int count = input.readInt();
+      for (int i = 0; i < count; i++) {
+        Artifact artifact = artifactTable.get(input.readInt());
+        String scope = input.readUTF();
+        byte optionalValue = input.readByte();
+        Boolean optional = optionalValue == 0 ? null : optionalValue == 2;
+        int exclusionCount = input.readInt();
+        List<Exclusion> exclusions = new ArrayList<>(exclusionCount);
+        for (int j = 0; j < exclusionCount; j++) {
+          exclusions.add(
+              new Exclusion(input.readUTF(), input.readUTF(), input.readUTF(), input.readUTF()));
+        }
+        dependencyTable.add(new Dependency(artifact, scope, optional, exclusions));
+      }
+    }
+
+    private DependencyPath readPath() throws IOException {
+      return pathNodes.get(readPathId());
+    }
+
+    private int readPathId() throws IOException {
+      int rootIndex = input.readInt();
+      Integer pathId = rootPathIds.get(rootIndex);
+      if (pathId == null) {
+        pathId = pathNodes.size();
+        pathNodes.add(new DependencyPath(rootIndex < 0 ? null : artifactTable.get(rootIndex)));
+        parentPathIds.add(-1);
+        lastElementIndexes.add(rootIndex);
+        rootPathIds.put(rootIndex, pathId);
+      }
+      int dependencyCount = input.readInt();
+      for (int i = 0; i < dependencyCount; i++) {
+        int dependencyIndex = input.readInt();
+        long key = ((long) pathId << 32) | dependencyIndex;
+        Integer childId = childPathIds.get(key);
+        if (childId == null) {
+          childId = pathNodes.size();
+          pathNodes.add(pathNodes.get(pathId).append(dependencyTable.get(dependencyIndex)));
+          parentPathIds.add(pathId);
+          lastElementIndexes.add(dependencyIndex);
+          childPathIds.put(key, childId);
+        }
+        pathId = childId;
+      }
+      return pathId;
+    }
+
+    /**
+     * Returns the root of the dependency tree that has a node for each of the paths of {@code
+     * pathIds}. As the paths of a dependency graph are in level order, the children of each node
+     * are in the order of the tree from which the graph was built, and {@link
+     * DependencyGraph#from(DependencyNode)} on the root returns the same paths.
+     */
+    private DependencyNode rebuildTree(List<Integer> pathIds) {
+      if (pathIds.isEmpty()) {
+        return new DefaultDependencyNode((Dependency) null);
+      }
+      Map<Integer, DependencyNode> treeNodes = new HashMap<>();
+      for (int pathId : pathIds) {
+        treeNode(pathId, treeNodes);
+      }
+      // The root of a graph for multiple artifacts does not have an artifact, and its path is not
+      // in the graph. The paths start with it nevertheless.
+      int rootPathId = pathIds.get(0);
+      while (parentPathIds.get(rootPathId) >= 0) {
+        rootPathId = parentPathIds.get(rootPathId);
+      }
+      return treeNodes.get(rootPathId);
+    }
+
+    private DependencyNode treeNode(int pathId, Map<Integer, DependencyNode> treeNodes) {
+      DependencyNode node = treeNodes.get(pathId);
+      if (node != null) {
+        return node;
+      }
+      int parentPathId = parentPathIds.get(pathId);
+      int elementIndex = lastElementIndexes.get(pathId);
+      if (parentPathId < 0) {
+        node =
+            elementIndex < 0
+                ? new DefaultDependencyNode((Dependency) null)
+                : new DefaultDependencyNode(artifactTable.get(elementIndex));
+      } else {
+        node = new DefaultDependencyNode(dependencyTable.get(elementIndex));
+        treeNode(parentPathId, treeNodes).getChildren().add(node);
+      }
+      treeNodes.put(pathId, node);
+      return node;
+    }
+
+    private DependencyNode readNode() throws IOException {
+      byte type = input.readByte();
+      switch (type) {
+        case 0:
+          return new DefaultDependencyNode(dependencyTable.get(input.readInt()));
+        case 1:
+          return new DefaultDependencyNode(artifactTable.get(input.readInt()));
+        default:
+          return new DefaultDependencyNode((Dependency) null);
+      }
+    }
+  }
+}
@@ -18,12 +18,18 @@ package com.google.cloud.tools.opensource.classpath;
 
 
 import com.google.cloud.tools.opensource.dependencies.Artifacts;
+import com.google.cloud.tools.opensource.dependencies.DependencyGraph;
 import com.google.cloud.tools.opensource.dependencies.DependencyPath;
 import com.google.cloud.tools.opensource.dependencies.UnresolvableArtifactProblem;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.ImmutableSetMultimap;
 import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.logging.Logger;
+import javax.annotation.Nullable;
 import org.eclipse.aether.artifact.Artifact;
 
 /** Result of class path resolution with {@link UnresolvableArtifactProblem}s if any. */
@@ -36,11 +42,31 @@ public final class ClassPathResult {
 
   private final ImmutableList<UnresolvableArtifactProblem> artifactProblems;
 
+  @Nullable private final DependencyGraph dependencyGraph;
+
+  // Indexes built lazily on first lookup. When multiple entries match a key, the first entry in
+  // the class path wins.
+  private ImmutableMap<String, ClassPathEntry> classNameToEntry;
+  private ImmutableMap<String, ClassPathEntry> versionlessCoordinatesToEntry;
+  private ImmutableSetMultimap<String, ClassPathEntry> dependencyCoordinatesToEntries;
+
   public ClassPathResult(
       AnnotatedClassPath dependencyPaths, Iterable<UnresolvableArtifactProblem> artifactProblems) {
+    this(dependencyPaths, artifactProblems, null);
+  }
+
+  /**
+   * A result of the dependency mediation on {@code dependencyGraph}. The graph is used when
+   * annotating linkage problems without accessing Maven repositories.
+   */
+  public ClassPathResult(
+      AnnotatedClassPath dependencyPaths,
+      Iterable<UnresolvableArtifactProblem> artifactProblems,
+      @Nullable DependencyGraph dependencyGraph) {
     this.annotatedClassPath = dependencyPaths;
     this.classPath = dependencyPaths.getClassPath();
     this.artifactProblems = ImmutableList.copyOf(artifactProblems);
+    this.dependencyGraph = dependencyGraph;
   }
 
   /** Returns the resolved class path. */
@@ -56,6 +82,15 @@ public final class ClassPathResult {
     return annotatedClassPath.pathsTo(entry);
   }
 
+  /**
+   * Returns the dependency graph from which the class path was built. {@code Null} if the class
+   * path was not built from a dependency graph.
+   */
+  @Nullable
+  public DependencyGraph getDependencyGraph() {
+    return dependencyGraph;
+  }
+
   /** Returns problems encountered while constructing the dependency graph. */
   public ImmutableList<UnresolvableArtifactProblem> getArtifactProblems() {
     return artifactProblems;
@@ -90,18 +125,7 @@ public final class ClassPathResult {
    * artifact.
    */
   public ImmutableSet<ClassPathEntry> getClassPathEntries(String coordinates) {
-    ImmutableSet.Builder<ClassPathEntry> builder = ImmutableSet.builder();
-    for (ClassPathEntry entry : classPath) {
-      for (DependencyPath dependencyPath : annotatedClassPath.pathsTo(entry)) {
-        if (dependencyPath.size() > 1) {
-          Artifact artifact = dependencyPath.get(1);
-          if (Artifacts.toCoordinates(artifact).equals(coordinates)) {
-            builder.add(entry);
-          }
-        }
-      }
-    }
-    return builder.build();
+    return getDependencyCoordinatesToEntries().get(coordinates);
   }
 
   /**
@@ -109,13 +133,7 @@ public final class ClassPathResult {
    * artifactId}. {@code Null} if no matching artifact is found.
    */
   ClassPathEntry findEntryById(String groupId, String artifactId) {
-    for (ClassPathEntry entry : getClassPath()) {
-      Artifact artifact = entry.getArtifact();
-      if (artifact.getGroupId().equals(groupId) && artifact.getArtifactId().equals(artifactId)) {
-        return entry;
-      }
-    }
-    return null;
+    return getVersionlessCoordinatesToEntry().get(groupId + ":" + artifactId);
   }
 
   /**
@@ -123,12 +141,51 @@ public final class ClassPathResult {
    * matching entry is found.
    */
   ClassPathEntry findEntryBySymbol(Symbol symbol) throws IOException {
-    String className = symbol.getClassBinaryName();
-    for (ClassPathEntry entry : getClassPath()) {
-      if (entry.getFileNames().contains(className)) {
-        return entry;
+    return getClassNameToEntry().get(symbol.getClassBinaryName());
+  }
+
+  private synchronized ImmutableSetMultimap<String, ClassPathEntry>
+      getDependencyCoordinatesToEntries() {
+    if (dependencyCoordinatesToEntries == null) {
+      // Keys are the coordinates of the artifacts right below the root of the dependency paths
+      ImmutableSetMultimap.Builder<String, ClassPathEntry> builder = ImmutableSetMultimap.builder();
+      for (ClassPathEntry entry : classPath) {
+        for (DependencyPath dependencyPath : annotatedClassPath.pathsTo(entry)) {
+          if (dependencyPath.size() > 1) {
+            builder.put(Artifacts.toCoordinates(dependencyPath.get(1)), entry);
+          }
+        }
+      }
+      dependencyCoordinatesToEntries = builder.build();
+    }
+    return dependencyCoordinatesToEntries;
+  }
+
+  private synchronized ImmutableMap<String, ClassPathEntry> getVersionlessCoordinatesToEntry() {
+    if (versionlessCoordinatesToEntry == null) {
+      Map<String, ClassPathEntry> map = new HashMap<>();
+      for (ClassPathEntry entry : classPath) {
+        Artifact artifact = entry.getArtifact();
+        if (artifact != null) {
+          map.putIfAbsent(Artifacts.makeKey(artifact), entry);
+        }
+      }
+      versionlessCoordinatesToEntry = ImmutableMap.copyOf(map);
+    }
+    return versionlessCoordinatesToEntry;
+  }
+
+  private synchronized ImmutableMap<String, ClassPathEntry> getClassNameToEntry()
+      throws IOException {
+    if (classNameToEntry == null) {
+      Map<String, ClassPathEntry> map = new HashMap<>();
+      for (ClassPathEntry entry : classPath) {
+        for (String className : entry.getFileNames()) {
+          map.putIfAbsent(className, entry);
+        }
       }
+      classNameToEntry = ImmutableMap.copyOf(map);
     }
-    return null;
+    return classNameToEntry;
   }
 }
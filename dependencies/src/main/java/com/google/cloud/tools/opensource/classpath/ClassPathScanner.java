@@ -0,0 +1,259 @@
+/*
+ * Copyright 2020 Google LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.opensource.classpath;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.util.concurrent.Futures;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import org.apache.bcel.classfile.ClassFormatException;
+import org.apache.bcel.classfile.ClassParser;
+import org.apache.bcel.classfile.JavaClass;
+import org.eclipse.aether.AbstractRepositoryListener;
+import org.eclipse.aether.RepositoryEvent;
+import org.eclipse.aether.RepositoryListener;
+import org.eclipse.aether.artifact.Artifact;
+
+/**
+ * Extracts the symbol references in JAR files on worker threads as soon as the files are
+ * available, so that reading class files overlaps with downloading other artifacts.
+ *
+ * <p>Each JAR file is scanned on its own, without a class path. Once dependency mediation chooses
+ * the class path, {@link #findSymbolReferences(ClassDumper, List)} assembles the references of the
+ * scanned files in the class path. The result is the same as {@link
+ * ClassDumper#findSymbolReferences()} for the class path.
+ *
+ * <p>The scanned JAR files are shared by the scanners in the JVM, such as the ones of the
+ * enforcer rule executions for the modules of a Maven reactor. A JAR file is scanned again only
+ * when it changes or when the shared scans exceed their limit.
+ */
+public final class ClassPathScanner implements Closeable {
+
+  // Scanned JAR files up to 2 million symbol references in total
+  private static final SharedJarCache<ScannedJar> sharedScannedJars =
+      new SharedJarCache<>(2_000_000, scannedJar -> scannedJar.symbolReferences.size());
+
+  private final ExecutorService executor;
+
+  // Keyed by JAR file, because the class path entries are created after mediation
+  private final ConcurrentMap<Path, Future<ScannedJar>> scannedJars = new ConcurrentHashMap<>();
+
+  /** Creates a scanner that reads JAR files on {@code threads} threads. */
+  public ClassPathScanner(int threads) {
+    checkArgument(threads > 0, "threads must be positive");
+    executor = Executors.newFixedThreadPool(threads);
+  }
+
+  /**
+   * Returns a listener that submits the JAR file of each artifact resolved in a repository session
+   * to this scanner.
+   */
+  public RepositoryListener asRepositoryListener() {
+    return new AbstractRepositoryListener() {
+      @Override
+      public void artifactResolved(RepositoryEvent event) {
+        Artifact artifact = event.getArtifact();
+        if (artifact != null
+            && artifact.getFile() != null
+            && "jar".equals(artifact.getExtension())) {
+          submit(new ClassPathEntry(artifact));
+        }
+      }
+    };
+  }
+
+  /** Starts scanning the JAR file of {@code entry} unless it has been submitted. */
+  void submit(ClassPathEntry entry) {
+    getScannedJar(entry);
+  }
+
+  private Future<ScannedJar> getScannedJar(ClassPathEntry entry) {
+    return scannedJars.computeIfAbsent(
+        entry.getJar(),
+        unused -> executor.submit(() -> sharedScannedJars.get(entry.getJar(), () -> scan(entry))));
+  }
+
+  /**
+   * Returns the symbol references in the class files of {@code classPath}, waiting for the JAR
+   * files that are still being scanned.
+   *
+   * @param classDumper class dumper for {@code classPath}
+   * @throws IOException if a JAR file cannot be read
+   */
+  SymbolReferences findSymbolReferences(ClassDumper classDumper, List<ClassPathEntry> classPath)
+      throws IOException {
+    // Submits the entries that have not been scanned, such as the ones in the local repository
+    List<Future<ScannedJar>> futures = new ArrayList<>();
+    for (ClassPathEntry entry : classPath) {
+      futures.add(getScannedJar(entry));
+    }
+
+    SymbolReferences.Builder builder = new SymbolReferences.Builder();
+    // Once the class repository loads a class from a file with a prefix, it loads the class by its
+    // name from that file.
+    Set<String> relocatedClassNames = new HashSet<>();
+    for (int i = 0; i < classPath.size(); i++) {
+      ClassPathEntry entry = classPath.get(i);
+      ScannedJar scannedJar = Futures.getChecked(futures.get(i), IOException.class);
+      SymbolReferences references = scannedJar.symbolReferences;
+      for (Map.Entry<String, String> classFileName : scannedJar.classNames.entrySet()) {
+        String fileName = classFileName.getKey();
+        String className = classFileName.getValue();
+        // As in ClassDumper, the references of a class in multiple entries are the ones of the
+        // class in the first entry.
+        if (!entry.equals(classDumper.findClassFileLocation(fileName))
+            || relocatedClassNames.contains(className)) {
+          continue;
+        }
+        if (!className.equals(fileName)) {
+          relocatedClassNames.add(className);
+          // Loading the class records its file name in the class repository, as ClassDumper does
+          // when it reads the class path.
+          try {
+            classDumper.loadJavaClass(fileName);
+          } catch (ClassNotFoundException ex) {
+            continue;
+          }
+        }
+        ClassFile scannedSource = new ClassFile(scannedJar.entry, className);
+        ClassFile source = new ClassFile(entry, className);
+        for (ClassSymbol symbol : references.getClassSymbols(scannedSource)) {
+          builder.addClassReference(source, symbol);
+        }
+        for (MethodSymbol symbol : references.getMethodSymbols(scannedSource)) {
+          builder.addMethodReference(source, symbol);
+        }
+        for (FieldSymbol symbol : references.getFieldSymbols(scannedSource)) {
+          builder.addFieldReference(source, symbol);
+        }
+      }
+    }
+    return builder.build();
+  }
+
+  /** Reads the class files in the JAR file or the directory of {@code entry}. */
+  private static ScannedJar scan(ClassPathEntry entry) throws IOException {
+    Path jar = entry.getJar();
+    try {
+      if (Files.isDirectory(jar)) {
+        return scan(
+            entry,
+            ClassPathEntry.listClassFiles(jar),
+            name -> Files.newInputStream(jar.resolve(name)));
+      }
+      try (JarFile jarFile = new JarFile(jar.toFile())) {
+        List<String> names = new ArrayList<>();
+        Enumeration<JarEntry> jarEntries = jarFile.entries();
+        while (jarEntries.hasMoreElements()) {
+          String name = jarEntries.nextElement().getName();
+          if (name.endsWith(".class")) {
+            names.add(name);
+          }
+        }
+        return scan(entry, names, name -> jarFile.getInputStream(jarFile.getEntry(name)));
+      }
+    } catch (IOException ex) {
+      throw new IOException("Failed to read content of " + jar, ex);
+    }
+  }
+
+  /** Opens a class file by its path in a JAR file or a directory. */
+  private interface ClassFileOpener {
+    InputStream open(String name) throws IOException;
+  }
+
+  private static ScannedJar scan(
+      ClassPathEntry entry, List<String> classFileNames, ClassFileOpener opener) {
+    SymbolReferences.Builder builder = new SymbolReferences.Builder();
+    Map<String, String> classNames = new LinkedHashMap<>();
+    ImmutableList.Builder<String> corruptedClassFileNames = ImmutableList.builder();
+    int totalClassFileCount = 0;
+    int incompatibleClassFileCount = 0;
+
+    for (String name : classFileNames) {
+      // Same as ClassPathEntry.getFileNames
+      String fileName = name.replace('/', '.').substring(0, name.length() - 6);
+      if (fileName.startsWith("META-INF.versions.")) {
+        // Linkage Checker does not support multi-release JAR (for Java 9+) yet
+        continue;
+      }
+
+      JavaClass javaClass;
+      try (InputStream inputStream = opener.open(name)) {
+        javaClass = new ClassParser(inputStream, name).parse();
+      } catch (IOException | ClassFormatException ex) {
+        corruptedClassFileNames.add(fileName);
+        continue;
+      }
+      totalClassFileCount++;
+      if (ClassDumper.isCompatibleClassFileVersion(javaClass)) {
+        String className = javaClass.getClassName();
+        classNames.put(fileName, className);
+        ClassFile source = new ClassFile(entry, className);
+        builder.addAll(ClassDumper.findSymbolReferences(source, javaClass));
+      } else {
+        incompatibleClassFileCount++;
+      }
+    }
+
+    ClassDumper.logCorruptedClassFiles(entry, corruptedClassFileNames.build());
+    ClassDumper.logIncompatibleClassFiles(entry, incompatibleClassFileCount, totalClassFileCount);
+    return new ScannedJar(entry, ImmutableMap.copyOf(classNames), builder.build());
+  }
+
+  @Override
+  public void close() {
+    executor.shutdownNow();
+  }
+
+  private static final class ScannedJar {
+    // The entry that the scan used as the location of the classes
+    private final ClassPathEntry entry;
+    // File names to class names of the compatible class files
+    private final ImmutableMap<String, String> classNames;
+    private final SymbolReferences symbolReferences;
+
+    private ScannedJar(
+        ClassPathEntry entry,
+        ImmutableMap<String, String> classNames,
+        SymbolReferences symbolReferences) {
+      this.entry = entry;
+      this.classNames = classNames;
+      this.symbolReferences = symbolReferences;
+    }
+  }
+}
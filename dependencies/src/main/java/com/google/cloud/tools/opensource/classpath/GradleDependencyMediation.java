@@ -16,17 +16,8 @@
 
 package com.google.cloud.tools.opensource.classpath;
 
-import static com.google.common.collect.ImmutableList.toImmutableList;
-
-import com.google.cloud.tools.opensource.dependencies.Artifacts;
 import com.google.cloud.tools.opensource.dependencies.Bom;
-import com.google.cloud.tools.opensource.dependencies.DependencyGraph;
-import com.google.cloud.tools.opensource.dependencies.DependencyPath;
-import com.google.common.collect.HashMultimap;
-import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
-import java.util.ArrayList;
-import java.util.List;
 import org.eclipse.aether.artifact.Artifact;
 import org.eclipse.aether.util.version.GenericVersionScheme;
 import org.eclipse.aether.version.InvalidVersionSpecificationException;
@@ -36,20 +27,28 @@ import org.eclipse.aether.version.Version;
  * Retain only the highest version of a groupId:artifactId encountered. When you want to pin
  * versions for the artifacts in a BOM, use {@link #withEnforcedPlatform(Bom)}.
  */
-public class GradleDependencyMediation implements DependencyMediation {
+public class GradleDependencyMediation extends IndexedDependencyMediation {
+
+  // Orders versions as this mediation always has. The ordering differs from Maven's
+  // ComparableVersion for some qualifiers: 1.0-20200101 is higher than 1.0.1 here, for example.
+  private static final GenericVersionScheme versionScheme = new GenericVersionScheme();
 
   // Mapping from versionless coordinates to versions
-  private final ImmutableMap<String, String> enforcedPlatform;
+  private final ImmutableMap<ArtifactKey, String> enforcedPlatform;
 
   // Not public. Use DependencyMediation.GRADLE instead.
   GradleDependencyMediation() {
+    super(false);
     enforcedPlatform = ImmutableMap.of();
   }
 
   private GradleDependencyMediation(Bom enforcedPlatform) {
+    super(false);
     this.enforcedPlatform =
         enforcedPlatform.getManagedDependencies().stream()
-            .collect(ImmutableMap.toImmutableMap(Artifacts::makeKey, Artifact::getVersion));
+            .collect(
+                ImmutableMap.toImmutableMap(
+                    artifact -> new ArtifactKey(artifact, false), Artifact::getVersion));
   }
 
   /** Uses {@code enforcedPlatform} BOM when choosing versions. */
@@ -58,51 +57,21 @@ public class GradleDependencyMediation implements DependencyMediation {
   }
 
   @Override
-  public AnnotatedClassPath mediate(DependencyGraph dependencyGraph)
-      throws InvalidVersionSpecificationException {
-
-    AnnotatedClassPath annotatedClassPath = new AnnotatedClassPath();
-
-    List<DependencyPath> dependencyPaths = dependencyGraph.list();
-
-    // Step 1: Gather versions in the dependency graph.
-    HashMultimap<String, Version> coordinatesToVersions = HashMultimap.create();
-    GenericVersionScheme versionScheme = new GenericVersionScheme();
-    for (DependencyPath dependencyPath : dependencyPaths) {
-      Artifact artifact = dependencyPath.getLeaf();
-      String versionlessCoordinates = Artifacts.makeKey(artifact);
-      Version version = versionScheme.parseVersion(artifact.getVersion());
-      coordinatesToVersions.put(versionlessCoordinates, version);
-    }
-
-    // Step 2: Select the highest version or the version in the enforcedPlatform for each
-    // versionless coordinates.
-    List<String> selectedCoordinates = new ArrayList<>();
-    for (String versionlessCoordinates : coordinatesToVersions.keySet()) {
-      if (enforcedPlatform.containsKey(versionlessCoordinates)) {
-        String versionInEnforcedPlatform = enforcedPlatform.get(versionlessCoordinates);
-        selectedCoordinates.add(versionlessCoordinates + ":" + versionInEnforcedPlatform);
-      } else {
-        ImmutableList<Version> versions =
-            coordinatesToVersions.get(versionlessCoordinates).stream()
-                .sorted()
-                .collect(toImmutableList());
-        Version highestVersion = versions.get(versions.size() - 1);
-        selectedCoordinates.add(versionlessCoordinates + ":" + highestVersion.toString());
-      }
-    }
+  boolean isCandidate(Artifact artifact) {
+    return true;
+  }
 
-    // Step 3: Build annotated class path.
-    for (DependencyPath dependencyPath : dependencyPaths) {
-      Artifact artifact = dependencyPath.getLeaf();
-      if (selectedCoordinates.contains(Artifacts.toCoordinates(artifact))
-          && artifact.getFile() != null) {
-        // If artifact's file is null, it means there was a problem in downloading the artifact.
-        // Such failure information is recorded in dependencyGraph's artifactProblems.
-        annotatedClassPath.put(new ClassPathEntry(artifact), dependencyPath);
-      }
-    }
+  @Override
+  boolean replaces(String candidateVersion, String selectedVersion)
+      throws InvalidVersionSpecificationException {
+    Version candidate = versionScheme.parseVersion(candidateVersion);
+    return candidate.compareTo(versionScheme.parseVersion(selectedVersion)) > 0;
+  }
 
-    return annotatedClassPath;
+  @Override
+  boolean isSelected(ArtifactKey key, Artifact artifact, Artifact selected) {
+    // The version in the enforcedPlatform takes precedence over the highest version
+    String selectedVersion = enforcedPlatform.getOrDefault(key, selected.getVersion());
+    return artifact.getVersion().equals(selectedVersion);
   }
 }
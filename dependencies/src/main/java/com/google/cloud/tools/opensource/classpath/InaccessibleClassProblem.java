@@ -38,6 +38,10 @@ final class InaccessibleClassProblem extends LinkageProblem {
     this.modifier = modifier;
   }
 
+  AccessModifier getModifier() {
+    return modifier;
+  }
+
   @Override
   public final String toString() {
     StringBuilder message = new StringBuilder();
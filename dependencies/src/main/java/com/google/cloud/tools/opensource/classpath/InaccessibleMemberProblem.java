@@ -32,4 +32,8 @@ final class InaccessibleMemberProblem extends LinkageProblem {
     super("is not accessible", sourceClass, symbol, targetClass);
     this.modifier = modifier;
   }
+
+  AccessModifier getModifier() {
+    return modifier;
+  }
 }
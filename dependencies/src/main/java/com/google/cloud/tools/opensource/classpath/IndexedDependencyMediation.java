@@ -0,0 +1,159 @@
+/*
+ * Copyright 2020 Google LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.opensource.classpath;
+
+import com.google.cloud.tools.opensource.dependencies.DependencyGraph;
+import com.google.cloud.tools.opensource.dependencies.DependencyPath;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import org.eclipse.aether.artifact.Artifact;
+import org.eclipse.aether.version.InvalidVersionSpecificationException;
+
+/**
+ * Dependency mediation that runs in time linear to the number of paths in a dependency graph.
+ *
+ * <p>The first pass over the paths indexes each leaf by its {@link ArtifactKey} and selects one
+ * artifact for each key. The second pass puts the paths to the selected artifacts into the class
+ * path. Subclasses define the strategy: which artifacts are candidates, which candidate wins a
+ * conflict, and which paths to include.
+ */
+abstract class IndexedDependencyMediation implements DependencyMediation {
+
+  private final boolean distinguishesClassifier;
+
+  /**
+   * @param distinguishesClassifier if true, artifacts with different classifiers are mediated
+   *     separately
+   */
+  IndexedDependencyMediation(boolean distinguishesClassifier) {
+    this.distinguishesClassifier = distinguishesClassifier;
+  }
+
+  /** Returns true if {@code artifact} can be selected for its key. */
+  abstract boolean isCandidate(Artifact artifact);
+
+  /**
+   * Returns true if {@code candidateVersion} replaces {@code selectedVersion}, the different
+   * version selected so far for the same key. Candidates come in the order of {@link
+   * DependencyGraph#list()}.
+   */
+  abstract boolean replaces(String candidateVersion, String selectedVersion)
+      throws InvalidVersionSpecificationException;
+
+  /**
+   * Returns true if the paths to {@code artifact} go in the class path, given {@code selected} is
+   * the artifact selected for {@code key}.
+   */
+  abstract boolean isSelected(ArtifactKey key, Artifact artifact, Artifact selected);
+
+  @Override
+  public final AnnotatedClassPath mediate(DependencyGraph dependencyGraph)
+      throws InvalidVersionSpecificationException {
+    List<DependencyPath> dependencyPaths = dependencyGraph.list();
+    int size = dependencyPaths.size();
+
+    // Step 1: Index the leaves by key and select an artifact for each key.
+    ArtifactKey[] keys = new ArtifactKey[size];
+    Map<ArtifactKey, Artifact> selectedArtifacts = new HashMap<>();
+    for (int i = 0; i < size; i++) {
+      Artifact artifact = dependencyPaths.get(i).getLeaf();
+      if (!isCandidate(artifact)) {
+        continue;
+      }
+      ArtifactKey key = new ArtifactKey(artifact, distinguishesClassifier);
+      keys[i] = key;
+      Artifact selected = selectedArtifacts.putIfAbsent(key, artifact);
+      if (selected != null
+          && !selected.getVersion().equals(artifact.getVersion())
+          && replaces(artifact.getVersion(), selected.getVersion())) {
+        selectedArtifacts.put(key, artifact);
+      }
+    }
+
+    // Step 2: Build annotated class path.
+    AnnotatedClassPath annotatedClassPath = new AnnotatedClassPath();
+    for (int i = 0; i < size; i++) {
+      ArtifactKey key = keys[i];
+      if (key == null) {
+        continue;
+      }
+      DependencyPath dependencyPath = dependencyPaths.get(i);
+      Artifact artifact = dependencyPath.getLeaf();
+      // If artifact's file is null, it means there was a problem in downloading the artifact.
+      // Such failure information is recorded in dependencyGraph's artifactProblems.
+      if (artifact.getFile() != null
+          && isSelected(key, artifact, selectedArtifacts.get(key))) {
+        annotatedClassPath.put(new ClassPathEntry(artifact), dependencyPath);
+      }
+    }
+    return annotatedClassPath;
+  }
+
+  /**
+   * The groupId, artifactId, and optionally classifier of an artifact. Unlike a coordinates
+   * string, creating a key does not copy characters.
+   */
+  static final class ArtifactKey {
+    private final String groupId;
+    private final String artifactId;
+    private final String classifier;
+    private final int hashCode;
+
+    ArtifactKey(String groupId, String artifactId, String classifier) {
+      this.groupId = groupId;
+      this.artifactId = artifactId;
+      this.classifier = classifier;
+      this.hashCode = Objects.hash(groupId, artifactId, classifier);
+    }
+
+    ArtifactKey(Artifact artifact, boolean distinguishesClassifier) {
+      this(
+          artifact.getGroupId(),
+          artifact.getArtifactId(),
+          distinguishesClassifier ? artifact.getClassifier() : "");
+    }
+
+    @Override
+    public boolean equals(Object other) {
+      if (this == other) {
+        return true;
+      }
+      if (!(other instanceof ArtifactKey)) {
+        return false;
+      }
+      ArtifactKey that = (ArtifactKey) other;
+      return hashCode == that.hashCode
+          && groupId.equals(that.groupId)
+          && artifactId.equals(that.artifactId)
+          && classifier.equals(that.classifier);
+    }
+
+    @Override
+    public int hashCode() {
+      return hashCode;
+    }
+
+    @Override
+    public String toString() {
+      return classifier.isEmpty()
+          ? groupId + ":" + artifactId
+          : groupId + ":" + artifactId + ":" + classifier;
+    }
+  }
+}
@@ -17,21 +17,26 @@
 package com.google.cloud.tools.opensource.classpath;
 
 import static com.google.cloud.tools.opensource.classpath.ClassDumper.getClassHierarchy;
+import static com.google.common.collect.ImmutableList.toImmutableList;
 import static com.google.common.collect.ImmutableSet.toImmutableSet;
 
 import com.google.cloud.tools.opensource.dependencies.Bom;
+import com.google.cloud.tools.opensource.dependencies.DependencyGraphBuilder;
 import com.google.cloud.tools.opensource.dependencies.UnresolvableArtifactProblem;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
+import com.google.common.collect.HashMultimap;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
+import com.google.common.collect.SetMultimap;
 import java.io.IOException;
 import java.nio.file.Path;
 import java.util.ArrayDeque;
 import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.Queue;
 import java.util.Set;
@@ -54,7 +59,8 @@ public class LinkageChecker {
   private final ClassDumper classDumper;
   private final ImmutableList<ClassPathEntry> classPath;
   private final SymbolReferences symbolReferences;
-  private final ClassReferenceGraph classReferenceGraph;
+  // Null when only the references from the source artifacts are read
+  @Nullable private final ClassReferenceGraph classReferenceGraph;
   private final List<Artifact> sourceFilterList;
   private final ExcludedErrors excludedErrors;
 
@@ -63,10 +69,24 @@ public class LinkageChecker {
     return symbolReferences;
   }
 
+  /**
+   * Returns the class reference graph of the class path.
+   *
+   * @throws IllegalStateException if this Linkage Checker read only the references of the source
+   *     artifacts
+   */
   public ClassReferenceGraph getClassReferenceGraph() {
+    Preconditions.checkState(
+        classReferenceGraph != null,
+        "The Linkage Checker was created without the references for reachability");
     return classReferenceGraph;
   }
 
+  /** Returns the class path that this Linkage Checker checks. */
+  public ImmutableList<ClassPathEntry> getClassPath() {
+    return classPath;
+  }
+
   public static LinkageChecker create(List<ClassPathEntry> classPath) throws IOException {
     return create(classPath, ImmutableSet.copyOf(classPath), ImmutableList.of(), null);
   }
@@ -84,12 +104,63 @@ public class LinkageChecker {
       List<Artifact> sourceFilterList,
       @Nullable Path exclusionFile)
       throws IOException {
+    return create(classPath, entryPoints, sourceFilterList, exclusionFile, null);
+  }
+
+  /**
+   * Returns Linkage Checker for {@code classPath}, taking the symbol references from {@code
+   * classPathScanner} if it is not null. The scanner may have read the JAR files while they were
+   * resolved, or for another Linkage Checker.
+   */
+  public static LinkageChecker create(
+      List<ClassPathEntry> classPath,
+      Iterable<ClassPathEntry> entryPoints,
+      List<Artifact> sourceFilterList,
+      @Nullable Path exclusionFile,
+      @Nullable ClassPathScanner classPathScanner)
+      throws IOException {
+    return create(classPath, entryPoints, sourceFilterList, exclusionFile, true, classPathScanner);
+  }
+
+  /**
+   * Returns Linkage Checker for {@code classPath}, taking the symbol references from {@code
+   * classPathScanner} if it is not null.
+   *
+   * <p>When {@code sourceFilterList} is not empty and {@code reportOnlyReachable} is false, only
+   * the symbol references of the class path entries for the artifacts in the list are read. The
+   * other entries are read only for the classes that the references point to. Such a Linkage
+   * Checker does not have a {@link ClassReferenceGraph}, because the reachability of a source
+   * class may depend on the references from the classes of the other entries.
+   *
+   * @param reportOnlyReachable whether the caller filters the linkage problems by {@link
+   *     #getClassReferenceGraph()}
+   */
+  public static LinkageChecker create(
+      List<ClassPathEntry> classPath,
+      Iterable<ClassPathEntry> entryPoints,
+      List<Artifact> sourceFilterList,
+      @Nullable Path exclusionFile,
+      boolean reportOnlyReachable,
+      @Nullable ClassPathScanner classPathScanner)
+      throws IOException {
     Preconditions.checkArgument(!classPath.isEmpty(), "The linkage classpath is empty.");
     ClassDumper dumper = ClassDumper.create(classPath);
-    SymbolReferences symbolReferenceMaps = dumper.findSymbolReferences();
+    boolean readingOnlySources = !sourceFilterList.isEmpty() && !reportOnlyReachable;
+    List<ClassPathEntry> sourceEntries =
+        readingOnlySources
+            ? classPath.stream()
+                .filter(entry -> isInSourceFilter(entry, sourceFilterList))
+                .collect(toImmutableList())
+            : classPath;
+    SymbolReferences symbolReferenceMaps =
+        classPathScanner == null
+            ? dumper.findSymbolReferences(sourceEntries)
+            : classPathScanner.findSymbolReferences(dumper, sourceEntries);
 
     ClassReferenceGraph classReferenceGraph =
-        ClassReferenceGraph.create(symbolReferenceMaps, ImmutableSet.copyOf(entryPoints));
+        readingOnlySources
+            ? null
+            : ClassReferenceGraph.create(symbolReferenceMaps, ImmutableSet.copyOf(entryPoints));
 
     return new LinkageChecker(
         dumper,
@@ -107,10 +178,42 @@ public class LinkageChecker {
 
   public static LinkageChecker create(Bom bom, Path exclusionFile)
       throws IOException, InvalidVersionSpecificationException {
+    return create(bom, exclusionFile, null);
+  }
+
+  /**
+   * Returns Linkage Checker for the class path of {@code bom}, taking the symbol references from
+   * {@code classPathScanner} if it is not null. The scanner reads the JAR files while they are
+   * resolved.
+   */
+  public static LinkageChecker create(
+      Bom bom, @Nullable Path exclusionFile, @Nullable ClassPathScanner classPathScanner)
+      throws IOException, InvalidVersionSpecificationException {
+    return create(
+        bom, exclusionFile, classPathScanner, Runtime.getRuntime().availableProcessors());
+  }
+
+  /**
+   * Returns Linkage Checker for the class path of {@code bom} as {@link #create(Bom, Path,
+   * ClassPathScanner)} does, collecting the dependency trees of the BOM members in {@code
+   * collectionThreads} threads.
+   */
+  public static LinkageChecker create(
+      Bom bom,
+      @Nullable Path exclusionFile,
+      @Nullable ClassPathScanner classPathScanner,
+      int collectionThreads)
+      throws IOException, InvalidVersionSpecificationException {
     // duplicate code from DashboardMain follows. We need to refactor to extract this.
     ImmutableList<Artifact> managedDependencies = bom.getManagedDependencies();
 
-    ClassPathBuilder classPathBuilder = new ClassPathBuilder();
+    // The dependency trees of the BOM members are collected concurrently
+    DependencyGraphBuilder dependencyGraphBuilder = new DependencyGraphBuilder();
+    dependencyGraphBuilder.setCollectionThreads(collectionThreads);
+    if (classPathScanner != null) {
+      dependencyGraphBuilder.setRepositoryListener(classPathScanner.asRepositoryListener());
+    }
+    ClassPathBuilder classPathBuilder = new ClassPathBuilder(dependencyGraphBuilder);
     ClassPathResult classPathResult =
         classPathBuilder.resolve(managedDependencies, true, DependencyMediation.MAVEN);
     ImmutableList<ClassPathEntry> classpath = classPathResult.getClassPath();
@@ -133,7 +236,8 @@ public class LinkageChecker {
     List<ClassPathEntry> artifactsInBom = classpath.subList(0, managedDependencies.size());
     ImmutableSet<ClassPathEntry> entryPoints = ImmutableSet.copyOf(artifactsInBom);
 
-    return LinkageChecker.create(classpath, entryPoints, ImmutableList.of(), exclusionFile);
+    return LinkageChecker.create(
+        classpath, entryPoints, ImmutableList.of(), exclusionFile, classPathScanner);
   }
 
   @VisibleForTesting
@@ -146,12 +250,12 @@ public class LinkageChecker {
       ClassDumper classDumper,
       List<ClassPathEntry> classPath,
       SymbolReferences symbolReferenceMaps,
-      ClassReferenceGraph classReferenceGraph,
+      @Nullable ClassReferenceGraph classReferenceGraph,
       List<Artifact> sourceFilterList,
       ExcludedErrors excludedErrors) {
     this.classDumper = Preconditions.checkNotNull(classDumper);
     this.classPath = ImmutableList.copyOf(classPath);
-    this.classReferenceGraph = Preconditions.checkNotNull(classReferenceGraph);
+    this.classReferenceGraph = classReferenceGraph;
     this.symbolReferences = Preconditions.checkNotNull(symbolReferenceMaps);
     this.sourceFilterList = sourceFilterList;
     this.excludedErrors = Preconditions.checkNotNull(excludedErrors);
@@ -163,12 +267,18 @@ public class LinkageChecker {
    * of DefaultArtifact checks more fields than just the GAV Coordinates (also checks the classifier,
    * file path, properties, etc are all equal).
    */
-  private boolean areArtifactsEquals(Artifact artifact1, Artifact artifact2) {
+  private static boolean areArtifactsEquals(Artifact artifact1, Artifact artifact2) {
     return artifact1.getGroupId().equals(artifact2.getGroupId())
         && artifact1.getArtifactId().equals(artifact2.getArtifactId())
         && artifact1.getVersion().equals(artifact2.getVersion());
   }
 
+  private static boolean isInSourceFilter(ClassPathEntry entry, List<Artifact> sourceFilterList) {
+    Artifact artifact = entry.getArtifact();
+    return artifact != null
+        && sourceFilterList.stream().anyMatch(source -> areArtifactsEquals(artifact, source));
+  }
+
   /**
    * Searches the classpath for linkage errors.
    *
@@ -176,10 +286,150 @@ public class LinkageChecker {
    * @throws IOException I/O error reading files in the classpath
    */
   public ImmutableSet<LinkageProblem> findLinkageProblems() throws IOException {
+    return findLinkageProblems(symbolReferences.getClassFiles());
+  }
+
+  /**
+   * Searches the classpath for linkage errors, reusing {@code baselineProblems} that {@code
+   * baseline} found in another class path. The two checkers should have the same exclusion file and
+   * source filter. The result is the same as {@link #findLinkageProblems()}.
+   *
+   * <p>A class differs between the two class paths if its first location differs, or if one of
+   * its superclasses, interfaces, or enclosing classes differs. Only the classes that reference a
+   * differing class, or differ themselves, are checked; the problems of the other classes are
+   * carried over from {@code baselineProblems}. As linkage problems are reported on top-level
+   * classes, all classes nested in a top-level class are checked together.
+   *
+   * @param baseline Linkage Checker for the baseline class path
+   * @param baselineProblems the result of {@link #findLinkageProblems()} of {@code baseline}
+   * @throws IOException I/O error reading files in the classpath
+   */
+  public ImmutableSet<LinkageProblem> findLinkageProblems(
+      LinkageChecker baseline, Set<LinkageProblem> baselineProblems) throws IOException {
+    Set<String> differingClassNames = findDifferingClassNames(baseline);
+
+    Set<ClassFile> classFiles = symbolReferences.getClassFiles();
+    Set<ClassFile> topLevelClassFilesToCheck = new HashSet<>();
+    for (ClassFile classFile : classFiles) {
+      if (referencesAny(classFile, differingClassNames)) {
+        topLevelClassFilesToCheck.add(classFile.topLevelClassFile());
+      }
+    }
+
+    Set<ClassFile> topLevelClassFiles = new HashSet<>();
+    Set<ClassFile> classFilesToCheck = new HashSet<>();
+    for (ClassFile classFile : classFiles) {
+      ClassFile topLevelClassFile = classFile.topLevelClassFile();
+      topLevelClassFiles.add(topLevelClassFile);
+      if (topLevelClassFilesToCheck.contains(topLevelClassFile)) {
+        classFilesToCheck.add(classFile);
+      }
+    }
+
+    ImmutableSet.Builder<LinkageProblem> problems = ImmutableSet.builder();
+    for (LinkageProblem problem : baselineProblems) {
+      // The source class of an unchanged problem has the same location in both class paths
+      ClassFile topLevelClassFile = problem.getSourceClass().topLevelClassFile();
+      if (topLevelClassFiles.contains(topLevelClassFile)
+          && !topLevelClassFilesToCheck.contains(topLevelClassFile)) {
+        problems.add(problem);
+      }
+    }
+    problems.addAll(findLinkageProblems(classFilesToCheck));
+    return problems.build();
+  }
+
+  /**
+   * Returns the names of the classes that differ between the class paths of this checker and
+   * {@code baseline}: the classes whose first locations differ and their subclasses and
+   * implementations in this class path.
+   */
+  private Set<String> findDifferingClassNames(LinkageChecker baseline) throws IOException {
+    Set<String> differingClassNames = new HashSet<>();
+    for (List<ClassPathEntry> entries : ImmutableList.of(classPath, baseline.classPath)) {
+      for (ClassPathEntry entry : entries) {
+        for (String fileName : entry.getFileNames()) {
+          if (!Objects.equals(
+              classDumper.findClassFileLocation(fileName),
+              baseline.classDumper.findClassFileLocation(fileName))) {
+            differingClassNames.add(fileName);
+          }
+        }
+      }
+    }
+    if (differingClassNames.isEmpty()) {
+      return differingClassNames;
+    }
+
+    // The superclass and interfaces of a class are in its class symbols
+    SetMultimap<String, String> subtypes = HashMultimap.create();
+    Set<String> classNamesWithKnownSupertypes = new HashSet<>();
+    for (ClassFile classFile : symbolReferences.getClassFiles()) {
+      classNamesWithKnownSupertypes.add(classFile.getBinaryName());
+      for (ClassSymbol classSymbol : symbolReferences.getClassSymbols(classFile)) {
+        if (classSymbol instanceof SuperClassSymbol || classSymbol instanceof InterfaceSymbol) {
+          subtypes.put(classSymbol.getClassBinaryName(), classFile.getBinaryName());
+        }
+      }
+    }
+    // Class files that this tool does not read, such as the ones for Java 11, may have differing
+    // supertypes
+    for (ClassPathEntry entry : classPath) {
+      for (String fileName : entry.getFileNames()) {
+        if (!classNamesWithKnownSupertypes.contains(fileName)) {
+          differingClassNames.add(fileName);
+        }
+      }
+    }
+
+    Queue<String> queue = new ArrayDeque<>(differingClassNames);
+    while (!queue.isEmpty()) {
+      for (String subtype : subtypes.get(queue.remove())) {
+        if (differingClassNames.add(subtype)) {
+          queue.add(subtype);
+        }
+      }
+    }
+    return differingClassNames;
+  }
+
+  /**
+   * Returns true if {@code classFile} or the classes it references are in {@code classNames} or
+   * are nested in a class in {@code classNames}.
+   */
+  private boolean referencesAny(ClassFile classFile, Set<String> classNames) {
+    if (classNames.isEmpty()) {
+      return false;
+    }
+    if (isOrIsNestedIn(classFile.getBinaryName(), classNames)) {
+      return true;
+    }
+    for (Symbol symbol :
+        Iterables.concat(
+            symbolReferences.getClassSymbols(classFile),
+            symbolReferences.getMethodSymbols(classFile),
+            symbolReferences.getFieldSymbols(classFile))) {
+      if (isOrIsNestedIn(symbol.getClassBinaryName(), classNames)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static boolean isOrIsNestedIn(String className, Set<String> classNames) {
+    for (String name = className; name != null; name = ClassDumper.enclosingClassName(name)) {
+      if (classNames.contains(name)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private ImmutableSet<LinkageProblem> findLinkageProblems(Set<ClassFile> classFiles)
+      throws IOException {
     ImmutableSet.Builder<LinkageProblem> problemToClass = ImmutableSet.builder();
 
     // This sourceClassFile is a source of references to other symbols.
-    Set<ClassFile> classFiles = symbolReferences.getClassFiles();
 
     // Filtering the classFiles from the JARs (instead of using the problem filter) has additional a few
     // additional benefits. 1. Reduces the total amount of linkage references to match and 2. Doesn't require
@@ -21,6 +21,7 @@ import static com.google.common.collect.ImmutableList.toImmutableList;
 import com.google.cloud.tools.opensource.dependencies.Bom;
 import com.google.cloud.tools.opensource.dependencies.RepositoryUtility;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
 import java.io.IOException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
@@ -39,6 +40,7 @@ import org.apache.commons.cli.ParseException;
 import org.eclipse.aether.RepositoryException;
 import org.eclipse.aether.artifact.Artifact;
 import org.eclipse.aether.artifact.DefaultArtifact;
+import org.eclipse.aether.repository.RepositoryPolicy;
 
 /**
  * Option for {@link LinkageChecker}. To construct an input class path, the checker requires
@@ -59,6 +61,12 @@ final class LinkageCheckerArguments {
   private static final Options options = configureOptions();
   private static final HelpFormatter helpFormatter = new HelpFormatter();
 
+  private static final ImmutableSet<String> CHECKSUM_POLICIES =
+      ImmutableSet.of(
+          RepositoryPolicy.CHECKSUM_POLICY_FAIL,
+          RepositoryPolicy.CHECKSUM_POLICY_WARN,
+          RepositoryPolicy.CHECKSUM_POLICY_IGNORE);
+
   private final CommandLine commandLine;
   private final ImmutableList<String> extraMavenRepositoryUrls;
   private final boolean addMavenCentral;
@@ -89,6 +97,24 @@ final class LinkageCheckerArguments {
 
     try {
       CommandLine commandLine = parser.parse(options, arguments);
+      if (commandLine.hasOption("dt")) {
+        String downloadThreads = commandLine.getOptionValue("dt");
+        if (!downloadThreads.matches("[1-9][0-9]*")) {
+          throw new ParseException("Invalid number of download threads: " + downloadThreads);
+        }
+      }
+      if (commandLine.hasOption("st")) {
+        String scanThreads = commandLine.getOptionValue("st");
+        if (!scanThreads.matches("[1-9][0-9]*")) {
+          throw new ParseException("Invalid number of scan threads: " + scanThreads);
+        }
+      }
+      if (commandLine.hasOption("cs")) {
+        String checksumPolicy = commandLine.getOptionValue("cs");
+        if (!CHECKSUM_POLICIES.contains(checksumPolicy)) {
+          throw new ParseException("Invalid checksum policy: " + checksumPolicy);
+        }
+      }
       return new LinkageCheckerArguments(commandLine);
     } catch (IllegalArgumentException ex) {
       throw new ParseException("Invalid URL syntax in Maven repository URL" + ex.getMessage());
@@ -194,6 +220,61 @@ final class LinkageCheckerArguments {
             .build();
     options.addOption(writeAsExclusionFile);
 
+    Option lockfile =
+        Option.builder("l")
+            .longOpt("lockfile")
+            .hasArg(true)
+            .desc(
+                "Lockfile to read the class path from instead of resolving the dependencies of "
+                    + "the BOM or Maven artifacts. The dependencies are resolved when the "
+                    + "lockfile does not exist or it was written for other inputs")
+            .build();
+    options.addOption(lockfile);
+
+    Option writeLockfile =
+        Option.builder("wl")
+            .longOpt("write-lockfile")
+            .hasArg(true)
+            .desc("Write the class path of the BOM or Maven artifacts into the specified lockfile")
+            .build();
+    options.addOption(writeLockfile);
+
+    Option downloadThreads =
+        Option.builder("dt")
+            .longOpt("download-threads")
+            .hasArg(true)
+            .desc("Number of threads to download the files of the dependencies. By default, 5")
+            .build();
+    options.addOption(downloadThreads);
+
+    Option checksumPolicy =
+        Option.builder("cs")
+            .longOpt("checksum-policy")
+            .hasArg(true)
+            .desc(
+                "Checksum policy for the Maven repositories: fail, warn, or ignore. "
+                    + "By default, warn")
+            .build();
+    options.addOption(checksumPolicy);
+
+    Option noConnectionReuse =
+        Option.builder("ncr")
+            .longOpt("no-connection-reuse")
+            .hasArg(false)
+            .desc("Do not keep HTTP connections to the Maven repositories alive for reuse")
+            .build();
+    options.addOption(noConnectionReuse);
+
+    Option scanThreads =
+        Option.builder("st")
+            .longOpt("scan-threads")
+            .hasArg(true)
+            .desc(
+                "Number of threads to read the JAR files of the dependencies while they are "
+                    + "downloaded. By default, the JAR files are read after the resolution")
+            .build();
+    options.addOption(scanThreads);
+
     options.addOptionGroup(inputGroup);
     return options;
   }
@@ -225,6 +306,25 @@ final class LinkageCheckerArguments {
     }
   }
 
+  /**
+   * Returns strings that identify the inputs of dependency resolution: the BOM or the artifacts and
+   * the Maven repositories. Unlike {@link #getArtifacts()}, this does not read the BOM.
+   */
+  ImmutableList<String> getResolutionInputs() {
+    ImmutableList.Builder<String> inputs = ImmutableList.builder();
+    if (commandLine.hasOption("b")) {
+      inputs.add("bom:" + commandLine.getOptionValue("b"));
+    } else if (commandLine.hasOption("a")) {
+      for (String coordinates : commandLine.getOptionValues("a")) {
+        inputs.add("artifact:" + coordinates);
+      }
+    }
+    for (String repositoryUrl : getMavenRepositoryUrls()) {
+      inputs.add("repository:" + repositoryUrl);
+    }
+    return inputs.build();
+  }
+
   /**
    * Returns class path entries for the absolute paths of the files specified in the JAR file
    * option.
@@ -266,6 +366,10 @@ final class LinkageCheckerArguments {
         "java com.google.cloud.tools.opensource.classpath.LinkageChecker", options);
   }
 
+  boolean hasJarFiles() {
+    return commandLine.hasOption("j");
+  }
+
   boolean hasInput() {
     return commandLine.hasOption("b") || commandLine.hasOption("a") || commandLine.hasOption("j");
   }
@@ -292,6 +396,62 @@ final class LinkageCheckerArguments {
     return null;
   }
 
+  /**
+   * Returns the path to the lockfile to read the class path from. If the argument is not
+   * specified, {@code null}.
+   */
+  Path getInputLockfile() {
+    if (commandLine.hasOption("l")) {
+      return Paths.get(commandLine.getOptionValue("l"));
+    }
+    return null;
+  }
+
+  /**
+   * Returns the path to write the class path as a lockfile. If the argument is not specified,
+   * {@code null}.
+   */
+  Path getOutputLockfile() {
+    if (commandLine.hasOption("wl")) {
+      return Paths.get(commandLine.getOptionValue("wl"));
+    }
+    return null;
+  }
+
+  /**
+   * Returns the number of threads to download the files of the dependencies. If the argument is
+   * not specified, {@code null}.
+   */
+  Integer getDownloadThreads() {
+    if (commandLine.hasOption("dt")) {
+      return Integer.valueOf(commandLine.getOptionValue("dt"));
+    }
+    return null;
+  }
+
+  /**
+   * Returns the checksum policy for the Maven repositories. If the argument is not specified,
+   * {@code null}.
+   */
+  String getChecksumPolicy() {
+    return commandLine.getOptionValue("cs");
+  }
+
+  boolean reuseConnections() {
+    return !commandLine.hasOption("ncr");
+  }
+
+  /**
+   * Returns the number of threads to read the JAR files of the dependencies while they are
+   * downloaded. If the argument is not specified, {@code null}.
+   */
+  Integer getScanThreads() {
+    if (commandLine.hasOption("st")) {
+      return Integer.valueOf(commandLine.getOptionValue("st"));
+    }
+    return null;
+  }
+
   /**
    * Returns a list of artifacts to search where Linkage Errors stem from. If the argument is not
    * specified, return an empty List.
@@ -23,7 +23,9 @@ import com.google.cloud.tools.opensource.dependencies.DependencyGraphBuilder;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import java.io.IOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import javax.annotation.Nullable;
 import javax.xml.stream.XMLStreamException;
 import javax.xml.transform.TransformerException;
 import org.apache.commons.cli.ParseException;
@@ -56,12 +58,10 @@ public class LinkageCheckerMain {
       }
 
       if (linkageCheckerArguments.hasInput()) {
-        // artifacts is not empty if a BOM or Maven coordinates are specified in the argument.
-        // If JAR files are specified, it's empty.
-        ImmutableList<Artifact> artifacts = linkageCheckerArguments.getArtifacts();
-
+        // Checking the option instead of the artifacts, because reading the BOM for the artifacts
+        // is not necessary when a lockfile has the class path.
         Problems problems =
-            artifacts.isEmpty()
+            linkageCheckerArguments.hasJarFiles()
                 ? checkJarFiles(linkageCheckerArguments)
                 : checkArtifacts(linkageCheckerArguments);
 
@@ -145,14 +145,64 @@ public class LinkageCheckerMain {
       LinkageCheckerArguments linkageCheckerArguments)
       throws IOException, RepositoryException, TransformerException, XMLStreamException {
     
-    ImmutableList<Artifact> artifacts = linkageCheckerArguments.getArtifacts();
-
-    // When a BOM or Maven artifacts are passed as arguments, resolve the dependencies.
-    DependencyGraphBuilder dependencyGraphBuilder =
-        new DependencyGraphBuilder(linkageCheckerArguments.getMavenRepositoryUrls());
-    ClassPathBuilder classPathBuilder = new ClassPathBuilder(dependencyGraphBuilder);
-    ClassPathResult classPathResult =
-        classPathBuilder.resolve(artifacts, false, DependencyMediation.MAVEN);
+    Path inputLockfile = linkageCheckerArguments.getInputLockfile();
+    Path outputLockfile = linkageCheckerArguments.getOutputLockfile();
+    ImmutableList<String> resolutionInputs = linkageCheckerArguments.getResolutionInputs();
+
+    ClassPathLockfile lockfile = null;
+    if (inputLockfile != null && Files.exists(inputLockfile)) {
+      ClassPathLockfile savedLockfile = ClassPathLockfile.read(inputLockfile);
+      if (savedLockfile.isUpToDate(resolutionInputs)) {
+        lockfile = savedLockfile;
+      } else {
+        System.out.println(
+            "Lockfile " + inputLockfile + " is out of date. Resolving dependencies.");
+      }
+    }
+
+    Integer scanThreads = linkageCheckerArguments.getScanThreads();
+    try (ClassPathScanner classPathScanner =
+        scanThreads == null ? null : new ClassPathScanner(scanThreads)) {
+      return checkArtifacts(linkageCheckerArguments, lockfile, classPathScanner);
+    }
+  }
+
+  private static Problems checkArtifacts(
+      LinkageCheckerArguments linkageCheckerArguments,
+      @Nullable ClassPathLockfile lockfile,
+      @Nullable ClassPathScanner classPathScanner)
+      throws IOException, RepositoryException, TransformerException, XMLStreamException {
+
+    Path outputLockfile = linkageCheckerArguments.getOutputLockfile();
+    ImmutableList<String> resolutionInputs = linkageCheckerArguments.getResolutionInputs();
+
+    ImmutableList<Artifact> artifacts;
+    ClassPathResult classPathResult;
+    ClassPathBuilder classPathBuilder = null;
+    if (lockfile != null) {
+      artifacts = lockfile.getArtifacts();
+      classPathResult = lockfile.getClassPathResult();
+    } else {
+      artifacts = linkageCheckerArguments.getArtifacts();
+      // When a BOM or Maven artifacts are passed as arguments, resolve the dependencies.
+      DependencyGraphBuilder dependencyGraphBuilder =
+          newDependencyGraphBuilder(linkageCheckerArguments);
+      if (classPathScanner != null) {
+        // Reads each JAR file as soon as it is downloaded, while other artifacts are downloaded
+        dependencyGraphBuilder.setRepositoryListener(classPathScanner.asRepositoryListener());
+      }
+      classPathBuilder = new ClassPathBuilder(dependencyGraphBuilder);
+      classPathResult = classPathBuilder.resolve(artifacts, false, DependencyMediation.MAVEN);
+    }
+
+    if (outputLockfile != null) {
+      if (lockfile == null) {
+        lockfile = ClassPathLockfile.create(resolutionInputs, artifacts, classPathResult);
+      }
+      lockfile.write(outputLockfile);
+      System.out.println("Wrote the class path as lockfile: " + outputLockfile);
+    }
+
     ImmutableList<ClassPathEntry> inputClassPath = classPathResult.getClassPath();
     ImmutableList<ArtifactProblem> artifactProblems =
         ImmutableList.copyOf(classPathResult.getArtifactProblems());
@@ -161,16 +211,48 @@ public class LinkageCheckerMain {
 
     LinkageChecker linkageChecker =
         LinkageChecker.create(
-            inputClassPath, entryPoints, linkageCheckerArguments.getSourceFilterArtifactList(), linkageCheckerArguments.getInputExclusionFile());
+            inputClassPath,
+            entryPoints,
+            linkageCheckerArguments.getSourceFilterArtifactList(),
+            linkageCheckerArguments.getInputExclusionFile(),
+            linkageCheckerArguments.getReportOnlyReachable(),
+            classPathScanner);
     ImmutableSet<LinkageProblem> linkageProblems =
         findLinkageProblems(linkageChecker,
             linkageCheckerArguments.getReportOnlyReachable());
     
-    LinkageProblemCauseAnnotator.annotate(classPathBuilder, classPathResult, linkageProblems);
+    if (lockfile != null) {
+      // The dependency graph in the lockfile tells the causes without resolving the dependencies
+      // of each source artifact. Runs that write and read the lockfile report the same causes.
+      LinkageProblemCauseAnnotator.annotate(
+          classPathResult.getDependencyGraph(), classPathResult, linkageProblems);
+    } else {
+      // The dependency graph of each source artifact has the optional dependencies and the
+      // excluded artifacts that the class path's graph does not have.
+      LinkageProblemCauseAnnotator.annotate(classPathBuilder, classPathResult, linkageProblems);
+    }
     
     return new Problems(linkageProblems, artifactProblems, classPathResult); 
   }
 
+  private static DependencyGraphBuilder newDependencyGraphBuilder(
+      LinkageCheckerArguments linkageCheckerArguments) {
+    ImmutableList<String> repositoryUrls = linkageCheckerArguments.getMavenRepositoryUrls();
+    DependencyGraphBuilder dependencyGraphBuilder = new DependencyGraphBuilder(repositoryUrls);
+    Integer downloadThreads = linkageCheckerArguments.getDownloadThreads();
+    if (downloadThreads != null) {
+      dependencyGraphBuilder.setDownloadThreads(downloadThreads);
+    }
+    dependencyGraphBuilder.setReuseConnections(linkageCheckerArguments.reuseConnections());
+    String checksumPolicy = linkageCheckerArguments.getChecksumPolicy();
+    if (checksumPolicy != null) {
+      for (String repositoryUrl : repositoryUrls) {
+        dependencyGraphBuilder.setChecksumPolicy(repositoryUrl, checksumPolicy);
+      }
+    }
+    return dependencyGraphBuilder;
+  }
+
   private static ImmutableSet<LinkageProblem> findLinkageProblems(LinkageChecker linkageChecker,
       boolean reportOnlyReachable)
       throws IOException, TransformerException, XMLStreamException {
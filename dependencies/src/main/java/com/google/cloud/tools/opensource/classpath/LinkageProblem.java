@@ -47,6 +47,8 @@ public abstract class LinkageProblem {
   private final String symbolProblemMessage;
   private LinkageProblemCause cause;
   private ClassFile targetClass;
+  // Computed on first use. Concurrent threads compute the same value.
+  private volatile LinkageProblemFingerprint fingerprint;
 
   /**
    * A linkage error describing an invalid reference.
@@ -95,6 +97,21 @@ public abstract class LinkageProblem {
     return targetClass;
   }
 
+  /**
+   * Returns the fingerprint of this problem, which is the same for the problem in other versions
+   * of the artifacts.
+   *
+   * @see LinkageProblemDiff
+   */
+  public LinkageProblemFingerprint getFingerprint() {
+    LinkageProblemFingerprint result = fingerprint;
+    if (result == null) {
+      result = LinkageProblemFingerprint.of(this);
+      fingerprint = result;
+    }
+    return result;
+  }
+
   void setCause(LinkageProblemCause cause) {
     this.cause = checkNotNull(cause);
   }
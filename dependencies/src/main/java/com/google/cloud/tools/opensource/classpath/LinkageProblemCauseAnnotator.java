@@ -18,15 +18,40 @@ package com.google.cloud.tools.opensource.classpath;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
+import com.google.cloud.tools.opensource.dependencies.Artifacts;
+import com.google.cloud.tools.opensource.dependencies.DependencyGraph;
+import com.google.cloud.tools.opensource.dependencies.DependencyGraphBuilder;
 import com.google.cloud.tools.opensource.dependencies.DependencyPath;
+import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ListMultimap;
+import java.io.File;
 import java.io.IOException;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.logging.Logger;
 import org.eclipse.aether.artifact.Artifact;
 
-/** Annotates {@link LinkageProblem}s with {@link LinkageProblemCause}s. */
+/**
+ * Annotates {@link LinkageProblem}s with {@link LinkageProblemCause}s.
+ *
+ * <p>{@link #annotate(ClassPathBuilder, ClassPathResult, Iterable)} resolves the dependency graph
+ * of each source artifact and is the annotator for Linkage Checker runs. {@link
+ * #annotate(DependencyGraph, ClassPathResult, Iterable)} looks up the causes in one dependency
+ * graph without accessing Maven repositories, for class paths read from lockfiles. It has two
+ * limits:
+ *
+ * <ul>
+ *   <li>The graph must contain the artifact with the symbol. The verbose graph of a class path
+ *       does not have the optional dependencies of transitive dependencies, so the problems that
+ *       they cause are annotated with {@link UnknownCause} instead of {@link MissingDependency}.
+ *   <li>It finds {@link ExcludedDependency} causes only for excluded artifacts that the graph has
+ *       at another path. An artifact excluded at every path is not in the graph.
+ * </ul>
+ */
 public final class LinkageProblemCauseAnnotator {
   private static final Logger logger =
       Logger.getLogger(LinkageProblemCauseAnnotator.class.getName());
@@ -62,6 +87,160 @@ public final class LinkageProblemCauseAnnotator {
     }
   }
 
+  /**
+   * Annotates the cause field of {@link LinkageProblem}s with the {@link LinkageProblemCause}
+   * without accessing Maven repositories.
+   *
+   * <p>Unlike {@link #annotate(ClassPathBuilder, ClassPathResult, Iterable)}, which resolves the
+   * dependency graph of each source artifact, this method looks up unselected artifacts and
+   * exclusions in {@code dependencyGraph}. Optional dependencies of transitive dependencies appear
+   * only in the graph built by {@link DependencyGraphBuilder#buildFullDependencyGraph(List)}; with
+   * the verbose graph, problems caused by them are annotated with {@link UnknownCause}.
+   *
+   * @param dependencyGraph the dependency graph from which {@code rootResult} was built
+   * @param rootResult the class path used for generating the linkage problems
+   * @param linkageProblems linkage problems to annotate
+   */
+  public static void annotate(
+      DependencyGraph dependencyGraph,
+      ClassPathResult rootResult,
+      Iterable<LinkageProblem> linkageProblems) {
+    checkNotNull(dependencyGraph);
+    checkNotNull(rootResult);
+    checkNotNull(linkageProblems);
+
+    ListMultimap<String, Artifact> classNameToArtifacts;
+    try {
+      classNameToArtifacts = indexClassNames(dependencyGraph);
+    } catch (IOException ex) {
+      // Without the index, no problem can be annotated. Reading the JAR files again for each
+      // problem would fail the same way.
+      logger.warning("Failed to index the classes in the dependency graph: " + ex);
+      for (LinkageProblem linkageProblem : linkageProblems) {
+        linkageProblem.setCause(UnknownCause.getInstance());
+      }
+      return;
+    }
+
+    for (LinkageProblem linkageProblem : linkageProblems) {
+      try {
+        annotateProblem(dependencyGraph, rootResult, classNameToArtifacts, linkageProblem);
+      } catch (Exception ex) {
+        logger.warning("Failed to annotate: " + linkageProblem);
+        linkageProblem.setCause(UnknownCause.getInstance());
+      }
+    }
+  }
+
+  /**
+   * Returns the map from class names to the artifacts in {@code dependencyGraph} that contain the
+   * classes. The artifacts for a class name are in the level order of the graph.
+   */
+  private static ListMultimap<String, Artifact> indexClassNames(DependencyGraph dependencyGraph)
+      throws IOException {
+    ListMultimap<String, Artifact> classNameToArtifacts = ArrayListMultimap.create();
+    Set<String> indexedArtifacts = new HashSet<>();
+    for (DependencyPath dependencyPath : dependencyGraph.list()) {
+      Artifact artifact = dependencyPath.getLeaf();
+      File file = artifact.getFile();
+      if (file == null || !file.getName().endsWith(".jar")) {
+        continue;
+      }
+      if (!indexedArtifacts.add(artifact.toString())) {
+        continue;
+      }
+      for (String className : new ClassPathEntry(artifact).getFileNames()) {
+        classNameToArtifacts.put(className, artifact);
+      }
+    }
+    return classNameToArtifacts;
+  }
+
+  private static void annotateProblem(
+      DependencyGraph dependencyGraph,
+      ClassPathResult rootResult,
+      ListMultimap<String, Artifact> classNameToArtifacts,
+      LinkageProblem linkageProblem) {
+    ClassPathEntry sourceEntry = linkageProblem.getSourceClass().getClassPathEntry();
+    ImmutableList<DependencyPath> dependencyPathsToSource =
+        rootResult.getDependencyPaths(sourceEntry);
+    if (dependencyPathsToSource.isEmpty()) {
+      linkageProblem.setCause(UnknownCause.getInstance());
+      return;
+    }
+    DependencyPath pathToSourceEntry = dependencyPathsToSource.get(0);
+    Artifact sourceArtifact = sourceEntry.getArtifact();
+    String sourceKey = Artifacts.makeKey(sourceArtifact);
+    String sourceVersion = sourceArtifact.getVersion();
+
+    // Among the artifacts containing the class, the one nearest to the source artifact in the
+    // graph corresponds to the artifact Maven would pick when building the source artifact.
+    String className = linkageProblem.getSymbol().getClassBinaryName();
+    DependencyPath pathThroughSource = null;
+    int shortestDistance = Integer.MAX_VALUE;
+    DependencyPath pathElsewhere = null;
+    for (Artifact artifact : classNameToArtifacts.get(className)) {
+      for (DependencyPath path : dependencyGraph.getPaths(Artifacts.toCoordinates(artifact))) {
+        int distance = path.distanceFromAncestor(sourceKey, sourceVersion);
+        if (distance < 0) {
+          distance = Integer.MAX_VALUE;
+        }
+        if (distance < shortestDistance) {
+          shortestDistance = distance;
+          pathThroughSource = path;
+        } else if (distance == Integer.MAX_VALUE && pathElsewhere == null) {
+          pathElsewhere = path;
+        }
+      }
+    }
+
+    if (pathThroughSource == null) {
+      // The source artifact's dependencies do not contain the class, unless it was excluded.
+      if (pathElsewhere != null) {
+        Artifact artifactElsewhere = pathElsewhere.getLeaf();
+        Artifact excludingArtifact =
+            pathToSourceEntry.findExclusion(
+                artifactElsewhere.getGroupId(), artifactElsewhere.getArtifactId());
+        if (excludingArtifact != null) {
+          linkageProblem.setCause(new ExcludedDependency(pathElsewhere, excludingArtifact));
+          return;
+        }
+      }
+      linkageProblem.setCause(UnknownCause.getInstance());
+      return;
+    }
+
+    Artifact artifactThroughSource = pathThroughSource.getLeaf();
+    ClassPathEntry selectedEntry =
+        rootResult.findEntryById(
+            artifactThroughSource.getGroupId(), artifactThroughSource.getArtifactId());
+    if (selectedEntry != null) {
+      Artifact selectedArtifact = selectedEntry.getArtifact();
+      if (!selectedArtifact.getVersion().equals(artifactThroughSource.getVersion())) {
+        ImmutableList<DependencyPath> pathToSelectedArtifact =
+            rootResult.getDependencyPaths(selectedEntry);
+        if (pathToSelectedArtifact.isEmpty()) {
+          linkageProblem.setCause(UnknownCause.getInstance());
+          return;
+        }
+        linkageProblem.setCause(
+            new DependencyConflict(
+                linkageProblem, pathToSelectedArtifact.get(0), pathThroughSource));
+      } else {
+        linkageProblem.setCause(UnknownCause.getInstance());
+      }
+    } else {
+      Artifact excludingArtifact =
+          pathToSourceEntry.findExclusion(
+              artifactThroughSource.getGroupId(), artifactThroughSource.getArtifactId());
+      if (excludingArtifact != null) {
+        linkageProblem.setCause(new ExcludedDependency(pathThroughSource, excludingArtifact));
+      } else {
+        linkageProblem.setCause(new MissingDependency(pathThroughSource));
+      }
+    }
+  }
+
   private static void annotateProblem(
       ClassPathBuilder classPathBuilder,
       ClassPathResult rootResult,
@@ -134,5 +313,4 @@ public final class LinkageProblemCauseAnnotator {
       }
     }
   }
-
 }
@@ -0,0 +1,130 @@
+/*
+ * Copyright 2020 Google LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.opensource.classpath;
+
+import com.google.common.collect.ImmutableList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * The difference between two collections of linkage problems by their {@link
+ * LinkageProblemFingerprint}s. Unlike {@link LinkageProblem#equals(Object)}, a problem in a new
+ * version of an artifact matches the same problem in the old version.
+ *
+ * <p>The fingerprints of each collection are sorted and the two arrays are merged in one pass,
+ * without hashing the problems or their class path entries.
+ */
+public final class LinkageProblemDiff {
+
+  private final ImmutableList<LinkageProblem> newProblems;
+  private final ImmutableList<LinkageProblem> fixedProblems;
+
+  private LinkageProblemDiff(
+      ImmutableList<LinkageProblem> newProblems, ImmutableList<LinkageProblem> fixedProblems) {
+    this.newProblems = newProblems;
+    this.fixedProblems = fixedProblems;
+  }
+
+  /** Returns the difference from {@code baselineProblems} to {@code problems}. */
+  public static LinkageProblemDiff compare(
+      Collection<LinkageProblem> baselineProblems, Collection<LinkageProblem> problems) {
+    List<LinkageProblem> baselineList = ImmutableList.copyOf(baselineProblems);
+    List<LinkageProblem> list = ImmutableList.copyOf(problems);
+    IndexedFingerprint[] baselineFingerprints = sortedFingerprints(baselineList);
+    IndexedFingerprint[] fingerprints = sortedFingerprints(list);
+
+    boolean[] baselineMatched = new boolean[baselineFingerprints.length];
+    boolean[] matched = new boolean[fingerprints.length];
+    int i = 0;
+    int j = 0;
+    while (i < baselineFingerprints.length && j < fingerprints.length) {
+      LinkageProblemFingerprint fingerprint = baselineFingerprints[i].fingerprint;
+      int comparison = fingerprint.compareTo(fingerprints[j].fingerprint);
+      if (comparison < 0) {
+        i++;
+      } else if (comparison > 0) {
+        j++;
+      } else {
+        // Marks all the problems with the fingerprint on both sides
+        while (i < baselineFingerprints.length
+            && baselineFingerprints[i].fingerprint.equals(fingerprint)) {
+          baselineMatched[baselineFingerprints[i++].index] = true;
+        }
+        while (j < fingerprints.length && fingerprints[j].fingerprint.equals(fingerprint)) {
+          matched[fingerprints[j++].index] = true;
+        }
+      }
+    }
+
+    return new LinkageProblemDiff(
+        unmatched(list, matched), unmatched(baselineList, baselineMatched));
+  }
+
+  private static IndexedFingerprint[] sortedFingerprints(List<LinkageProblem> problems) {
+    IndexedFingerprint[] fingerprints = new IndexedFingerprint[problems.size()];
+    for (int i = 0; i < fingerprints.length; i++) {
+      fingerprints[i] = new IndexedFingerprint(problems.get(i).getFingerprint(), i);
+    }
+    Arrays.sort(fingerprints, Comparator.comparing(indexed -> indexed.fingerprint));
+    return fingerprints;
+  }
+
+  private static ImmutableList<LinkageProblem> unmatched(
+      List<LinkageProblem> problems, boolean[] matched) {
+    ImmutableList.Builder<LinkageProblem> builder = ImmutableList.builder();
+    for (int i = 0; i < matched.length; i++) {
+      if (!matched[i]) {
+        builder.add(problems.get(i));
+      }
+    }
+    return builder.build();
+  }
+
+  /**
+   * Returns the problems whose fingerprints are not in the baseline, in the order of the compared
+   * problems.
+   */
+  public ImmutableList<LinkageProblem> getNewProblems() {
+    return newProblems;
+  }
+
+  /**
+   * Returns the baseline problems whose fingerprints are not in the compared problems, in the
+   * order of the baseline problems.
+   */
+  public ImmutableList<LinkageProblem> getFixedProblems() {
+    return fixedProblems;
+  }
+
+  /** Returns true if both collections have the same fingerprints. */
+  public boolean isEmpty() {
+    return newProblems.isEmpty() && fixedProblems.isEmpty();
+  }
+
+  private static final class IndexedFingerprint {
+    private final LinkageProblemFingerprint fingerprint;
+    // The position of the problem in the compared collection
+    private final int index;
+
+    private IndexedFingerprint(LinkageProblemFingerprint fingerprint, int index) {
+      this.fingerprint = fingerprint;
+      this.index = index;
+    }
+  }
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright 2020 Google LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.opensource.classpath;
+
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import javax.annotation.Nullable;
+
+/**
+ * A 128-bit fingerprint of a {@link LinkageProblem} that does not depend on the versions and the
+ * file paths of the artifacts in the problem.
+ *
+ * <p>The fingerprint is built from the type of the problem, its symbol, the names of the source
+ * and target classes, and the {@code groupId:artifactId:classifier} keys of the artifacts that
+ * contain the classes. The same problem in two versions of an artifact has the same fingerprint.
+ * Fingerprints are ordered by their unsigned 128-bit values.
+ */
+public final class LinkageProblemFingerprint implements Comparable<LinkageProblemFingerprint> {
+
+  private static final HashFunction hashFunction = Hashing.murmur3_128();
+
+  private final long high;
+  private final long low;
+
+  private LinkageProblemFingerprint(long high, long low) {
+    this.high = high;
+    this.low = low;
+  }
+
+  static LinkageProblemFingerprint of(LinkageProblem problem) {
+    Hasher hasher = hashFunction.newHasher();
+    putString(hasher, problem.getClass().getSimpleName());
+
+    Symbol symbol = problem.getSymbol();
+    putString(hasher, symbol.getClass().getSimpleName());
+    putString(hasher, symbol.getClassBinaryName());
+    if (symbol instanceof MethodSymbol) {
+      MethodSymbol methodSymbol = (MethodSymbol) symbol;
+      putString(hasher, methodSymbol.getName());
+      putString(hasher, methodSymbol.getDescriptor());
+      hasher.putBoolean(methodSymbol.isInterfaceMethod());
+    } else if (symbol instanceof FieldSymbol) {
+      FieldSymbol fieldSymbol = (FieldSymbol) symbol;
+      putString(hasher, fieldSymbol.getName());
+      putString(hasher, fieldSymbol.getDescriptor());
+    }
+
+    putClassFile(hasher, problem.getSourceClass());
+    putClassFile(hasher, problem.getTargetClass());
+    if (problem instanceof ReturnTypeChangedProblem) {
+      // Part of the equality of the problem
+      putString(hasher, ((ReturnTypeChangedProblem) problem).getActualType());
+    }
+
+    ByteBuffer bytes = ByteBuffer.wrap(hasher.hash().asBytes());
+    return new LinkageProblemFingerprint(bytes.getLong(), bytes.getLong());
+  }
+
+  private static void putClassFile(Hasher hasher, @Nullable ClassFile classFile) {
+    if (classFile == null) {
+      hasher.putBoolean(false);
+      return;
+    }
+    hasher.putBoolean(true);
+    ClassPathEntry entry = classFile.getClassPathEntry();
+    String versionlessKey = entry.getVersionlessKey();
+    // A JAR file without Maven coordinates is identified by its path
+    putString(hasher, versionlessKey != null ? versionlessKey : entry.getJar().toString());
+    putString(hasher, classFile.getBinaryName());
+  }
+
+  private static void putString(Hasher hasher, String value) {
+    // The length keeps adjacent strings from running into each other
+    hasher.putInt(value.length());
+    hasher.putString(value, StandardCharsets.UTF_8);
+  }
+
+  @Override
+  public int compareTo(LinkageProblemFingerprint other) {
+    int highComparison = Long.compareUnsigned(high, other.high);
+    return highComparison != 0 ? highComparison : Long.compareUnsigned(low, other.low);
+  }
+
+  @Override
+  public boolean equals(Object other) {
+    if (this == other) {
+      return true;
+    }
+    if (!(other instanceof LinkageProblemFingerprint)) {
+      return false;
+    }
+    LinkageProblemFingerprint that = (LinkageProblemFingerprint) other;
+    return high == that.high && low == that.low;
+  }
+
+  @Override
+  public int hashCode() {
+    // The bits are already well distributed
+    return (int) low;
+  }
+
+  /** Returns the fingerprint as 32 hexadecimal digits. */
+  @Override
+  public String toString() {
+    return String.format("%016x%016x", high, low);
+  }
+}
@@ -0,0 +1,437 @@
+/*
+ * Copyright 2020 Google LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.opensource.classpath;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.hash.Hashing;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.logging.Logger;
+import javax.annotation.Nullable;
+
+/**
+ * Linkage problems of BOMs persisted across runs, keyed by the coordinates of a BOM, the version
+ * of Linkage Checker that found the problems, and the Java specification version of the JVM.
+ *
+ * <p>A released BOM is immutable, so the problems in its class path do not change as long as
+ * Linkage Checker and the Java version do not change. The Java version matters because Linkage
+ * Checker finds the system classes, such as {@code javax.xml.bind} in Java 8, in the running
+ * JVM. The stored form does not contain the versions or the file
+ * paths of the JAR files. The classes of a problem refer to class path entries by their groupId,
+ * artifactId, and classifier, and {@link #read(String, List)} locates them in the class path of
+ * the BOM in the current run. The causes of the problems are not stored.
+ *
+ * <p>Problems are written to a temporary file and renamed, so that processes sharing the store
+ * directory don't read partial files.
+ */
+public final class LinkageProblemStore {
+
+  private static final Logger logger = Logger.getLogger(LinkageProblemStore.class.getName());
+
+  // Increment when the file format changes
+  private static final int FORMAT_VERSION = 2;
+
+  // Problem types
+  private static final byte CLASS_NOT_FOUND = 0;
+  private static final byte SYMBOL_NOT_FOUND = 1;
+  private static final byte INACCESSIBLE_CLASS = 2;
+  private static final byte INACCESSIBLE_MEMBER = 3;
+  private static final byte INCOMPATIBLE_CLASS_CHANGE = 4;
+  private static final byte RETURN_TYPE_CHANGED = 5;
+  private static final byte ABSTRACT_METHOD = 6;
+
+  // Symbol types
+  private static final byte CLASS_SYMBOL = 0;
+  private static final byte INTERFACE_SYMBOL = 1;
+  private static final byte METHOD_SYMBOL = 2;
+  private static final byte FIELD_SYMBOL = 3;
+
+  private final Path directory;
+  private final String checkerVersion;
+  private final String javaVersion;
+
+  /**
+   * Creates a store in {@code directory} for the problems found by {@code checkerVersion} of
+   * Linkage Checker in the running JVM.
+   */
+  public LinkageProblemStore(Path directory, String checkerVersion) {
+    this(directory, checkerVersion, System.getProperty("java.specification.version"));
+  }
+
+  @VisibleForTesting
+  LinkageProblemStore(Path directory, String checkerVersion, String javaVersion) {
+    this.directory = checkNotNull(directory);
+    this.checkerVersion = checkNotNull(checkerVersion);
+    this.javaVersion = checkNotNull(javaVersion);
+  }
+
+  /**
+   * Returns the version of Linkage Checker in the {@code pom.properties} of its JAR file, or null
+   * if the classes are not loaded from a JAR file built by Maven.
+   */
+  @Nullable
+  public static String findCheckerVersion() {
+    try (InputStream input =
+        LinkageProblemStore.class.getResourceAsStream(
+            "/META-INF/maven/com.google.cloud.tools/dependencies/pom.properties")) {
+      if (input == null) {
+        return null;
+      }
+      Properties properties = new Properties();
+      properties.load(input);
+      return properties.getProperty("version");
+    } catch (IOException ex) {
+      return null;
+    }
+  }
+
+  /**
+   * Returns the problems stored for {@code bomCoordinates} with their classes in {@code
+   * classPath}, or null if the store does not have them or they cannot be located in {@code
+   * classPath}.
+   */
+  @Nullable
+  public ImmutableSet<LinkageProblem> read(String bomCoordinates, List<ClassPathEntry> classPath) {
+    Map<String, ClassPathEntry> keyToEntry = new HashMap<>();
+    for (ClassPathEntry entry : classPath) {
+      String key = entry.getVersionlessKey();
+      if (key == null || keyToEntry.put(key, entry) != null) {
+        // The key does not identify the entry
+        return null;
+      }
+    }
+
+    Path file = storeFile(bomCoordinates);
+    try (DataInputStream input =
+        new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+      if (input.readInt() != FORMAT_VERSION
+          || !bomCoordinates.equals(input.readUTF())
+          || !checkerVersion.equals(input.readUTF())
+          || !javaVersion.equals(input.readUTF())) {
+        return null;
+      }
+      String[] strings = new String[input.readInt()];
+      for (int i = 0; i < strings.length; i++) {
+        strings[i] = input.readUTF();
+      }
+      ClassPathEntry[] entries = new ClassPathEntry[input.readInt()];
+      for (int i = 0; i < entries.length; i++) {
+        entries[i] = keyToEntry.get(strings[input.readInt()]);
+        if (entries[i] == null) {
+          logger.fine("The class path of " + bomCoordinates + " no longer matches " + file);
+          return null;
+        }
+      }
+
+      int size = input.readInt();
+      ImmutableSet.Builder<LinkageProblem> problems = ImmutableSet.builder();
+      for (int i = 0; i < size; i++) {
+        problems.add(readProblem(input, strings, entries));
+      }
+      return problems.build();
+    } catch (NoSuchFileException ex) {
+      return null;
+    } catch (IOException | RuntimeException ex) {
+      logger.fine("Ignoring unreadable linkage problems " + file + ": " + ex);
+      return null;
+    }
+  }
+
+  /**
+   * Stores {@code problems} for {@code bomCoordinates}. Failures are logged and ignored, as are
+   * problems in class path entries without Maven coordinates.
+   */
+  public void write(String bomCoordinates, Set<LinkageProblem> problems) {
+    Path file = storeFile(bomCoordinates);
+    Map<String, Integer> strings = new LinkedHashMap<>();
+    Map<ClassPathEntry, Integer> entries = new LinkedHashMap<>();
+    List<EncodedProblem> encodedProblems = new ArrayList<>();
+    for (LinkageProblem problem : problems) {
+      EncodedProblem encodedProblem = encode(problem, strings, entries);
+      if (encodedProblem == null) {
+        logger.fine("Not storing the linkage problems of " + bomCoordinates + ": " + problem);
+        return;
+      }
+      encodedProblems.add(encodedProblem);
+    }
+    List<Integer> entryKeys = new ArrayList<>();
+    for (ClassPathEntry entry : entries.keySet()) {
+      entryKeys.add(index(strings, entry.getVersionlessKey()));
+    }
+
+    try {
+      Files.createDirectories(file.getParent());
+      Path temporaryFile = Files.createTempFile(file.getParent(), "problems", ".tmp");
+      try (DataOutputStream output =
+          new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporaryFile)))) {
+        output.writeInt(FORMAT_VERSION);
+        output.writeUTF(bomCoordinates);
+        output.writeUTF(checkerVersion);
+        output.writeUTF(javaVersion);
+        output.writeInt(strings.size());
+        for (String string : strings.keySet()) {
+          output.writeUTF(string);
+        }
+        output.writeInt(entryKeys.size());
+        for (int entryKey : entryKeys) {
+          output.writeInt(entryKey);
+        }
+        output.writeInt(encodedProblems.size());
+        for (EncodedProblem encodedProblem : encodedProblems) {
+          encodedProblem.write(output);
+        }
+      }
+      Files.move(
+          temporaryFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } catch (IOException ex) {
+      // The store is an optimization. Failing to write it should not fail the check.
+      logger.fine("Failed to write linkage problems " + file + ": " + ex);
+    }
+  }
+
+  @VisibleForTesting
+  Path storeFile(String bomCoordinates) {
+    // Coordinates and versions have characters not allowed in file names
+    String hash =
+        Hashing.sha256()
+            .hashString(
+                bomCoordinates + " " + checkerVersion + " " + javaVersion, StandardCharsets.UTF_8)
+            .toString();
+    return directory.resolve(hash.substring(0, 16) + ".problems");
+  }
+
+  private static int index(Map<String, Integer> strings, String string) {
+    return strings.computeIfAbsent(string, unused -> strings.size());
+  }
+
+  /** Returns the encoded form of {@code problem} or null if it cannot be stored. */
+  @Nullable
+  private static EncodedProblem encode(
+      LinkageProblem problem, Map<String, Integer> strings, Map<ClassPathEntry, Integer> entries) {
+    byte type;
+    int extra = -1;
+    if (problem instanceof ClassNotFoundProblem) {
+      type = CLASS_NOT_FOUND;
+    } else if (problem instanceof SymbolNotFoundProblem) {
+      type = SYMBOL_NOT_FOUND;
+    } else if (problem instanceof InaccessibleClassProblem) {
+      type = INACCESSIBLE_CLASS;
+      extra = ((InaccessibleClassProblem) problem).getModifier().ordinal();
+    } else if (problem instanceof InaccessibleMemberProblem) {
+      type = INACCESSIBLE_MEMBER;
+      extra = ((InaccessibleMemberProblem) problem).getModifier().ordinal();
+    } else if (problem instanceof IncompatibleClassChangeProblem) {
+      type = INCOMPATIBLE_CLASS_CHANGE;
+    } else if (problem instanceof ReturnTypeChangedProblem) {
+      type = RETURN_TYPE_CHANGED;
+      extra = index(strings, ((ReturnTypeChangedProblem) problem).getActualType());
+    } else if (problem instanceof AbstractMethodProblem) {
+      type = ABSTRACT_METHOD;
+    } else {
+      return null;
+    }
+
+    ClassFile sourceClass = problem.getSourceClass();
+    ClassFile targetClass = problem.getTargetClass();
+    if (sourceClass.getClassPathEntry().getVersionlessKey() == null
+        || (targetClass != null && targetClass.getClassPathEntry().getVersionlessKey() == null)) {
+      return null;
+    }
+
+    Symbol symbol = problem.getSymbol();
+    byte symbolType;
+    int name = -1;
+    int descriptor = -1;
+    boolean isInterfaceMethod = false;
+    if (symbol instanceof InterfaceSymbol) {
+      symbolType = INTERFACE_SYMBOL;
+    } else if (symbol instanceof ClassSymbol) {
+      symbolType = CLASS_SYMBOL;
+    } else if (symbol instanceof MethodSymbol) {
+      symbolType = METHOD_SYMBOL;
+      MethodSymbol methodSymbol = (MethodSymbol) symbol;
+      name = index(strings, methodSymbol.getName());
+      descriptor = index(strings, methodSymbol.getDescriptor());
+      isInterfaceMethod = methodSymbol.isInterfaceMethod();
+    } else if (symbol instanceof FieldSymbol) {
+      symbolType = FIELD_SYMBOL;
+      FieldSymbol fieldSymbol = (FieldSymbol) symbol;
+      name = index(strings, fieldSymbol.getName());
+      descriptor = index(strings, fieldSymbol.getDescriptor());
+    } else {
+      return null;
+    }
+
+    return new EncodedProblem(
+        type,
+        entries.computeIfAbsent(sourceClass.getClassPathEntry(), unused -> entries.size()),
+        index(strings, sourceClass.getBinaryName()),
+        targetClass == null
+            ? -1
+            : entries.computeIfAbsent(targetClass.getClassPathEntry(), unused -> entries.size()),
+        targetClass == null ? -1 : index(strings, targetClass.getBinaryName()),
+        symbolType,
+        index(strings, symbol.getClassBinaryName()),
+        name,
+        descriptor,
+        isInterfaceMethod,
+        extra);
+  }
+
+  private static LinkageProblem readProblem(
+      DataInputStream input, String[] strings, ClassPathEntry[] entries) throws IOException {
+    byte type = input.readByte();
+    ClassFile sourceClass = new ClassFile(entries[input.readInt()], strings[input.readInt()]);
+    int targetEntry = input.readInt();
+    int targetClassName = input.readInt();
+    ClassFile targetClass =
+        targetEntry < 0 ? null : new ClassFile(entries[targetEntry], strings[targetClassName]);
+
+    byte symbolType = input.readByte();
+    String className = strings[input.readInt()];
+    Symbol symbol;
+    switch (symbolType) {
+      case CLASS_SYMBOL:
+        symbol = new ClassSymbol(className);
+        break;
+      case INTERFACE_SYMBOL:
+        symbol = new InterfaceSymbol(className);
+        break;
+      case METHOD_SYMBOL:
+        symbol =
+            new MethodSymbol(
+                className,
+                strings[input.readInt()],
+                strings[input.readInt()],
+                input.readBoolean());
+        break;
+      case FIELD_SYMBOL:
+        symbol = new FieldSymbol(className, strings[input.readInt()], strings[input.readInt()]);
+        break;
+      default:
+        throw new IOException("Unknown symbol type " + symbolType);
+    }
+
+    switch (type) {
+      case CLASS_NOT_FOUND:
+        return new ClassNotFoundProblem(sourceClass, (ClassSymbol) symbol);
+      case SYMBOL_NOT_FOUND:
+        return new SymbolNotFoundProblem(sourceClass, targetClass, symbol);
+      case INACCESSIBLE_CLASS:
+        return new InaccessibleClassProblem(
+            sourceClass, targetClass, (ClassSymbol) symbol, readModifier(input));
+      case INACCESSIBLE_MEMBER:
+        return new InaccessibleMemberProblem(
+            sourceClass, targetClass, symbol, readModifier(input));
+      case INCOMPATIBLE_CLASS_CHANGE:
+        return new IncompatibleClassChangeProblem(sourceClass, targetClass, symbol);
+      case RETURN_TYPE_CHANGED:
+        return new ReturnTypeChangedProblem(
+            sourceClass, targetClass, (MethodSymbol) symbol, strings[input.readInt()]);
+      case ABSTRACT_METHOD:
+        return new AbstractMethodProblem(sourceClass, (MethodSymbol) symbol, targetClass);
+      default:
+        throw new IOException("Unknown problem type " + type);
+    }
+  }
+
+  private static AccessModifier readModifier(DataInputStream input) throws IOException {
+    return AccessModifier.values()[input.readByte()];
+  }
+
+  /** A linkage problem with its strings and class path entries replaced by indices. */
+  private static final class EncodedProblem {
+    private final byte type;
+    private final int sourceEntry;
+    private final int sourceClassName;
+    private final int targetEntry;
+    private final int targetClassName;
+    private final byte symbolType;
+    private final int symbolClassName;
+    private final int symbolName;
+    private final int symbolDescriptor;
+    private final boolean isInterfaceMethod;
+    // The access modifier or the actual return type, depending on the problem type
+    private final int extra;
+
+    private EncodedProblem(
+        byte type,
+        int sourceEntry,
+        int sourceClassName,
+        int targetEntry,
+        int targetClassName,
+        byte symbolType,
+        int symbolClassName,
+        int symbolName,
+        int symbolDescriptor,
+        boolean isInterfaceMethod,
+        int extra) {
+      this.type = type;
+      this.sourceEntry = sourceEntry;
+      this.sourceClassName = sourceClassName;
+      this.targetEntry = targetEntry;
+      this.targetClassName = targetClassName;
+      this.symbolType = symbolType;
+      this.symbolClassName = symbolClassName;
+      this.symbolName = symbolName;
+      this.symbolDescriptor = symbolDescriptor;
+      this.isInterfaceMethod = isInterfaceMethod;
+      this.extra = extra;
+    }
+
+    private void write(DataOutputStream output) throws IOException {
+      output.writeByte(type);
+      output.writeInt(sourceEntry);
+      output.writeInt(sourceClassName);
+      output.writeInt(targetEntry);
+      output.writeInt(targetClassName);
+      output.writeByte(symbolType);
+      output.writeInt(symbolClassName);
+      if (symbolType == METHOD_SYMBOL || symbolType == FIELD_SYMBOL) {
+        output.writeInt(symbolName);
+        output.writeInt(symbolDescriptor);
+      }
+      if (symbolType == METHOD_SYMBOL) {
+        output.writeBoolean(isInterfaceMethod);
+      }
+      if (type == INACCESSIBLE_CLASS || type == INACCESSIBLE_MEMBER) {
+        output.writeByte(extra);
+      } else if (type == RETURN_TYPE_CHANGED) {
+        output.writeInt(extra);
+      }
+    }
+  }
+}
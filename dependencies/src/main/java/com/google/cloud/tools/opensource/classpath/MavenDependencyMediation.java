@@ -16,50 +16,34 @@
 
 package com.google.cloud.tools.opensource.classpath;
 
-import com.google.cloud.tools.opensource.dependencies.Artifacts;
-import com.google.cloud.tools.opensource.dependencies.DependencyGraph;
-import com.google.cloud.tools.opensource.dependencies.DependencyPath;
 import java.io.File;
-import java.util.HashSet;
-import java.util.List;
-import java.util.Set;
 import org.eclipse.aether.artifact.Artifact;
 
 /** Retain only the first version of a groupId:artifactId encountered. */
-class MavenDependencyMediation implements DependencyMediation {
+class MavenDependencyMediation extends IndexedDependencyMediation {
 
   // Not public. Use DependencyMediation.MAVEN instead.
-  MavenDependencyMediation() {}
-
-  @Override
-  public AnnotatedClassPath mediate(DependencyGraph dependencyGraph) {
-    Set<Artifact> artifacts = new HashSet<>();
-
+  MavenDependencyMediation() {
     // Versionless coordinates plus classifier, if any
-    Set<String> alreadyFound = new HashSet<>();
+    super(true);
+  }
 
-    AnnotatedClassPath annotatedClassPath = new AnnotatedClassPath();
-    List<DependencyPath> dependencyPaths = dependencyGraph.list();
-    for (DependencyPath dependencyPath : dependencyPaths) {
-      // DependencyPaths have items in level-order; nearest items come first.
-      Artifact artifact = dependencyPath.getLeaf();
+  @Override
+  boolean isCandidate(Artifact artifact) {
+    File file = artifact.getFile();
+    return file != null && file.getName().endsWith(".jar");
+  }
 
-      File file = artifact.getFile();
-      if (file != null && file.getName().endsWith(".jar")) {
-        String versionlessCoordinates =
-            Artifacts.makeKey(artifact) + ":" + artifact.getClassifier();
-        if (alreadyFound.add(versionlessCoordinates)) {
-          // Adds to artifacts when versionlessCoordinates are new.
-          artifacts.add(artifact);
-        }
-        if (artifacts.contains(artifact)) {
-          // We include multiple dependency paths to the first version of an artifact we see,
-          // but not paths to other versions of that artifact.
-          annotatedClassPath.put(new ClassPathEntry(artifact), dependencyPath);
-        }
-      }
-    }
+  @Override
+  boolean replaces(String candidateVersion, String selectedVersion) {
+    // DependencyPaths have items in level-order; nearest items come first.
+    return false;
+  }
 
-    return annotatedClassPath;
+  @Override
+  boolean isSelected(ArtifactKey key, Artifact artifact, Artifact selected) {
+    // We include multiple dependency paths to the first version of an artifact we see,
+    // but not paths to other versions of that artifact.
+    return artifact.equals(selected);
   }
-}
\ No newline at end of file
+}
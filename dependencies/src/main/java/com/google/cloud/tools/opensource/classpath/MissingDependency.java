@@ -43,8 +43,7 @@ class MissingDependency extends LinkageProblemCause {
   @Override
   public String toString() {
     String missingReason = "";
-    for (int i = 0; i < pathToMissingArtifact.size() - 1; i++) {
-      Dependency dependency = pathToMissingArtifact.getDependency(i);
+    for (Dependency dependency : pathToMissingArtifact.getDependencies()) {
       if (dependency.isOptional()) {
         missingReason = " because the path contains an optional dependency";
         break;
@@ -44,6 +44,10 @@ class ReturnTypeChangedProblem extends LinkageProblem {
     this.actualType = actualType;
   }
 
+  String getActualType() {
+    return actualType;
+  }
+
   @Override
   public int hashCode() {
     return Objects.hash(super.hashCode(), actualType);
@@ -0,0 +1,122 @@
+/*
+ * Copyright 2020 Google LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.opensource.classpath;
+
+import com.google.common.base.Throwables;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.function.ToIntFunction;
+
+/**
+ * Data read from JAR files, shared by the Linkage Checkers in the JVM, such as the ones of the
+ * enforcer rule executions for the modules of a Maven reactor.
+ *
+ * <p>Values are keyed by the path, the size, the modification time, and the file key of a JAR
+ * file, so that a rebuilt JAR file, such as a module's own artifact, is read again. Threads reading
+ * the same JAR file wait for one read. The cache evicts values once their total weight exceeds the
+ * maximum.
+ *
+ * @param <V> type of the data read from a JAR file
+ */
+final class SharedJarCache<V> {
+
+  /** Reads data from a JAR file. */
+  interface JarReader<V> {
+    V read() throws IOException;
+  }
+
+  private final Cache<Key, V> cache;
+
+  /**
+   * Creates a cache that holds values up to {@code maximumWeight} in total, with the weight of each
+   * value given by {@code weigher}.
+   */
+  SharedJarCache(long maximumWeight, ToIntFunction<V> weigher) {
+    cache =
+        CacheBuilder.newBuilder()
+            .maximumWeight(maximumWeight)
+            .<Key, V>weigher((key, value) -> weigher.applyAsInt(value))
+            .build();
+  }
+
+  /**
+   * Returns the value for {@code jar}, reading it through {@code reader} if it is not cached.
+   * Directories of class files are read every time, because their attributes do not change when
+   * the files in them are compiled again.
+   */
+  V get(Path jar, JarReader<V> reader) throws IOException {
+    BasicFileAttributes attributes = Files.readAttributes(jar, BasicFileAttributes.class);
+    if (attributes.isDirectory()) {
+      return reader.read();
+    }
+    Key key =
+        new Key(
+            jar.toAbsolutePath().normalize(),
+            attributes.size(),
+            attributes.lastModifiedTime().toMillis(),
+            attributes.fileKey());
+    try {
+      return cache.get(key, reader::read);
+    } catch (ExecutionException | UncheckedExecutionException ex) {
+      Throwables.throwIfInstanceOf(ex.getCause(), IOException.class);
+      Throwables.throwIfUnchecked(ex.getCause());
+      throw new IOException("Failed to read " + jar, ex.getCause());
+    }
+  }
+
+  private static final class Key {
+    private final Path jar;
+    private final long size;
+    private final long lastModifiedMillis;
+    // The inode on Unix. This is null on file systems that do not have it.
+    private final Object fileKey;
+
+    private Key(Path jar, long size, long lastModifiedMillis, Object fileKey) {
+      this.jar = jar;
+      this.size = size;
+      this.lastModifiedMillis = lastModifiedMillis;
+      this.fileKey = fileKey;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+      if (this == other) {
+        return true;
+      }
+      if (!(other instanceof Key)) {
+        return false;
+      }
+      Key that = (Key) other;
+      return size == that.size
+          && lastModifiedMillis == that.lastModifiedMillis
+          && jar.equals(that.jar)
+          && Objects.equals(fileKey, that.fileKey);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(jar, size, lastModifiedMillis, fileKey);
+    }
+  }
+}
@@ -51,6 +51,11 @@ class SymbolReferences {
     return classToClassSymbols.get(classFile);
   }
 
+  /** Returns the number of the references from the class files to the symbols. */
+  int size() {
+    return classToClassSymbols.size() + classToMethodSymbols.size() + classToFieldSymbols.size();
+  }
+
   private SymbolReferences(
       ImmutableSet<ClassFile> classFiles,
       ImmutableSetMultimap<ClassFile, ClassSymbol> classToClassSymbols,
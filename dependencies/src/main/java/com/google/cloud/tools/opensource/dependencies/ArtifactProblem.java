@@ -54,6 +54,14 @@ public abstract class ArtifactProblem {
     return Joiner.on(" > ").join(dependencyPath);
   }
 
+  /**
+   * Returns the dependency nodes from the root of the dependency tree to the artifact. An empty
+   * list if the path is unknown.
+   */
+  public ImmutableList<DependencyNode> getDependencyPath() {
+    return dependencyPath;
+  }
+
   /** Returns the Maven artifact that has the problem. */
   public Artifact getArtifact() {
     return artifact;
@@ -18,9 +18,12 @@ package com.google.cloud.tools.opensource.dependencies;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ImmutableList;
+import java.util.ArrayDeque;
 import java.util.Collections;
+import java.util.Deque;
 import java.util.HashSet;
 import java.util.IdentityHashMap;
+import java.util.List;
 import java.util.Set;
 import org.eclipse.aether.RepositoryException;
 import org.eclipse.aether.artifact.Artifact;
@@ -44,25 +47,40 @@ final class CycleBreakerGraphTransformer implements DependencyGraphTransformer {
       DependencyNode dependencyNode, DependencyGraphTransformationContext context)
       throws RepositoryException {
 
-    removeCycle(null, dependencyNode, new HashSet<>());
+    removeCycles(dependencyNode);
     return dependencyNode;
   }
 
-  private void removeCycle(DependencyNode parent, DependencyNode node, Set<Artifact> ancestors) {
-    Artifact artifact = node.getArtifact();
-
-    if (ancestors.contains(artifact)) { // Set (rather than List) gives O(1) lookup here
-      // parent is not null when ancestors is not empty
-      removeChildFromParent(node, parent);
+  /**
+   * Removes the children whose artifacts are already in the path from {@code root} in a depth-first
+   * traversal. The traversal keeps an explicit stack, because the depth of recursion would follow
+   * the depth of the dependency graph.
+   */
+  private void removeCycles(DependencyNode root) {
+    if (!shouldVisitChildren(root)) {
       return;
     }
+    Set<Artifact> ancestors = new HashSet<>(); // Set (rather than List) gives O(1) lookup here
+    ancestors.add(root.getArtifact());
+    Deque<Frame> stack = new ArrayDeque<>();
+    stack.push(new Frame(root));
 
-    if (shouldVisitChildren(node)) {
-      ancestors.add(artifact);
-      for (DependencyNode child : node.getChildren()) {
-        removeCycle(node, child, ancestors);
+    while (!stack.isEmpty()) {
+      Frame frame = stack.peek();
+      if (frame.hasNextChild()) {
+        DependencyNode child = frame.nextChild();
+        Artifact artifact = child.getArtifact();
+        if (ancestors.contains(artifact)) {
+          frame.removeChild(child);
+        } else if (shouldVisitChildren(child)) {
+          ancestors.add(artifact);
+          stack.push(new Frame(child));
+        }
+      } else {
+        stack.pop();
+        frame.rewriteChildren();
+        ancestors.remove(frame.node.getArtifact());
       }
-      ancestors.remove(artifact);
     }
   }
 
@@ -72,11 +90,47 @@ final class CycleBreakerGraphTransformer implements DependencyGraphTransformer {
     return visitedNodes.add(node);
   }
 
-  private static void removeChildFromParent(DependencyNode child, DependencyNode parent) {
-    ImmutableList<DependencyNode> children =
-        parent.getChildren().stream()
-            .filter(node -> node != child)
-            .collect(ImmutableList.toImmutableList());
-    parent.setChildren(children);
+  /** A node in the traversal stack with the position of the next child to visit. */
+  private static final class Frame {
+    private final DependencyNode node;
+    private final List<DependencyNode> children;
+    private int nextChildIndex;
+
+    // Children that form cycles. The children list of the node is rewritten once, after all of
+    // the children are visited.
+    private Set<DependencyNode> childrenToRemove;
+
+    private Frame(DependencyNode node) {
+      this.node = node;
+      this.children = node.getChildren();
+    }
+
+    private boolean hasNextChild() {
+      return nextChildIndex < children.size();
+    }
+
+    private DependencyNode nextChild() {
+      return children.get(nextChildIndex++);
+    }
+
+    private void removeChild(DependencyNode child) {
+      if (childrenToRemove == null) {
+        childrenToRemove = Collections.newSetFromMap(new IdentityHashMap<>());
+      }
+      childrenToRemove.add(child);
+    }
+
+    private void rewriteChildren() {
+      if (childrenToRemove == null) {
+        return;
+      }
+      ImmutableList.Builder<DependencyNode> remainingChildren = ImmutableList.builder();
+      for (DependencyNode child : children) {
+        if (!childrenToRemove.contains(child)) {
+          remainingChildren.add(child);
+        }
+      }
+      node.setChildren(remainingChildren.build());
+    }
   }
 }
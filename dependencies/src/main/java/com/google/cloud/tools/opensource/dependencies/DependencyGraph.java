@@ -19,9 +19,6 @@ package com.google.cloud.tools.opensource.dependencies;
 import com.google.common.collect.LinkedListMultimap;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
-import java.util.Collection;
-import java.util.Collections;
-import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashSet;
@@ -31,12 +28,10 @@ import java.util.Queue;
 import java.util.Set;
 
 import org.eclipse.aether.artifact.Artifact;
-import org.eclipse.aether.graph.DependencyFilter;
 import org.eclipse.aether.graph.DependencyNode;
 import com.google.common.collect.HashMultimap;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.SetMultimap;
-import com.google.common.collect.TreeMultimap;
 
 /**
  * A complete non-cyclic transitive dependency graph of a Maven dependency.
@@ -59,10 +54,7 @@ public class DependencyGraph {
   private final Set<UnresolvableArtifactProblem> artifactProblems = new HashSet<>();
 
   // map of groupId:artifactId to versions
-  // TODO if versions' values were the whole coordinate string 
-  // (or even the Artifact itself), would this be simpler?
-  private final TreeMultimap<String, String> versions =
-      TreeMultimap.create(Comparator.naturalOrder(), new VersionComparator());
+  private final VersionIndex versions = new VersionIndex();
   
   // map of groupId:artifactId:version to paths
   private SetMultimap<String, DependencyPath> paths = HashMultimap.create();
@@ -84,7 +76,7 @@ public class DependencyGraph {
     }
     graph.add(path);
     String coordinates = Artifacts.toCoordinates(leaf);
-    versions.put(Artifacts.makeKey(leaf), leaf.getVersion());
+    versions.add(Artifacts.makeKey(leaf), leaf.getVersion());
     paths.put(coordinates, path);
   }
   
@@ -95,7 +87,7 @@ public class DependencyGraph {
   List<DependencyPath> findConflicts() {
     List<DependencyPath> result = new ArrayList<>();
     for (String coordinates : versions.keySet()) {
-      Set<String> artifactVersions = versions.get(coordinates);
+      List<String> artifactVersions = versions.getVersions(coordinates);
       if (artifactVersions.size() > 1) { // multiple versions
         for (String conflictingVersion : artifactVersions) {
           result.addAll(paths.get(coordinates + ":" + conflictingVersion));
@@ -145,14 +137,14 @@ public class DependencyGraph {
     for (DependencyPath path : paths) {
       Artifact leaf = path.getLeaf();
       String key = Artifacts.makeKey(leaf);
-      String highestVersion = versions.get(key).last();
+      String highestVersion = versions.getHighestVersion(key);
       if (!leaf.getVersion().equals(highestVersion)) {
         Artifact parent = path.get(path.size() - 2);
         // when the parent is out of date, update the parent instead
         // TODO drop if any ancestor needs an update, instead of just the parent
         // or perhaps we just order the updates from root down, and then rerun after
         // each fix. Maybe even calculate what will be needed postfix
-        String lastParentVersion = versions.get(Artifacts.makeKey(parent)).last();
+        String lastParentVersion = versions.getHighestVersion(Artifacts.makeKey(parent));
         if (parent.getVersion().equals(lastParentVersion)) {
           
           // setVersion returns a new instance on change
@@ -177,17 +169,7 @@ public class DependencyGraph {
    * @return a map of groupId:artifactId to the highest version found in the tree
    */
   public Map<String, String> getHighestVersionMap() {
-    Map<String, Collection<String>> input = versions.asMap();
-    Map<String, String> output = new HashMap<>();
-    
-    VersionComparator comparator = new VersionComparator();
-
-    for (Map.Entry<String, Collection<String>> entry : input.entrySet()) {
-      String highestVersion = Collections.max(entry.getValue(), comparator);
-      output.put(entry.getKey(), highestVersion);
-    }
-    
-    return output;
+    return new HashMap<>(versions.getHighestVersions());
   }
 
   /**
@@ -202,34 +184,47 @@ public class DependencyGraph {
    * dependency graph.
    */
   public UnresolvableArtifactProblem createUnresolvableArtifactProblem(Artifact artifact) {
-    ImmutableList<List<DependencyNode>> paths = findArtifactPaths(root, artifact);
-    if (paths.isEmpty()) {
-      // On certain conditions, Maven throws ArtifactDescriptorException even when the
-      // (transformed) dependency graph does not contain the problematic artifact any more.
-      // https://issues.apache.org/jira/browse/MNG-6732
-      return new UnresolvableArtifactProblem(artifact);
-    } else {
-      return new UnresolvableArtifactProblem(paths.get(0));
-    }
+    return createUnresolvableArtifactProblems(ImmutableList.of(artifact)).get(0);
   }
 
-  private static ImmutableList<List<DependencyNode>> findArtifactPaths(
-      DependencyNode root, Artifact artifact) {
-    String coordinates = Artifacts.toCoordinates(artifact);
-    DependencyFilter filter =
-        (node, parents) ->
-            node.getArtifact() != null // artifact is null at a root dummy node.
-                && Artifacts.toCoordinates(node.getArtifact()).equals(coordinates);
-    UniquePathRecordingDependencyVisitor visitor = new UniquePathRecordingDependencyVisitor(filter);
+  /**
+   * Creates problems describing that {@code artifacts} are unresolvable in this dependency graph,
+   * in the order of {@code artifacts}. Unlike calling {@link
+   * #createUnresolvableArtifactProblem(Artifact)} for each artifact, this traverses the graph once.
+   */
+  public ImmutableList<UnresolvableArtifactProblem> createUnresolvableArtifactProblems(
+      Iterable<Artifact> artifacts) {
+    FirstPathRecordingDependencyVisitor visitor =
+        new FirstPathRecordingDependencyVisitor(artifacts);
     root.accept(visitor);
-    return ImmutableList.copyOf(visitor.getPaths());
+
+    ImmutableList.Builder<UnresolvableArtifactProblem> problems = ImmutableList.builder();
+    for (Artifact artifact : artifacts) {
+      ImmutableList<DependencyNode> path = visitor.getPath(artifact);
+      if (path.isEmpty()) {
+        // On certain conditions, Maven throws ArtifactDescriptorException even when the
+        // (transformed) dependency graph does not contain the problematic artifact any more.
+        // https://issues.apache.org/jira/browse/MNG-6732
+        problems.add(new UnresolvableArtifactProblem(artifact));
+      } else {
+        problems.add(new UnresolvableArtifactProblem(path));
+      }
+    }
+    return problems.build();
   }
 
   private final Set<Artifact> checkedArtifacts = new HashSet<>();
   
-  void addUnresolvableArtifactProblem(Artifact artifact) {
-    if (checkedArtifacts.add(artifact)) {
-      artifactProblems.add(createUnresolvableArtifactProblem(artifact));
+  /** Adds problems for {@code artifacts} that are not added yet, traversing the graph once. */
+  void addUnresolvableArtifactProblems(Iterable<Artifact> artifacts) {
+    List<Artifact> newArtifacts = new ArrayList<>();
+    for (Artifact artifact : artifacts) {
+      if (checkedArtifacts.add(artifact)) {
+        newArtifacts.add(artifact);
+      }
+    }
+    if (!newArtifacts.isEmpty()) {
+      artifactProblems.addAll(createUnresolvableArtifactProblems(newArtifacts));
     }
   }
 
@@ -271,10 +266,7 @@ public class DependencyGraph {
         // descendant to be selected. 
         
         String groupIdAndArtifactId = Artifacts.makeKey(artifact);
-        boolean ancestorHasSameKey =
-            parentPath.getArtifactKeys().stream()
-                .anyMatch(key -> key.equals(groupIdAndArtifactId));
-        if (ancestorHasSameKey) {
+        if (parentPath.containsArtifactKey(groupIdAndArtifactId)) {
           continue;
         }
       }
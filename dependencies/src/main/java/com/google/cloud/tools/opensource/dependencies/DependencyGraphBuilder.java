@@ -18,25 +18,39 @@ package com.google.cloud.tools.opensource.dependencies;
 
 import static com.google.cloud.tools.opensource.dependencies.RepositoryUtility.CENTRAL;
 import static com.google.cloud.tools.opensource.dependencies.RepositoryUtility.mavenRepositoryFromUrl;
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.collect.ImmutableList.toImmutableList;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.util.concurrent.Futures;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import javax.annotation.Nullable;
+import org.eclipse.aether.DefaultRepositoryCache;
 import org.eclipse.aether.DefaultRepositorySystemSession;
+import org.eclipse.aether.RepositoryListener;
 import org.eclipse.aether.RepositorySystem;
+import org.eclipse.aether.RepositorySystemSession;
 import org.eclipse.aether.artifact.Artifact;
 import org.eclipse.aether.collection.CollectRequest;
 import org.eclipse.aether.graph.DefaultDependencyNode;
 import org.eclipse.aether.graph.Dependency;
 import org.eclipse.aether.graph.DependencyNode;
-import org.eclipse.aether.repository.LocalRepository;
 import org.eclipse.aether.repository.RemoteRepository;
+import org.eclipse.aether.repository.RepositoryPolicy;
 import org.eclipse.aether.resolution.ArtifactResult;
 import org.eclipse.aether.resolution.DependencyRequest;
 import org.eclipse.aether.resolution.DependencyResolutionException;
 import org.eclipse.aether.resolution.DependencyResult;
+import org.eclipse.aether.util.listener.ChainedRepositoryListener;
 
 /**
  * Builds dependency graphs for Maven artifacts by querying repositories for
@@ -46,9 +60,31 @@ public final class DependencyGraphBuilder {
 
   private static final RepositorySystem system = RepositoryUtility.newRepositorySystem();
 
+  /** Configuration property of the number of threads of Maven Resolver's basic connector. */
+  public static final String BASIC_CONNECTOR_THREADS = "aether.connector.basic.threads";
+
+  /** The number of threads of Maven Resolver's basic connector by default. */
+  public static final int DEFAULT_DOWNLOAD_THREADS = 5;
+
+  // Configuration property of Maven Resolver's HTTP transporter
+  private static final String HTTP_CACHE_STATE = "aether.connector.http.cacheState";
+
+  private static final ImmutableSet<String> CHECKSUM_POLICIES =
+      ImmutableSet.of(
+          RepositoryPolicy.CHECKSUM_POLICY_FAIL,
+          RepositoryPolicy.CHECKSUM_POLICY_WARN,
+          RepositoryPolicy.CHECKSUM_POLICY_IGNORE);
+
   /** Maven repositories to use when resolving dependencies. */
   private final ImmutableList<RemoteRepository> repositories;
+
+  // Mapping from the URLs of repositories to their checksum policies, if set
+  private final Map<String, String> checksumPolicies = new HashMap<>();
   private Path localRepository;
+  private int collectionThreads = 1;
+  private int downloadThreads = DEFAULT_DOWNLOAD_THREADS;
+  private boolean reuseConnections = true;
+  private RepositoryListener repositoryListener;
 
   static {
     OsProperties.detectOsProperties().forEach(System::setProperty);
@@ -79,27 +115,117 @@ public final class DependencyGraphBuilder {
     this.localRepository = localRepository;
   }
 
-  private DependencyNode resolveCompileTimeDependencies(
-      List<DependencyNode> dependencyNodes, DefaultRepositorySystemSession session)
-      throws DependencyResolutionException {
+  /**
+   * Sets the number of threads to collect the dependencies of multiple artifacts, such as the
+   * members of a BOM. With more than one thread, the dependency tree of each artifact is collected
+   * concurrently, sharing one repository cache, and the trees are merged into one dependency graph
+   * that is the same as the one collected in a single thread. By default, it's 1.
+   */
+  public void setCollectionThreads(int collectionThreads) {
+    checkArgument(collectionThreads > 0, "collectionThreads must be positive");
+    this.collectionThreads = collectionThreads;
+  }
 
-    ImmutableList.Builder<Dependency> dependenciesBuilder = ImmutableList.builder();
-    for (DependencyNode dependencyNode : dependencyNodes) {
-      Dependency dependency = dependencyNode.getDependency();
-      if (dependency == null) {
-        // Root DependencyNode has null dependency field.
-        dependenciesBuilder.add(new Dependency(dependencyNode.getArtifact(), "compile"));
-      } else {
-        // The dependency field carries exclusions
-        dependenciesBuilder.add(dependency.setScope("compile"));
-      }
-    }
-    ImmutableList<Dependency> dependencyList = dependenciesBuilder.build();
+  /**
+   * Sets the number of threads to download the files of the artifacts in a dependency graph from
+   * a repository. By default, it's 5.
+   */
+  public void setDownloadThreads(int downloadThreads) {
+    checkArgument(downloadThreads > 0, "downloadThreads must be positive");
+    this.downloadThreads = downloadThreads;
+  }
 
+  /**
+   * Sets whether to keep HTTP connections alive in a connection pool shared by the dependency
+   * graphs built by this builder, instead of opening new connections for each graph. By default,
+   * it's true.
+   */
+  public void setReuseConnections(boolean reuseConnections) {
+    this.reuseConnections = reuseConnections;
+  }
+
+  /**
+   * Sets the checksum policy for the repository at {@code mavenRepositoryUrl}: {@code fail},
+   * {@code warn}, or {@code ignore}. This is how the resolution reacts to a downloaded file that
+   * does not match its checksum. By default, it's {@code warn}.
+   *
+   * @throws IllegalArgumentException if this builder does not use the repository or the policy is
+   *     unknown
+   */
+  public void setChecksumPolicy(String mavenRepositoryUrl, String checksumPolicy) {
+    checkArgument(
+        CHECKSUM_POLICIES.contains(checksumPolicy),
+        "Checksum policy '%s' is not in %s",
+        checksumPolicy,
+        CHECKSUM_POLICIES);
+    checkArgument(
+        repositories.stream()
+            .anyMatch(repository -> repository.getUrl().equals(mavenRepositoryUrl)),
+        "Repository '%s' is not in %s",
+        mavenRepositoryUrl,
+        repositories);
+    checksumPolicies.put(mavenRepositoryUrl, checksumPolicy);
+  }
+
+  /**
+   * Sets a listener to notify of the repository events, such as the resolution of each artifact
+   * file, in the sessions of this builder. The listener is called from multiple threads when
+   * artifacts are resolved concurrently.
+   */
+  public void setRepositoryListener(@Nullable RepositoryListener repositoryListener) {
+    this.repositoryListener = repositoryListener;
+  }
+
+  private void setUpLocalRepository(DefaultRepositorySystemSession session) {
     if (localRepository != null) {
-      LocalRepository local = new LocalRepository(localRepository.toAbsolutePath().toString());
-      session.setLocalRepositoryManager(system.newLocalRepositoryManager(session, local));
+      RepositoryUtility.useLocalRepository(session, system, localRepository);
     }
+  }
+
+  private void setUpTransport(DefaultRepositorySystemSession session) {
+    session.setConfigProperty(BASIC_CONNECTOR_THREADS, downloadThreads);
+    // The HTTP transporter keeps its connection pool in the repository cache, which the sessions
+    // for the same local repository share.
+    session.setConfigProperty(HTTP_CACHE_STATE, reuseConnections);
+    if (reuseConnections && session.getCache() == null) {
+      session.setCache(new DefaultRepositoryCache());
+    }
+  }
+
+  /** Returns {@code repository} with the checksum policy set for its URL, if any. */
+  private RemoteRepository withChecksumPolicy(RemoteRepository repository) {
+    String checksumPolicy = checksumPolicies.get(repository.getUrl());
+    if (checksumPolicy == null) {
+      return repository;
+    }
+    RepositoryPolicy releasePolicy = repository.getPolicy(false);
+    RepositoryPolicy snapshotPolicy = repository.getPolicy(true);
+    return new RemoteRepository.Builder(repository)
+        .setReleasePolicy(
+            new RepositoryPolicy(
+                releasePolicy.isEnabled(), releasePolicy.getUpdatePolicy(), checksumPolicy))
+        .setSnapshotPolicy(
+            new RepositoryPolicy(
+                snapshotPolicy.isEnabled(), snapshotPolicy.getUpdatePolicy(), checksumPolicy))
+        .build();
+  }
+
+  private void setUpRepositoryListener(DefaultRepositorySystemSession session) {
+    if (repositoryListener != null) {
+      session.setRepositoryListener(
+          ChainedRepositoryListener.newInstance(
+              session.getRepositoryListener(), repositoryListener));
+    }
+  }
+
+  private DependencyResult resolveCompileTimeDependencies(
+      List<DependencyNode> dependencyNodes, DefaultRepositorySystemSession session)
+      throws DependencyResolutionException {
+
+    ImmutableList<Dependency> dependencyList =
+        dependencyNodes.stream()
+            .map(DependencyGraphBuilder::compileScopeDependency)
+            .collect(toImmutableList());
 
     CollectRequest collectRequest = new CollectRequest();
     if (dependencyList.size() == 1) {
@@ -108,16 +234,32 @@ public final class DependencyGraphBuilder {
     } else {
       collectRequest.setDependencies(dependencyList);
     }
+    return resolveDependencies(collectRequest, session);
+  }
+
+  private static Dependency compileScopeDependency(DependencyNode dependencyNode) {
+    Dependency dependency = dependencyNode.getDependency();
+    if (dependency == null) {
+      // Root DependencyNode has null dependency field.
+      return new Dependency(dependencyNode.getArtifact(), "compile");
+    } else {
+      // The dependency field carries exclusions
+      return dependency.setScope("compile");
+    }
+  }
+
+  private DependencyResult resolveDependencies(
+      CollectRequest collectRequest, RepositorySystemSession session)
+      throws DependencyResolutionException {
     for (RemoteRepository repository : repositories) {
-      collectRequest.addRepository(repository);
+      collectRequest.addRepository(withChecksumPolicy(repository));
     }
     DependencyRequest dependencyRequest = new DependencyRequest();
     dependencyRequest.setCollectRequest(collectRequest);
 
     // resolveDependencies equals to calling both collectDependencies (build dependency tree) and
     // resolveArtifacts (download JAR files).
-    DependencyResult dependencyResult = system.resolveDependencies(session, dependencyRequest);
-    return dependencyResult.getRoot();
+    return system.resolveDependencies(session, dependencyRequest);
   }
 
   /**
@@ -140,6 +282,29 @@ public final class DependencyGraphBuilder {
     return buildDependencyGraph(dependencyNodes, session);
   }
 
+  /**
+   * Resolves the same dependency tree as {@link #buildFullDependencyGraph(List)} without building
+   * the paths to its nodes, for callers that traverse the tree only once, such as {@link
+   * DependencyTreePrinter}. The paths to every node of a BOM's tree may not fit in memory.
+   *
+   * <p>In the event of I/O errors, missing artifacts, and other problems, the root of the result
+   * can be an incomplete tree. {@link #findUnresolvedArtifacts(DependencyResult)} returns the
+   * artifacts that failed to resolve.
+   */
+  DependencyResult resolveFullDependencyTree(List<Artifact> artifacts) {
+    ImmutableList<DependencyNode> dependencyNodes =
+        artifacts.stream().map(DefaultDependencyNode::new).collect(toImmutableList());
+    DefaultRepositorySystemSession session = RepositoryUtility.newSessionForFullDependency(system);
+    setUpLocalRepository(session);
+    setUpTransport(session);
+    setUpRepositoryListener(session);
+    try {
+      return resolveCompileTimeDependencies(dependencyNodes, session);
+    } catch (DependencyResolutionException ex) {
+      return ex.getResult();
+    }
+  }
+
   /**
    * Finds the full compile time, transitive dependency graph including duplicates and conflicting
    * versions, but not optional dependencies. Each node's dependencies are resolved recursively. The
@@ -200,25 +365,93 @@ public final class DependencyGraphBuilder {
 
   private DependencyGraph buildDependencyGraph(
       List<DependencyNode> dependencyNodes, DefaultRepositorySystemSession session) {
+    setUpLocalRepository(session);
+    setUpTransport(session);
+    setUpRepositoryListener(session);
+
+    if (collectionThreads > 1 && dependencyNodes.size() > 1) {
+      return buildDependencyGraphConcurrently(dependencyNodes, session);
+    }
 
     try {
-      DependencyNode node = resolveCompileTimeDependencies(dependencyNodes, session);
+      DependencyNode node = resolveCompileTimeDependencies(dependencyNodes, session).getRoot();
       return DependencyGraph.from(node);
     } catch (DependencyResolutionException ex) {
       DependencyResult result = ex.getResult();
       DependencyGraph graph = DependencyGraph.from(result.getRoot());
 
-      for (ArtifactResult artifactResult : result.getArtifactResults()) {
-        Artifact resolvedArtifact = artifactResult.getArtifact();
+      graph.addUnresolvableArtifactProblems(findUnresolvedArtifacts(result));
+      return graph;
+    }
+  }
+
+  /**
+   * Builds the dependency graph for multiple {@code dependencyNodes} by collecting the dependency
+   * tree of each node in {@link #collectionThreads} threads. The trees become the children of a
+   * root with a null artifact, as a collect request with multiple dependencies would produce.
+   */
+  private DependencyGraph buildDependencyGraphConcurrently(
+      List<DependencyNode> dependencyNodes, DefaultRepositorySystemSession session) {
+    // The threads share artifact descriptors and metadata through the thread-safe cache
+    if (session.getCache() == null) {
+      session.setCache(new DefaultRepositoryCache());
+    }
 
-        if (resolvedArtifact == null) {
-          Artifact requestedArtifact = artifactResult.getRequest().getArtifact();
-          graph.addUnresolvableArtifactProblem(requestedArtifact);
+    ExecutorService executor =
+        Executors.newFixedThreadPool(Math.min(collectionThreads, dependencyNodes.size()));
+    try {
+      List<Future<DependencyResult>> futures = new ArrayList<>();
+      for (DependencyNode dependencyNode : dependencyNodes) {
+        futures.add(executor.submit(() -> resolveSubtree(dependencyNode, session)));
+      }
+
+      List<DependencyNode> children = new ArrayList<>();
+      List<Artifact> unresolvedArtifacts = new ArrayList<>();
+      for (Future<DependencyResult> future : futures) {
+        DependencyResult result = Futures.getUnchecked(future);
+        if (result.getRoot() != null) {
+          children.addAll(result.getRoot().getChildren());
         }
+        unresolvedArtifacts.addAll(findUnresolvedArtifacts(result));
       }
-      
+
+      DefaultDependencyNode root = new DefaultDependencyNode((Dependency) null);
+      root.setChildren(children);
+      DependencyGraph graph = DependencyGraph.from(root);
+      graph.addUnresolvableArtifactProblems(unresolvedArtifacts);
       return graph;
+    } finally {
+      executor.shutdownNow();
     }
   }
 
+  private DependencyResult resolveSubtree(
+      DependencyNode dependencyNode, DefaultRepositorySystemSession session) {
+    // The graph transformer keeps state while transforming a graph
+    DefaultRepositorySystemSession subtreeSession = new DefaultRepositorySystemSession(session);
+    subtreeSession.setDependencyGraphTransformer(RepositoryUtility.newDependencyGraphTransformer());
+
+    // Unlike setRoot, setDependencies does not include the optional and provided-scope
+    // dependencies of the node, as a request for multiple dependencies does not.
+    CollectRequest collectRequest = new CollectRequest();
+    collectRequest.setDependencies(ImmutableList.of(compileScopeDependency(dependencyNode)));
+    try {
+      return resolveDependencies(collectRequest, subtreeSession);
+    } catch (DependencyResolutionException ex) {
+      return ex.getResult();
+    }
+  }
+
+  /** Returns the artifacts that {@code result} failed to resolve. */
+  static ImmutableList<Artifact> findUnresolvedArtifacts(DependencyResult result) {
+    ImmutableList.Builder<Artifact> unresolvedArtifacts = ImmutableList.builder();
+    for (ArtifactResult artifactResult : result.getArtifactResults()) {
+      Artifact resolvedArtifact = artifactResult.getArtifact();
+
+      if (resolvedArtifact == null) {
+        unresolvedArtifacts.add(artifactResult.getRequest().getArtifact());
+      }
+    }
+    return unresolvedArtifacts.build();
+  }
 }
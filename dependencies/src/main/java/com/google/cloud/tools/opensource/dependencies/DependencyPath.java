@@ -20,7 +20,8 @@ package com.google.cloud.tools.opensource.dependencies;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Joiner;
 import com.google.common.collect.ImmutableList;
-import java.util.ArrayList;
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
 import java.util.List;
 import java.util.Objects;
 import java.util.stream.Collectors;
@@ -38,44 +39,98 @@ import org.eclipse.aether.graph.Exclusion;
  *
  * <p>The first node is null for the dependency trees generated for multiple artifacts by {@link
  * DependencyGraphBuilder#buildFullDependencyGraph(List)}; otherwise the root node is not null.
+ *
+ * <p>Instances are immutable. A path refers to its parent path instead of copying it, so that
+ * the paths in a dependency graph share their common prefixes.
  */
 public final class DependencyPath {
 
+  private static final Interner<String> artifactKeyInterner = Interners.newWeakInterner();
+
   // The root of the dependency path. The project root is not a dependency.
   private final Artifact root;
-  // Path without the root
-  private final List<Dependency> path = new ArrayList<>();
+
+  // The path without the last dependency. Paths appended to the same parent share the parent
+  // instance. Null when the path consists of only the root.
+  @Nullable private final DependencyPath parent;
+
+  // The last dependency in the path. Null when the path consists of only the root.
+  @Nullable private final Dependency leafDependency;
+
+  // Interned groupId:artifactId of the leaf. Null when the leaf is null.
+  @Nullable private final String leafKey;
+
+  // The number of the dependencies in the path, not including the root
+  private final int dependencyCount;
+
+  // Bloom filter of the artifact keys in the path. A key may be in the path only if all the bits
+  // of bloomFilterMask(key) are set.
+  private final long artifactKeyBloomFilter;
+
+  private final int hashCode;
 
   public DependencyPath(@Nullable Artifact root) {
     this.root = root;
+    this.parent = null;
+    this.leafDependency = null;
+    this.leafKey = root == null ? null : artifactKeyInterner.intern(Artifacts.makeKey(root));
+    this.dependencyCount = 0;
+    this.artifactKeyBloomFilter = leafKey == null ? 0L : bloomFilterMask(leafKey);
+    this.hashCode = 31;
+  }
+
+  private DependencyPath(DependencyPath parent, Dependency dependency) {
+    this.root = parent.root;
+    this.parent = parent;
+    this.leafDependency = dependency;
+    Artifact artifact = dependency.getArtifact();
+    this.leafKey = artifactKeyInterner.intern(Artifacts.makeKey(artifact));
+    this.dependencyCount = parent.dependencyCount + 1;
+    this.artifactKeyBloomFilter = parent.artifactKeyBloomFilter | bloomFilterMask(leafKey);
+    this.hashCode =
+        37 * parent.hashCode
+            + Objects.hash(
+                root,
+                artifact.getGroupId(),
+                artifact.getArtifactId(),
+                artifact.getVersion(),
+                dependency.getScope(),
+                dependency.isOptional());
+  }
+
+  private static long bloomFilterMask(String artifactKey) {
+    int hash = artifactKey.hashCode();
+    return (1L << (hash & 63)) | (1L << ((hash >>> 6) & 63));
   }
 
+  /**
+   * Returns a new path with {@code dependency} at the end. The new path shares this path's nodes
+   * instead of copying them.
+   */
   @VisibleForTesting
   public DependencyPath append(Dependency dependency) {
-    DependencyPath copy = new DependencyPath(root);
-    copy.path.addAll(path);
-    copy.path.add(dependency);
-    return copy;
+    return new DependencyPath(this, dependency);
   }
 
   public DependencyPath concat(DependencyPath childPath) {
-    DependencyPath copy = new DependencyPath(root);
-    copy.path.addAll(path);
-    copy.path.addAll(childPath.path);
-    return copy;
+    DependencyPath concatenated = this;
+    for (Dependency dependency : childPath.getDependencies()) {
+      concatenated = concatenated.append(dependency);
+    }
+    return concatenated;
   }
 
   /** Returns the length of the path. */
   public int size() {
-    return path.size() + 1; // including the root
+    return dependencyCount + 1; // including the root
   }
 
   /** Returns the artifact at the end of the path. */
   public Artifact getLeaf() {
-    if (path.isEmpty()) {
+    if (leafDependency == null) {
       return root;
     } else {
-      return path.get(path.size() - 1).getArtifact();
+      return leafDependency.getArtifact();
     }
   }
 
@@ -87,42 +142,103 @@ public final class DependencyPath {
       builder.add(Artifacts.makeKey(root));
     }
     
-    for (Dependency dependency : path) {
+    for (Dependency dependency : getDependencies()) {
       builder.add(Artifacts.makeKey(dependency.getArtifact()));
     }
     
     return builder.build();
   }
-  
+
+  /**
+   * Returns true if an artifact in the path has {@code artifactKey} as its versionless
+   * coordinates. This does not create the list of the artifact keys as {@link #getArtifactKeys()}
+   * does, and it does not look at the artifacts in the path unless the Bloom filter of the keys
+   * tells the key may be in the path.
+   */
+  boolean containsArtifactKey(String artifactKey) {
+    long mask = bloomFilterMask(artifactKey);
+    if ((artifactKeyBloomFilter & mask) != mask) {
+      return false;
+    }
+    for (DependencyPath node = this; node != null; node = node.parent) {
+      if (artifactKey.equals(node.leafKey)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Returns the number of dependencies between the last ancestor of the leaf that has {@code
+   * artifactKey} as its versionless coordinates and {@code version} as its version, and the leaf.
+   * Returns -1 if no ancestor matches. The leaf itself is not an ancestor. Like {@link
+   * #containsArtifactKey(String)}, this compares the interned keys of the nodes without formatting
+   * the coordinates of the artifacts.
+   */
+  public int distanceFromAncestor(String artifactKey, String version) {
+    long mask = bloomFilterMask(artifactKey);
+    if ((artifactKeyBloomFilter & mask) != mask) {
+      return -1;
+    }
+    int distance = 1;
+    for (DependencyPath node = parent; node != null; node = node.parent) {
+      if (artifactKey.equals(node.leafKey) && version.equals(node.getLeaf().getVersion())) {
+        return distance;
+      }
+      distance++;
+    }
+    return -1;
+  }
+
   /**
    * Returns the artifact at {@code i}th node in the path. The {@code 0}th element is the root of
-   * the dependency tree.
+   * the dependency tree. This walks the path from the leaf; to visit every node, iterate over
+   * {@link #getDependencies()} instead.
    */
   public Artifact get(int i) {
     if (i == 0) {
       return root;
     }
-    return path.get(i - 1).getArtifact();
+    return getDependency(i - 1).getArtifact();
   }
 
   /**
    * Returns the {@code i}th dependency. As {@link #root} is not a dependency, the {@code 0}th
-   * element is the dependency of the root in the path.
+   * element is the dependency of the root in the path. This walks the path from the leaf; to visit
+   * every dependency, iterate over {@link #getDependencies()} instead.
    */
   public Dependency getDependency(int i) {
-    return path.get(i);
+    if (i < 0 || i >= dependencyCount) {
+      throw new IndexOutOfBoundsException(
+          "Index " + i + " is out of the " + dependencyCount + " dependencies");
+    }
+    DependencyPath node = this;
+    for (int j = dependencyCount - 1; j > i; j--) {
+      node = node.parent;
+    }
+    return node.leafDependency;
   }
 
   /**
-   * Returns the dependency path of the second to last node in the path. Empty dependency path if
-   * the leaf does not have a parent or {@link #path} is empty.
+   * Returns the dependencies in the path from the one next to the root to the leaf. The {@code
+   * i}th element is {@link #getDependency(int) getDependency(i)}. This walks the path once.
    */
-  DependencyPath getParentPath() {
-    DependencyPath parent = new DependencyPath(root);
-    for (int i = 0; i < path.size() - 1; i++) {
-      parent.path.add(path.get(i));
+  public ImmutableList<Dependency> getDependencies() {
+    Dependency[] dependencies = new Dependency[dependencyCount];
+    DependencyPath node = this;
+    for (int i = dependencyCount - 1; i >= 0; i--) {
+      dependencies[i] = node.leafDependency;
+      node = node.parent;
     }
-    return parent;
+    return ImmutableList.copyOf(dependencies);
+  }
+
+  /**
+   * Returns the dependency path of the second to last node in the path. The path itself if it
+   * consists of only the root.
+   */
+  DependencyPath getParentPath() {
+    return parent == null ? this : parent;
   }
 
   /**
@@ -131,7 +247,7 @@ public final class DependencyPath {
    */
   public Artifact findExclusion(String groupId, String artifactId) {
     Artifact previousArtifact = root;
-    for (Dependency dependency : path) {
+    for (Dependency dependency : getDependencies()) {
       for (Exclusion exclusion : dependency.getExclusions()) {
         if (artifactId.equals(exclusion.getArtifactId())
             && groupId.equals(exclusion.getGroupId())) {
@@ -148,11 +264,13 @@ public final class DependencyPath {
   @Override
   public String toString() {
     List<String> formatted =
-        path.stream().map(DependencyPath::formatDependency).collect(Collectors.toList());
+        getDependencies().stream()
+            .map(DependencyPath::formatDependency)
+            .collect(Collectors.toList());
     StringBuilder builder = new StringBuilder();
     if (root != null) {
       builder.append(root);
-      if (!path.isEmpty()) {
+      if (dependencyCount > 0) {
         builder.append(" / ");
       }
     }
@@ -173,25 +291,30 @@ public final class DependencyPath {
     }
     DependencyPath other = (DependencyPath) o;
 
-    if (!Objects.equals(other.root, root)) {
+    if (other.dependencyCount != dependencyCount || other.hashCode != hashCode) {
       return false;
     }
-    if (other.path.size() != path.size()) {
+    if (!Objects.equals(other.root, root)) {
       return false;
     }
 
-    for (int i = 0; i < path.size(); i++) {
-      Dependency thisNode = path.get(i);
-      Dependency otherNode = other.path.get(i);
-      if (!artifactsEqual(thisNode.getArtifact(), otherNode.getArtifact())) {
+    DependencyPath thisNode = this;
+    DependencyPath otherNode = other;
+    // Paths sharing the same parent instance have the same dependencies up to the parent
+    while (thisNode != otherNode && thisNode.leafDependency != null) {
+      Dependency thisDependency = thisNode.leafDependency;
+      Dependency otherDependency = otherNode.leafDependency;
+      if (!artifactsEqual(thisDependency.getArtifact(), otherDependency.getArtifact())) {
         return false; 
       }
-      if (!thisNode.getScope().equals(otherNode.getScope())) {
+      if (!thisDependency.getScope().equals(otherDependency.getScope())) {
         return false;
       }
-      if (thisNode.isOptional() != otherNode.isOptional()) {
+      if (thisDependency.isOptional() != otherDependency.isOptional()) {
         return false;
       }
+      thisNode = thisNode.parent;
+      otherNode = otherNode.parent;
     }
     return true;
   }
@@ -211,19 +334,6 @@ public final class DependencyPath {
 
   @Override
   public int hashCode() {
-    int hashCode = 31;
-    for (Dependency node : path) {
-      Artifact artifact = node.getArtifact();
-      hashCode =
-          37 * hashCode
-              + Objects.hash(
-                  root,
-                  artifact.getGroupId(),
-                  artifact.getArtifactId(),
-                  artifact.getVersion(),
-                  node.getScope(),
-                  node.isOptional());
-    }
     return hashCode;
   }
 
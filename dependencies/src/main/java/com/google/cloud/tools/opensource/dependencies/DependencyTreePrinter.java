@@ -17,32 +17,105 @@
 package com.google.cloud.tools.opensource.dependencies;
 
 import com.google.common.collect.ImmutableList;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
 import org.eclipse.aether.artifact.DefaultArtifact;
+import org.eclipse.aether.graph.DependencyNode;
+import org.eclipse.aether.resolution.DependencyResult;
 
-/** Prints the dependency tree of Maven artifacts. */
+/**
+ * Prints the dependency tree of Maven artifacts.
+ *
+ * <p>Options {@code --max-depth=N} and {@code --max-children=N} limit the depth and the breadth of
+ * the tree. Option {@code --collapse} prints the children of a repeated artifact only once.
+ */
 class DependencyTreePrinter {
 
-  public static void main(String[] args) {
-    if (args.length < 1) {
-      System.err.println("Maven coordinates not provided. E.g., 'io.grpc:grpc-auth:1.19.0'");
+  private static final String MAX_DEPTH_OPTION = "--max-depth=";
+  private static final String MAX_CHILDREN_OPTION = "--max-children=";
+
+  public static void main(String[] args) throws IOException {
+    List<String> coordinatesList = new ArrayList<>();
+    DependencyTreeWriter treeWriter =
+        new DependencyTreeWriter(new OutputStreamWriter(System.out, Charset.defaultCharset()));
+    for (String arg : args) {
+      if (arg.startsWith(MAX_DEPTH_OPTION)) {
+        int maxDepth = parseCount(arg, MAX_DEPTH_OPTION);
+        if (maxDepth < 0) {
+          printUsage("Bad option " + arg);
+          return;
+        }
+        treeWriter.setMaxDepth(maxDepth);
+      } else if (arg.startsWith(MAX_CHILDREN_OPTION)) {
+        int maxChildren = parseCount(arg, MAX_CHILDREN_OPTION);
+        if (maxChildren < 0) {
+          printUsage("Bad option " + arg);
+          return;
+        }
+        treeWriter.setMaxChildren(maxChildren);
+      } else if (arg.equals("--collapse")) {
+        treeWriter.setCollapseRepeatedSubtrees(true);
+      } else if (arg.startsWith("--")) {
+        printUsage("Unknown option " + arg);
+        return;
+      } else {
+        coordinatesList.add(arg);
+      }
+    }
+    if (coordinatesList.isEmpty()) {
+      printUsage("Maven coordinates not provided. E.g., 'io.grpc:grpc-auth:1.19.0'");
       return;
     }
-    for (String coordinates : args) {
-      printDependencyTree(coordinates);
+    for (String coordinates : coordinatesList) {
+      printDependencyTree(coordinates, treeWriter);
     }
   }
 
-  private static void printDependencyTree(String coordinates) {
+  /**
+   * Returns the value of {@code option} in {@code arg}, or -1 if the value is not a non-negative
+   * integer.
+   */
+  private static int parseCount(String arg, String option) {
+    try {
+      return Math.max(Integer.parseInt(arg.substring(option.length())), -1);
+    } catch (NumberFormatException ex) {
+      return -1;
+    }
+  }
+
+  private static void printUsage(String message) {
+    System.err.println(message);
+    System.err.println(
+        "Usage: java "
+            + DependencyTreePrinter.class.getCanonicalName()
+            + " [--max-depth=N] [--max-children=N] [--collapse]"
+            + " groupId:artifactId:version...");
+  }
+
+  private static void printDependencyTree(String coordinates, DependencyTreeWriter treeWriter)
+      throws IOException {
     DefaultArtifact rootArtifact = new DefaultArtifact(coordinates);
     DependencyGraphBuilder dependencyGraphBuilder = new DependencyGraphBuilder();
-    DependencyGraph dependencyGraph = dependencyGraphBuilder.buildFullDependencyGraph(
-        ImmutableList.of(rootArtifact));
-    
-    for (UnresolvableArtifactProblem problem : dependencyGraph.getUnresolvedArtifacts()) {
+    // The resolved tree is streamed as is, without building the paths to all of its nodes
+    DependencyResult result =
+        dependencyGraphBuilder.resolveFullDependencyTree(ImmutableList.of(rootArtifact));
+    DependencyNode root = result.getRoot();
+
+    // A graph without paths finds the path to each unresolved artifact by traversing the tree
+    DependencyGraph rootOnlyGraph = new DependencyGraph(root);
+    for (UnresolvableArtifactProblem problem :
+        rootOnlyGraph.createUnresolvableArtifactProblems(
+            DependencyGraphBuilder.findUnresolvedArtifacts(result))) {
       System.out.println(problem);
     }
-        
+
     System.out.println("Dependencies for " + coordinates);
-    System.out.println(DependencyTreeFormatter.formatDependencyPaths(dependencyGraph.list()));
+    // Writes each line as the tree is traversed, without formatting the whole tree in memory
+    treeWriter.write(root);
+    System.out.println();
   }
 }
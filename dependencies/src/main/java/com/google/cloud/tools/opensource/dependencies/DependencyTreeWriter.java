@@ -0,0 +1,164 @@
+/*
+ * Copyright 2020 Google LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.opensource.dependencies;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.base.Strings;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
+import org.eclipse.aether.artifact.Artifact;
+import org.eclipse.aether.graph.DependencyNode;
+
+/**
+ * Writes a dependency tree in the same format as {@link
+ * DependencyTreeFormatter#formatDependencyPaths(java.util.List)}, one line at a time.
+ *
+ * <p>Unlike the formatter, this walks the resolved {@link DependencyNode}s iteratively instead of
+ * building a tree of {@link DependencyPath}s, so that the memory it uses is proportional to the
+ * depth of the tree rather than the number of paths. Like {@link DependencyGraph#from(
+ * DependencyNode)}, it skips a node that has the same groupId and artifactId as one of its
+ * ancestors.
+ */
+public final class DependencyTreeWriter {
+
+  private final Writer writer;
+  private int maxDepth = Integer.MAX_VALUE;
+  private int maxChildren = Integer.MAX_VALUE;
+  private boolean collapseRepeatedSubtrees;
+
+  public DependencyTreeWriter(Writer writer) {
+    this.writer = checkNotNull(writer);
+  }
+
+  /**
+   * Writes nodes at most {@code maxDepth} levels below the root. The children of the root are at
+   * level 1.
+   */
+  public DependencyTreeWriter setMaxDepth(int maxDepth) {
+    checkArgument(maxDepth >= 0, "maxDepth must not be negative");
+    this.maxDepth = maxDepth;
+    return this;
+  }
+
+  /**
+   * Writes at most {@code maxChildren} children of each node, followed by a line showing the
+   * number of omitted children.
+   */
+  public DependencyTreeWriter setMaxChildren(int maxChildren) {
+    checkArgument(maxChildren >= 0, "maxChildren must not be negative");
+    this.maxChildren = maxChildren;
+    return this;
+  }
+
+  /**
+   * If true, writes the children of an artifact (groupId, artifactId, and version) only at its
+   * first appearance. Later appearances are marked as {@code (repeated)}.
+   */
+  public DependencyTreeWriter setCollapseRepeatedSubtrees(boolean collapseRepeatedSubtrees) {
+    this.collapseRepeatedSubtrees = collapseRepeatedSubtrees;
+    return this;
+  }
+
+  /**
+   * Writes the dependency tree from {@code root} and flushes the writer. The root is not written
+   * if its artifact is null, as it is when the tree is built for multiple artifacts.
+   */
+  public void write(DependencyNode root) throws IOException {
+    Artifact rootArtifact = root.getArtifact();
+    // Nodes at top have one or more depth
+    int indentOffset = 0;
+    Set<String> ancestorKeys = new HashSet<>();
+    if (rootArtifact != null) {
+      writeLine(1, rootArtifact.toString());
+      indentOffset = 1;
+      ancestorKeys.add(Artifacts.makeKey(rootArtifact));
+    }
+
+    Set<String> expandedCoordinates = new HashSet<>();
+    Deque<Frame> stack = new ArrayDeque<>();
+    if (maxDepth > 0) {
+      stack.push(new Frame(root, null));
+    }
+    while (!stack.isEmpty()) {
+      Frame frame = stack.peek();
+      int childLevel = stack.size();
+      if (!frame.children.hasNext()) {
+        stack.pop();
+        ancestorKeys.remove(frame.key);
+        if (frame.omittedChildCount > 0) {
+          writeLine(childLevel + indentOffset, "... (" + frame.omittedChildCount + " more)");
+        }
+        continue;
+      }
+
+      DependencyNode child = frame.children.next();
+      Artifact artifact = child.getArtifact();
+      if (artifact == null || "jdk".equals(artifact.getGroupId())) {
+        continue;
+      }
+      String key = Artifacts.makeKey(artifact);
+      if (ancestorKeys.contains(key)) {
+        continue;
+      }
+      if (frame.writtenChildCount == maxChildren) {
+        frame.omittedChildCount++;
+        continue;
+      }
+      frame.writtenChildCount++;
+
+      boolean hasChildren = !child.getChildren().isEmpty();
+      if (collapseRepeatedSubtrees
+          && hasChildren
+          && !expandedCoordinates.add(Artifacts.toCoordinates(artifact))) {
+        writeLine(childLevel + indentOffset, artifact + " (repeated)");
+        continue;
+      }
+      writeLine(childLevel + indentOffset, artifact.toString());
+      if (hasChildren && childLevel < maxDepth) {
+        ancestorKeys.add(key);
+        stack.push(new Frame(child, key));
+      }
+    }
+    writer.flush();
+  }
+
+  private void writeLine(int depth, String text) throws IOException {
+    writer.write(Strings.repeat("  ", depth));
+    writer.write(text);
+    writer.write("\n");
+  }
+
+  private static final class Frame {
+    private final Iterator<DependencyNode> children;
+    // groupId:artifactId of the node; null for the root
+    private final String key;
+    private int writtenChildCount;
+    private int omittedChildCount;
+
+    private Frame(DependencyNode node, String key) {
+      this.children = node.getChildren().iterator();
+      this.key = key;
+    }
+  }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2020 Google LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.opensource.dependencies;
+
+import com.google.common.collect.ImmutableList;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.eclipse.aether.artifact.Artifact;
+import org.eclipse.aether.graph.DependencyNode;
+import org.eclipse.aether.graph.DependencyVisitor;
+
+/**
+ * A dependency visitor that records the first path to each of multiple artifacts in one traversal.
+ * Like {@link UniquePathRecordingDependencyVisitor}, this visits only unique nodes; the first path
+ * to an artifact is the same as the first path that visitor records for the artifact.
+ */
+final class FirstPathRecordingDependencyVisitor implements DependencyVisitor {
+
+  // Artifact IDs of the artifacts to find. Nodes with other artifact IDs are skipped without
+  // formatting their coordinates.
+  private final Set<String> artifactIds = new HashSet<>();
+
+  private final Set<String> remainingCoordinates = new HashSet<>();
+
+  private final Map<String, ImmutableList<DependencyNode>> coordinatesToPath = new HashMap<>();
+
+  private final List<DependencyNode> parents = new ArrayList<>();
+
+  private final Set<DependencyNode> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+
+  /** Creates a new visitor that finds the first paths to {@code artifacts}. */
+  FirstPathRecordingDependencyVisitor(Iterable<Artifact> artifacts) {
+    for (Artifact artifact : artifacts) {
+      artifactIds.add(artifact.getArtifactId());
+      remainingCoordinates.add(Artifacts.toCoordinates(artifact));
+    }
+  }
+
+  /**
+   * Returns the first path from the root to a node that has the same coordinates as {@code
+   * artifact}, or an empty list if no such node is visited.
+   */
+  ImmutableList<DependencyNode> getPath(Artifact artifact) {
+    return coordinatesToPath.getOrDefault(Artifacts.toCoordinates(artifact), ImmutableList.of());
+  }
+
+  @Override
+  public boolean visitEnter(DependencyNode node) {
+    parents.add(node);
+
+    Artifact artifact = node.getArtifact();
+    if (artifact != null && artifactIds.contains(artifact.getArtifactId())) {
+      String coordinates = Artifacts.toCoordinates(artifact);
+      if (remainingCoordinates.remove(coordinates)) {
+        coordinatesToPath.put(coordinates, ImmutableList.copyOf(parents));
+      }
+    }
+
+    // Unlike UniquePathRecordingDependencyVisitor, this visits the children of a matching node,
+    // as they may have other artifacts to find.
+    return !remainingCoordinates.isEmpty() && visited.add(node);
+  }
+
+  @Override
+  public boolean visitLeave(DependencyNode node) {
+    parents.remove(parents.size() - 1);
+    // Stops the traversal when all artifacts are found
+    return !remainingCoordinates.isEmpty();
+  }
+}
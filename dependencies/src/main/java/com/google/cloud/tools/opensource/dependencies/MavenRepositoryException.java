@@ -24,5 +24,13 @@ public class MavenRepositoryException extends Exception {
   MavenRepositoryException(Exception ex) {
     super(ex);
   }
+
+  MavenRepositoryException(String message) {
+    super(message);
+  }
+
+  MavenRepositoryException(String message, Exception cause) {
+    super(message, cause);
+  }
   
 }
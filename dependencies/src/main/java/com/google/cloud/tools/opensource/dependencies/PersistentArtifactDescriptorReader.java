@@ -0,0 +1,394 @@
+/*
+ * Copyright 2020 Google LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.opensource.dependencies;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableList;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.logging.Logger;
+import org.apache.maven.repository.internal.DefaultArtifactDescriptorReader;
+import org.eclipse.aether.RepositorySystemSession;
+import org.eclipse.aether.artifact.Artifact;
+import org.eclipse.aether.artifact.DefaultArtifact;
+import org.eclipse.aether.graph.Dependency;
+import org.eclipse.aether.graph.Exclusion;
+import org.eclipse.aether.impl.ArtifactDescriptorReader;
+import org.eclipse.aether.repository.LocalArtifactRequest;
+import org.eclipse.aether.repository.LocalArtifactResult;
+import org.eclipse.aether.repository.RemoteRepository;
+import org.eclipse.aether.repository.RepositoryPolicy;
+import org.eclipse.aether.resolution.ArtifactDescriptorException;
+import org.eclipse.aether.resolution.ArtifactDescriptorRequest;
+import org.eclipse.aether.resolution.ArtifactDescriptorResult;
+import org.eclipse.aether.spi.locator.Service;
+import org.eclipse.aether.spi.locator.ServiceLocator;
+
+/**
+ * Artifact descriptor reader that persists the dependencies and managed dependencies of artifacts
+ * across runs, so that reading the descriptor of an unchanged pom.xml does not parse and
+ * interpolate the POM, its parents, and imported BOMs again.
+ *
+ * <p>The cache is enabled when the session has the directory in the {@link
+ * #CACHE_DIRECTORY_PROPERTY} configuration property. A cache entry is valid only while the SHA-1
+ * checksum of the pom.xml file in the local repository matches the one recorded in the entry.
+ * Snapshot versions and relocated artifacts are not cached.
+ *
+ * <p>Profile activation and interpolation make a descriptor depend on the environment. The entries
+ * are stored separately for each combination of the Java version, the operating system, the
+ * {@code os.detected.*} system properties, and the user properties of the session. Profiles
+ * activated by other system properties are not told apart.
+ */
+public final class PersistentArtifactDescriptorReader implements ArtifactDescriptorReader, Service {
+
+  private static final Logger logger =
+      Logger.getLogger(PersistentArtifactDescriptorReader.class.getName());
+
+  /** Session configuration property for the directory to store artifact descriptors. */
+  public static final String CACHE_DIRECTORY_PROPERTY =
+      "linkageChecker.artifactDescriptorCacheDirectory";
+
+  // Increment when the file format changes
+  private static final int FORMAT_VERSION = 1;
+
+  // The system properties for the jdk and os activation of profiles
+  private static final ImmutableList<String> ENVIRONMENT_SYSTEM_PROPERTIES =
+      ImmutableList.of("java.version", "os.name", "os.arch", "os.version");
+
+  private final DefaultArtifactDescriptorReader delegate = new DefaultArtifactDescriptorReader();
+
+  @Override
+  public void initService(ServiceLocator locator) {
+    delegate.initService(locator);
+  }
+
+  @Override
+  public ArtifactDescriptorResult readArtifactDescriptor(
+      RepositorySystemSession session, ArtifactDescriptorRequest request)
+      throws ArtifactDescriptorException {
+    Object cacheDirectory = session.getConfigProperties().get(CACHE_DIRECTORY_PROPERTY);
+    Artifact artifact = request.getArtifact();
+    if (cacheDirectory == null || !isCacheable(artifact)) {
+      return delegate.readArtifactDescriptor(session, request);
+    }
+
+    Path entryFile = entryFile(Paths.get(cacheDirectory.toString()), session, artifact);
+    String checksum = pomChecksum(session, request);
+    if (checksum != null) {
+      ArtifactDescriptorResult cachedResult = readEntry(entryFile, checksum, request);
+      if (cachedResult != null) {
+        return cachedResult;
+      }
+    }
+
+    ArtifactDescriptorResult result = delegate.readArtifactDescriptor(session, request);
+    if (result.getExceptions().isEmpty() && result.getRelocations().isEmpty()) {
+      // The delegate downloads the pom.xml file if it's not in the local repository yet
+      String checksumAfterRead = checksum != null ? checksum : pomChecksum(session, request);
+      if (checksumAfterRead != null) {
+        writeEntry(entryFile, checksumAfterRead, result);
+      }
+    }
+    return result;
+  }
+
+  private static boolean isCacheable(Artifact artifact) {
+    String version = artifact.getVersion();
+    // Version ranges, LATEST, and RELEASE are resolved before reading descriptors. Snapshots may
+    // have parents that change without changing the pom.xml file of the artifact.
+    return !artifact.isSnapshot()
+        && !version.isEmpty()
+        && version.indexOf('[') < 0
+        && version.indexOf('(') < 0;
+  }
+
+  @VisibleForTesting
+  static Path entryFile(Path cacheDirectory, RepositorySystemSession session, Artifact artifact) {
+    return cacheDirectory
+        .resolve(environment(session))
+        .resolve(artifact.getGroupId())
+        .resolve(artifact.getArtifactId())
+        .resolve(artifact.getVersion() + ".descriptor");
+  }
+
+  /**
+   * Returns the hash of the properties of {@code session} that profile activation and
+   * interpolation read in the environment: the Java version, the operating system, the {@code
+   * os.detected.*} properties for classifiers, and the user properties.
+   */
+  @VisibleForTesting
+  static String environment(RepositorySystemSession session) {
+    Map<String, String> systemProperties = session.getSystemProperties();
+    Map<String, String> environment = new TreeMap<>();
+    for (String key : ENVIRONMENT_SYSTEM_PROPERTIES) {
+      environment.put(key, systemProperties.get(key));
+    }
+    systemProperties.forEach(
+        (key, value) -> {
+          if (key.startsWith("os.detected.")) {
+            environment.put(key, value);
+          }
+        });
+    session.getUserProperties().forEach((key, value) -> environment.put("user:" + key, value));
+
+    Hasher hasher = Hashing.sha1().newHasher();
+    environment.forEach(
+        (key, value) -> {
+          hasher.putString(key, StandardCharsets.UTF_8).putByte((byte) 0);
+          hasher.putString(String.valueOf(value), StandardCharsets.UTF_8).putByte((byte) 0);
+        });
+    return hasher.hash().toString();
+  }
+
+  /**
+   * Returns the SHA-1 checksum of the pom.xml file of the artifact in the local repository. Null if
+   * the file is not in the local repository.
+   */
+  private static String pomChecksum(
+      RepositorySystemSession session, ArtifactDescriptorRequest request) {
+    Artifact artifact = request.getArtifact();
+    Artifact pomArtifact =
+        new DefaultArtifact(
+            artifact.getGroupId(), artifact.getArtifactId(), "", "pom", artifact.getVersion());
+    LocalArtifactResult localResult =
+        session
+            .getLocalRepositoryManager()
+            .find(
+                session,
+                new LocalArtifactRequest(
+                    pomArtifact, request.getRepositories(), request.getRequestContext()));
+    File pomFile = localResult.getFile();
+    if (pomFile == null || !localResult.isAvailable()) {
+      return null;
+    }
+    try {
+      return com.google.common.io.Files.asByteSource(pomFile).hash(Hashing.sha1()).toString();
+    } catch (IOException ex) {
+      return null;
+    }
+  }
+
+  /** Returns the cached result if the entry exists and has {@code checksum}. Otherwise null. */
+  private static ArtifactDescriptorResult readEntry(
+      Path entryFile, String checksum, ArtifactDescriptorRequest request) {
+    try (DataInputStream input =
+        new DataInputStream(new BufferedInputStream(Files.newInputStream(entryFile)))) {
+      if (input.readInt() != FORMAT_VERSION || !checksum.equals(input.readUTF())) {
+        return null;
+      }
+      ArtifactDescriptorResult result = new ArtifactDescriptorResult(request);
+      result.setArtifact(request.getArtifact());
+      result.setDependencies(readDependencies(input));
+      result.setManagedDependencies(readDependencies(input));
+      result.setRepositories(readRepositories(input));
+      result.setAliases(readArtifacts(input));
+      result.setProperties(new HashMap<>(readStringMap(input)));
+      return result;
+    } catch (NoSuchFileException ex) {
+      return null;
+    } catch (IOException ex) {
+      logger.fine("Ignoring unreadable cache entry " + entryFile + ": " + ex);
+      return null;
+    }
+  }
+
+  private static void writeEntry(Path entryFile, String checksum, ArtifactDescriptorResult result) {
+    try {
+      Files.createDirectories(entryFile.getParent());
+      // Writing to a temporary file and then renaming it keeps concurrent readers from seeing
+      // incomplete entries.
+      Path temporaryFile = Files.createTempFile(entryFile.getParent(), "descriptor", ".tmp");
+      try (DataOutputStream output =
+          new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporaryFile)))) {
+        output.writeInt(FORMAT_VERSION);
+        output.writeUTF(checksum);
+        writeDependencies(output, result.getDependencies());
+        writeDependencies(output, result.getManagedDependencies());
+        writeRepositories(output, result.getRepositories());
+        writeArtifacts(output, result.getAliases());
+        Map<String, String> properties = new HashMap<>();
+        result
+            .getProperties()
+            .forEach(
+                (key, value) -> {
+                  if (value != null) {
+                    properties.put(key, value.toString());
+                  }
+                });
+        writeStringMap(output, properties);
+      }
+      Files.move(
+          temporaryFile,
+          entryFile,
+          StandardCopyOption.REPLACE_EXISTING,
+          StandardCopyOption.ATOMIC_MOVE);
+    } catch (IOException ex) {
+      // The cache is an optimization. Failing to write an entry should not fail the resolution.
+      logger.fine("Failed to write cache entry " + entryFile + ": " + ex);
+    }
+  }
+
+  private static void writeDependencies(DataOutputStream output, List<Dependency> dependencies)
+      throws IOException {
+    output.writeInt(dependencies.size());
+    for (Dependency dependency : dependencies) {
+      writeArtifact(output, dependency.getArtifact());
+      output.writeUTF(dependency.getScope());
+      Boolean optional = dependency.getOptional();
+      output.writeByte(optional == null ? 0 : optional ? 2 : 1);
+      Collection<Exclusion> exclusions = dependency.getExclusions();
+      output.writeInt(exclusions.size());
+      for (Exclusion exclusion : exclusions) {
+        output.writeUTF(exclusion.getGroupId());
+        output.writeUTF(exclusion.getArtifactId());
+        output.writeUTF(exclusion.getClassifier());
+        output.writeUTF(exclusion.getExtension());
+      }
+    }
+  }
+
+  private static List<Dependency> readDependencies(DataInputStream input) throws IOException {
+    int count = input.readInt();
+    List<Dependency> dependencies = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      Artifact artifact = readArtifact(input);
+      String scope = input.readUTF();
+      byte optionalValue = input.readByte();
+      Boolean optional = optionalValue == 0 ? null : optionalValue == 2;
+      int exclusionCount = input.readInt();
+      List<Exclusion> exclusions = new ArrayList<>(exclusionCount);
+      for (int j = 0; j < exclusionCount; j++) {
+        exclusions.add(
+            new Exclusion(input.readUTF(), input.readUTF(), input.readUTF(), input.readUTF()));
+      }
+      dependencies.add(new Dependency(artifact, scope, optional, exclusions));
+    }
+    return dependencies;
+  }
+
+  private static void writeArtifacts(DataOutputStream output, Collection<Artifact> artifacts)
+      throws IOException {
+    output.writeInt(artifacts.size());
+    for (Artifact artifact : artifacts) {
+      writeArtifact(output, artifact);
+    }
+  }
+
+  private static List<Artifact> readArtifacts(DataInputStream input) throws IOException {
+    int count = input.readInt();
+    List<Artifact> artifacts = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      artifacts.add(readArtifact(input));
+    }
+    return artifacts;
+  }
+
+  private static void writeArtifact(DataOutputStream output, Artifact artifact)
+      throws IOException {
+    output.writeUTF(artifact.getGroupId());
+    output.writeUTF(artifact.getArtifactId());
+    output.writeUTF(artifact.getClassifier());
+    output.writeUTF(artifact.getExtension());
+    output.writeUTF(artifact.getVersion());
+    // Properties carry the type and, for system-scope dependencies, the local path
+    writeStringMap(output, artifact.getProperties());
+  }
+
+  private static Artifact readArtifact(DataInputStream input) throws IOException {
+    String groupId = input.readUTF();
+    String artifactId = input.readUTF();
+    String classifier = input.readUTF();
+    String extension = input.readUTF();
+    String version = input.readUTF();
+    Map<String, String> properties = readStringMap(input);
+    return new DefaultArtifact(
+        groupId, artifactId, classifier, extension, version, properties, (File) null);
+  }
+
+  private static void writeRepositories(
+      DataOutputStream output, List<RemoteRepository> repositories) throws IOException {
+    output.writeInt(repositories.size());
+    for (RemoteRepository repository : repositories) {
+      output.writeUTF(repository.getId());
+      output.writeUTF(repository.getContentType());
+      output.writeUTF(repository.getUrl());
+      writeRepositoryPolicy(output, repository.getPolicy(false));
+      writeRepositoryPolicy(output, repository.getPolicy(true));
+    }
+  }
+
+  private static List<RemoteRepository> readRepositories(DataInputStream input)
+      throws IOException {
+    int count = input.readInt();
+    List<RemoteRepository> repositories = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      RemoteRepository.Builder builder =
+          new RemoteRepository.Builder(input.readUTF(), input.readUTF(), input.readUTF());
+      builder.setReleasePolicy(readRepositoryPolicy(input));
+      builder.setSnapshotPolicy(readRepositoryPolicy(input));
+      repositories.add(builder.build());
+    }
+    return repositories;
+  }
+
+  private static void writeRepositoryPolicy(DataOutputStream output, RepositoryPolicy policy)
+      throws IOException {
+    output.writeBoolean(policy.isEnabled());
+    output.writeUTF(policy.getUpdatePolicy());
+    output.writeUTF(policy.getChecksumPolicy());
+  }
+
+  private static RepositoryPolicy readRepositoryPolicy(DataInputStream input) throws IOException {
+    return new RepositoryPolicy(input.readBoolean(), input.readUTF(), input.readUTF());
+  }
+
+  private static void writeStringMap(DataOutputStream output, Map<String, String> map)
+      throws IOException {
+    output.writeInt(map.size());
+    for (Map.Entry<String, String> entry : map.entrySet()) {
+      output.writeUTF(entry.getKey());
+      output.writeUTF(entry.getValue());
+    }
+  }
+
+  private static Map<String, String> readStringMap(DataInputStream input) throws IOException {
+    int count = input.readInt();
+    Map<String, String> map = new HashMap<>();
+    for (int i = 0; i < count; i++) {
+      map.put(input.readUTF(), input.readUTF());
+    }
+    return map;
+  }
+}
@@ -21,6 +21,11 @@ import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.collect.ImmutableList.toImmutableList;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import java.io.File;
@@ -31,6 +36,8 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import org.apache.maven.execution.DefaultMavenExecutionRequest;
 import org.apache.maven.execution.MavenExecutionRequest;
 import org.apache.maven.project.MavenProject;
@@ -47,19 +54,21 @@ import org.codehaus.plexus.PlexusContainer;
 import org.codehaus.plexus.PlexusContainerException;
 import org.codehaus.plexus.classworlds.ClassWorld;
 import org.codehaus.plexus.component.repository.exception.ComponentLookupException;
+import org.eclipse.aether.DefaultRepositoryCache;
 import org.eclipse.aether.DefaultRepositorySystemSession;
+import org.eclipse.aether.DefaultSessionData;
+import org.eclipse.aether.RepositoryCache;
 import org.eclipse.aether.RepositorySystem;
 import org.eclipse.aether.RepositorySystemSession;
-import org.eclipse.aether.artifact.Artifact;
-import org.eclipse.aether.artifact.DefaultArtifact;
+import org.eclipse.aether.SessionData;
+import org.eclipse.aether.collection.DependencyGraphTransformer;
 import org.eclipse.aether.collection.DependencySelector;
 import org.eclipse.aether.connector.basic.BasicRepositoryConnectorFactory;
+import org.eclipse.aether.impl.ArtifactDescriptorReader;
 import org.eclipse.aether.impl.DefaultServiceLocator;
 import org.eclipse.aether.repository.LocalRepository;
+import org.eclipse.aether.repository.LocalRepositoryManager;
 import org.eclipse.aether.repository.RemoteRepository;
-import org.eclipse.aether.resolution.VersionRangeRequest;
-import org.eclipse.aether.resolution.VersionRangeResolutionException;
-import org.eclipse.aether.resolution.VersionRangeResult;
 import org.eclipse.aether.spi.connector.RepositoryConnectorFactory;
 import org.eclipse.aether.spi.connector.transport.TransporterFactory;
 import org.eclipse.aether.transport.file.FileTransporterFactory;
@@ -70,6 +79,8 @@ import org.eclipse.aether.util.graph.selector.OptionalDependencySelector;
 import org.eclipse.aether.util.graph.selector.ScopeDependencySelector;
 import org.eclipse.aether.util.graph.transformer.ChainedDependencyGraphTransformer;
 import org.eclipse.aether.util.graph.transformer.JavaDependencyContextRefiner;
+import org.eclipse.aether.version.InvalidVersionSpecificationException;
+import org.eclipse.aether.version.Version;
 
 /**
  * Aether initialization. This is based on Apache Maven Resolver 1.4.2 or later.
@@ -85,6 +96,31 @@ public final class RepositoryUtility {
   private static final ImmutableSet<String> ALLOWED_REPOSITORY_URL_SCHEMES =
       ImmutableSet.of("file", "http", "https");
 
+  // Finding the local repository may create a temporary directory. All sessions share it.
+  private static final Supplier<String> defaultLocalRepository =
+      Suppliers.memoize(RepositoryUtility::findLocalRepository);
+
+  // Weak keys let repository systems and their caches be garbage-collected
+  private static final LoadingCache<RepositorySystem, ConcurrentMap<Path, SharedSessionState>>
+      sharedSessionStates =
+          CacheBuilder.newBuilder()
+              .weakKeys()
+              .build(CacheLoader.from(() -> new ConcurrentHashMap<>()));
+
+  // Versions of artifacts in Maven Central, shared by all repository systems. The entries are
+  // persisted in the local repository of the session that resolves them.
+  private static final LoadingCache<Path, VersionMetadataCache> versionMetadataCaches =
+      CacheBuilder.newBuilder()
+          .build(
+              CacheLoader.from(
+                  (Path localRepository) ->
+                      VersionMetadataCache.fromSystemProperties(
+                          localRepository.resolve(".cache").resolve("versions"))));
+
+  // For sessions without a local repository directory
+  private static final Supplier<VersionMetadataCache> inMemoryVersionMetadataCache =
+      Suppliers.memoize(() -> VersionMetadataCache.fromSystemProperties(null));
+
   private RepositoryUtility() {}
 
   /**
@@ -95,7 +131,8 @@ public final class RepositoryUtility {
     locator.addService(RepositoryConnectorFactory.class, BasicRepositoryConnectorFactory.class);
     locator.addService(TransporterFactory.class, FileTransporterFactory.class);
     locator.addService(TransporterFactory.class, HttpTransporterFactory.class);
-  
+    locator.setService(ArtifactDescriptorReader.class, PersistentArtifactDescriptorReader.class);
+
     return locator.getService(RepositorySystem.class);
   }
 
@@ -103,11 +140,54 @@ public final class RepositoryUtility {
   static DefaultRepositorySystemSession createDefaultRepositorySystemSession(
       RepositorySystem system) {
     DefaultRepositorySystemSession session = MavenRepositorySystemUtils.newSession();
-    LocalRepository localRepository = new LocalRepository(findLocalRepository());
-    session.setLocalRepositoryManager(system.newLocalRepositoryManager(session, localRepository));
+    String localRepository = defaultLocalRepository.get();
+    if (localRepository != null) {
+      useLocalRepository(session, system, Paths.get(localRepository));
+    } else {
+      session.setLocalRepositoryManager(
+          system.newLocalRepositoryManager(session, new LocalRepository((File) null)));
+    }
     return session;
   }
 
+  /**
+   * Sets {@code localRepository} to {@code session} with the local repository manager, the
+   * repository cache, and the session data shared by all sessions that use {@code system} and
+   * {@code localRepository}. Sessions for different dependency selectors then share the artifact
+   * descriptors, version resolutions, and metadata update checks instead of reading them again.
+   */
+  static void useLocalRepository(
+      DefaultRepositorySystemSession session, RepositorySystem system, Path localRepository) {
+    Path basedir = localRepository.toAbsolutePath();
+    SharedSessionState state =
+        sharedSessionStates
+            .getUnchecked(system)
+            .computeIfAbsent(basedir, key -> new SharedSessionState(session, system, key));
+    session.setLocalRepositoryManager(state.localRepositoryManager);
+    session.setCache(state.cache);
+    session.setData(state.data);
+    session.setConfigProperty(
+        PersistentArtifactDescriptorReader.CACHE_DIRECTORY_PROPERTY,
+        basedir.resolve(".cache").resolve("artifact-descriptors").toString());
+  }
+
+  /**
+   * Thread-safe state shared by the sessions for a repository system and a local repository.
+   * The sessions must have the same system properties, because artifact descriptors in the cache
+   * are interpolated with them.
+   */
+  private static final class SharedSessionState {
+    private final LocalRepositoryManager localRepositoryManager;
+    private final RepositoryCache cache = new DefaultRepositoryCache();
+    private final SessionData data = new DefaultSessionData();
+
+    private SharedSessionState(
+        RepositorySystemSession session, RepositorySystem system, Path localRepository) {
+      localRepositoryManager =
+          system.newLocalRepositoryManager(session, new LocalRepository(localRepository.toFile()));
+    }
+  }
+
   /**
    * Opens a new Maven repository session that looks for the local repository in the
    * customary ~/.m2 directory. If not found, it creates an initially empty repository in
@@ -166,14 +246,7 @@ public final class RepositoryUtility {
     DefaultRepositorySystemSession session = createDefaultRepositorySystemSession(system);
     session.setDependencySelector(dependencySelector);
 
-    // By default, Maven's MavenRepositorySystemUtils.newSession() returns a session with
-    // ChainedDependencyGraphTransformer(ConflictResolver(...), JavaDependencyContextRefiner()).
-    // Because the full dependency graph does not resolve conflicts of versions, this session does
-    // not use ConflictResolver.
-    session.setDependencyGraphTransformer(
-        new ChainedDependencyGraphTransformer(
-            new CycleBreakerGraphTransformer(), // Avoids StackOverflowError
-            new JavaDependencyContextRefiner()));
+    session.setDependencyGraphTransformer(newDependencyGraphTransformer());
 
     // No dependency management in the full dependency graph
     session.setDependencyManager(null);
@@ -181,6 +254,21 @@ public final class RepositoryUtility {
     return session;
   }
   
+  /**
+   * Returns a new transformer for the sessions that do not resolve conflicts of versions. The
+   * transformer has state; a session collecting dependencies concurrently needs one transformer
+   * per thread.
+   */
+  static DependencyGraphTransformer newDependencyGraphTransformer() {
+    // By default, Maven's MavenRepositorySystemUtils.newSession() returns a session with
+    // ChainedDependencyGraphTransformer(ConflictResolver(...), JavaDependencyContextRefiner()).
+    // Because the full dependency graph does not resolve conflicts of versions, this session does
+    // not use ConflictResolver.
+    return new ChainedDependencyGraphTransformer(
+        new CycleBreakerGraphTransformer(), // Avoids StackOverflowError
+        new JavaDependencyContextRefiner());
+  }
+
   static DefaultRepositorySystemSession newSessionForVerboseDependency(RepositorySystem system) {
     DependencySelector dependencySelector =
         new AndDependencySelector(
@@ -293,23 +381,14 @@ public final class RepositoryUtility {
     return repository;
   }
 
-  private static VersionRangeResult findVersionRange(
-      RepositorySystem repositorySystem,
-      RepositorySystemSession session,
-      String groupId,
-      String artifactId)
-      throws MavenRepositoryException {
-
-    Artifact artifactWithVersionRange = new DefaultArtifact(groupId, artifactId, null, "(,]");
-    VersionRangeRequest request =
-        new VersionRangeRequest(
-            artifactWithVersionRange, ImmutableList.of(RepositoryUtility.CENTRAL), null);
-
-    try {
-      return repositorySystem.resolveVersionRange(session, request);
-    } catch (VersionRangeResolutionException ex) {
-      throw new MavenRepositoryException(ex);
-    }
+  /** Returns the version cache whose entries are persisted in the session's local repository. */
+  @VisibleForTesting
+  static VersionMetadataCache versionMetadataCache(RepositorySystemSession session) {
+    LocalRepository localRepository = session.getLocalRepository();
+    File basedir = localRepository == null ? null : localRepository.getBasedir();
+    return basedir == null
+        ? inMemoryVersionMetadataCache.get()
+        : versionMetadataCaches.getUnchecked(basedir.toPath().toAbsolutePath());
   }
 
   /** Returns the highest version for {@code groupId:artifactId} in {@code repositorySystem}. */
@@ -320,23 +399,50 @@ public final class RepositoryUtility {
       String groupId,
       String artifactId)
       throws MavenRepositoryException {
-    return findVersionRange(repositorySystem, session, groupId, artifactId)
-        .getHighestVersion()
-        .toString();
+    ImmutableList<Version> versions =
+        versionMetadataCache(session)
+            .getVersions(repositorySystem, session, CENTRAL, groupId, artifactId);
+    if (versions.isEmpty()) {
+      throw new MavenRepositoryException("No versions found for " + groupId + ":" + artifactId);
+    }
+    return versions.get(versions.size() - 1).toString();
   }
 
   /**
    * Returns list of versions available for {@code groupId:artifactId} in {@code repositorySystem}.
    * The returned list is in ascending order with regard to {@link
    * org.eclipse.aether.util.version.GenericVersionScheme}. The highest version comes last.
+   *
+   * <p>The versions are cached in memory and in the local repository. See {@link
+   * VersionMetadataCache#TIME_TO_LIVE_PROPERTY} and {@link VersionMetadataCache#OFFLINE_PROPERTY}
+   * to configure the cache.
    */
   public static ImmutableList<String> findVersions(
       RepositorySystem repositorySystem, String groupId, String artifactId)
       throws MavenRepositoryException {
     RepositorySystemSession session = RepositoryUtility.newSession(repositorySystem);
-    // getVersions returns a list in ascending order
-    return findVersionRange(repositorySystem, session, groupId, artifactId).getVersions().stream()
-        .map(version -> version.toString())
+    return versionMetadataCache(session)
+        .getVersions(repositorySystem, session, CENTRAL, groupId, artifactId)
+        .stream()
+        .map(Version::toString)
+        .collect(toImmutableList());
+  }
+
+  /**
+   * Returns list of versions in {@code versionRange}, such as {@code [1.0,2.0)}, available for
+   * {@code groupId:artifactId} in {@code repositorySystem} in ascending order. The range is
+   * evaluated on the cached versions.
+   *
+   * @throws InvalidVersionSpecificationException if {@code versionRange} is not a valid range
+   */
+  public static ImmutableList<String> findVersions(
+      RepositorySystem repositorySystem, String groupId, String artifactId, String versionRange)
+      throws MavenRepositoryException, InvalidVersionSpecificationException {
+    RepositorySystemSession session = RepositoryUtility.newSession(repositorySystem);
+    return versionMetadataCache(session)
+        .getVersions(repositorySystem, session, CENTRAL, groupId, artifactId, versionRange)
+        .stream()
+        .map(Version::toString)
         .collect(toImmutableList());
   }
 
@@ -18,16 +18,14 @@ package com.google.cloud.tools.opensource.dependencies;
 
 import java.util.Comparator;
 
-import org.apache.maven.artifact.versioning.ComparableVersion;
-
 /**
- * Compare semantically by version.
+ * Compare semantically by version. Each distinct version string is parsed only once.
  */
 public class VersionComparator implements Comparator<String> {
 
   @Override
   public int compare(String version1, String version2) {
-    return new ComparableVersion(version1).compareTo(new ComparableVersion(version2));
+    return VersionIndex.parse(version1).compareTo(VersionIndex.parse(version2));
   }
 
 }
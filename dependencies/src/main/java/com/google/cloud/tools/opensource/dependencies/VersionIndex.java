@@ -0,0 +1,95 @@
+/*
+ * Copyright 2020 Google LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.opensource.dependencies;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import org.apache.maven.artifact.versioning.ComparableVersion;
+
+/**
+ * Versions of artifacts keyed by {@code groupId:artifactId}, sorted as they are added.
+ *
+ * <p>Each distinct version string is parsed once into a {@link ComparableVersion} shared by all
+ * indexes and by {@link VersionComparator}. Versions that compare as equal, such as {@code 1.0}
+ * and {@code 1.0.0}, are recorded once with the string added first.
+ */
+final class VersionIndex {
+
+  private static final LoadingCache<String, ComparableVersion> parsedVersions =
+      CacheBuilder.newBuilder()
+          .maximumSize(100_000)
+          .build(CacheLoader.from(ComparableVersion::new));
+
+  // Sorted by keys so that iteration order does not depend on the order of addition
+  private final TreeMap<String, ArtifactVersions> index = new TreeMap<>();
+
+  /** Returns the parsed form of {@code version}. */
+  static ComparableVersion parse(String version) {
+    return parsedVersions.getUnchecked(version);
+  }
+
+  /** Adds {@code version} to the versions of {@code key}. */
+  void add(String key, String version) {
+    index.computeIfAbsent(key, unused -> new ArtifactVersions()).add(version);
+  }
+
+  /** Returns the {@code groupId:artifactId} keys in this index in natural order. */
+  Set<String> keySet() {
+    return index.keySet();
+  }
+
+  /** Returns the versions of {@code key} in ascending order. */
+  ImmutableList<String> getVersions(String key) {
+    ArtifactVersions artifactVersions = index.get(key);
+    return artifactVersions == null
+        ? ImmutableList.of()
+        : ImmutableList.copyOf(artifactVersions.versions.values());
+  }
+
+  /** Returns the highest version of {@code key} or null if {@code key} is not in this index. */
+  String getHighestVersion(String key) {
+    ArtifactVersions artifactVersions = index.get(key);
+    return artifactVersions == null ? null : artifactVersions.highestVersion;
+  }
+
+  /** Returns a map of {@code groupId:artifactId} to the highest version. */
+  ImmutableMap<String, String> getHighestVersions() {
+    ImmutableMap.Builder<String, String> builder = ImmutableMap.builder();
+    for (Map.Entry<String, ArtifactVersions> entry : index.entrySet()) {
+      builder.put(entry.getKey(), entry.getValue().highestVersion);
+    }
+    return builder.build();
+  }
+
+  private static final class ArtifactVersions {
+    private final TreeMap<ComparableVersion, String> versions = new TreeMap<>();
+    private String highestVersion;
+
+    private void add(String version) {
+      ComparableVersion parsed = parse(version);
+      if (versions.putIfAbsent(parsed, version) == null && versions.lastKey() == parsed) {
+        highestVersion = version;
+      }
+    }
+  }
+}
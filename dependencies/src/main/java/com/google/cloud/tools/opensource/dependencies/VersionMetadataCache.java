@@ -0,0 +1,314 @@
+/*
+ * Copyright 2020 Google LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.opensource.dependencies;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.collect.ImmutableList.toImmutableList;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableList;
+import com.google.common.hash.Hashing;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.logging.Logger;
+import javax.annotation.Nullable;
+import org.eclipse.aether.DefaultRepositorySystemSession;
+import org.eclipse.aether.DefaultSessionData;
+import org.eclipse.aether.RepositorySystem;
+import org.eclipse.aether.RepositorySystemSession;
+import org.eclipse.aether.artifact.Artifact;
+import org.eclipse.aether.artifact.DefaultArtifact;
+import org.eclipse.aether.repository.RemoteRepository;
+import org.eclipse.aether.repository.RepositoryPolicy;
+import org.eclipse.aether.resolution.VersionRangeRequest;
+import org.eclipse.aether.resolution.VersionRangeResolutionException;
+import org.eclipse.aether.resolution.VersionRangeResult;
+import org.eclipse.aether.transfer.MetadataNotFoundException;
+import org.eclipse.aether.util.version.GenericVersionScheme;
+import org.eclipse.aether.version.InvalidVersionSpecificationException;
+import org.eclipse.aether.version.Version;
+import org.eclipse.aether.version.VersionConstraint;
+
+/**
+ * Cache of the versions available for {@code groupId:artifactId} in Maven repositories, in memory
+ * and optionally on disk.
+ *
+ * <p>An entry is fresh for the time-to-live after the versions are resolved from the repository's
+ * {@code maven-metadata.xml}. A stale entry is resolved again unless the cache is offline; an
+ * offline cache returns stale entries as they are and resolves only the artifacts it has never
+ * seen, without network access. Version range queries are answered from the cached versions.
+ */
+public final class VersionMetadataCache {
+
+  private static final Logger logger = Logger.getLogger(VersionMetadataCache.class.getName());
+
+  /**
+   * System property for the time-to-live of the entries in the default cache, as an ISO-8601
+   * duration such as {@code PT1H}.
+   */
+  public static final String TIME_TO_LIVE_PROPERTY = "linkageChecker.versionMetadataTtl";
+
+  /** System property to make the default cache offline when set to {@code true}. */
+  public static final String OFFLINE_PROPERTY = "linkageChecker.versionMetadataOffline";
+
+  private static final Duration DEFAULT_TIME_TO_LIVE = Duration.ofHours(1);
+
+  // Increment when the file format changes
+  private static final int FORMAT_VERSION = 1;
+
+  private static final GenericVersionScheme versionScheme = new GenericVersionScheme();
+
+  @Nullable private final Path directory;
+  private final Duration timeToLive;
+  private final boolean offline;
+  private final Clock clock;
+
+  private final ConcurrentMap<String, Entry> entries = new ConcurrentHashMap<>();
+
+  /**
+   * Creates a cache.
+   *
+   * @param directory directory to persist the entries across runs. If null, entries are kept only
+   *     in memory.
+   * @param timeToLive duration for which an entry is fresh
+   * @param offline if true, the cache returns stale entries instead of resolving them again
+   */
+  public VersionMetadataCache(@Nullable Path directory, Duration timeToLive, boolean offline) {
+    this(directory, timeToLive, offline, Clock.systemUTC());
+  }
+
+  @VisibleForTesting
+  VersionMetadataCache(
+      @Nullable Path directory, Duration timeToLive, boolean offline, Clock clock) {
+    checkArgument(!timeToLive.isNegative(), "timeToLive must not be negative");
+    this.directory = directory;
+    this.timeToLive = timeToLive;
+    this.offline = offline;
+    this.clock = checkNotNull(clock);
+  }
+
+  /**
+   * Creates a cache in {@code directory} configured by the {@link #TIME_TO_LIVE_PROPERTY} and
+   * {@link #OFFLINE_PROPERTY} system properties. The time-to-live is one hour by default.
+   */
+  static VersionMetadataCache fromSystemProperties(@Nullable Path directory) {
+    String timeToLive = System.getProperty(TIME_TO_LIVE_PROPERTY);
+    return new VersionMetadataCache(
+        directory,
+        timeToLive == null ? DEFAULT_TIME_TO_LIVE : Duration.parse(timeToLive),
+        Boolean.getBoolean(OFFLINE_PROPERTY));
+  }
+
+  /**
+   * Returns the versions available for {@code groupId:artifactId} in {@code repository}, in
+   * ascending order with regard to {@link GenericVersionScheme}. The highest version comes last.
+   *
+   * @param session session to resolve the versions when the cache does not have a fresh entry
+   * @throws MavenRepositoryException if the versions cannot be resolved, for example because of a
+   *     network error, and the cache does not have a stale entry to return instead
+   */
+  public ImmutableList<Version> getVersions(
+      RepositorySystem repositorySystem,
+      RepositorySystemSession session,
+      RemoteRepository repository,
+      String groupId,
+      String artifactId)
+      throws MavenRepositoryException {
+    String key = repository.getUrl() + " " + groupId + ":" + artifactId;
+    long now = clock.millis();
+
+    Entry entry = entries.get(key);
+    if (entry == null && directory != null) {
+      entry = readEntry(entryFile(directory, repository, groupId, artifactId));
+      if (entry != null) {
+        entries.putIfAbsent(key, entry);
+      }
+    }
+    if (entry != null && (offline || now - entry.resolvedMillis < timeToLive.toMillis())) {
+      return entry.versions;
+    }
+
+    DefaultRepositorySystemSession resolutionSession = new DefaultRepositorySystemSession(session);
+    if (offline) {
+      // Only the maven-metadata.xml files already in the local repository are read
+      resolutionSession.setOffline(true);
+    } else {
+      // This cache decides when to check the repository, instead of the session's update policy.
+      // The update checks recorded in the session data would skip the check.
+      resolutionSession.setUpdatePolicy(RepositoryPolicy.UPDATE_POLICY_ALWAYS);
+      resolutionSession.setData(new DefaultSessionData());
+    }
+    VersionRangeResult result =
+        resolveVersionRange(repositorySystem, resolutionSession, repository, groupId, artifactId);
+    ImmutableList<Version> versions = ImmutableList.copyOf(result.getVersions());
+    // Missing maven-metadata.xml files, such as the one of the local repository, are not failures
+    ImmutableList<Exception> failures =
+        result.getExceptions().stream()
+            .filter(exception -> !(exception instanceof MetadataNotFoundException))
+            .collect(toImmutableList());
+    if (!failures.isEmpty()) {
+      // Failures such as network errors should not hide the versions until the entry expires
+      if (!versions.isEmpty()) {
+        return versions;
+      }
+      if (entry != null) {
+        return entry.versions;
+      }
+      MavenRepositoryException exception =
+          new MavenRepositoryException(
+              "Failed to resolve the versions of "
+                  + groupId
+                  + ":"
+                  + artifactId
+                  + " in "
+                  + repository.getUrl(),
+              failures.get(0));
+      failures.stream().skip(1).forEach(exception::addSuppressed);
+      throw exception;
+    }
+    Entry newEntry = new Entry(now, versions);
+    entries.put(key, newEntry);
+    if (directory != null) {
+      writeEntry(entryFile(directory, repository, groupId, artifactId), newEntry);
+    }
+    return versions;
+  }
+
+  /**
+   * Returns the versions in {@code versionRange}, such as {@code [1.0,2.0)}, available for {@code
+   * groupId:artifactId} in {@code repository} in ascending order.
+   *
+   * @throws InvalidVersionSpecificationException if {@code versionRange} is not a valid range
+   */
+  public ImmutableList<Version> getVersions(
+      RepositorySystem repositorySystem,
+      RepositorySystemSession session,
+      RemoteRepository repository,
+      String groupId,
+      String artifactId,
+      String versionRange)
+      throws MavenRepositoryException, InvalidVersionSpecificationException {
+    VersionConstraint constraint = versionScheme.parseVersionConstraint(versionRange);
+    return getVersions(repositorySystem, session, repository, groupId, artifactId).stream()
+        .filter(constraint::containsVersion)
+        .collect(toImmutableList());
+  }
+
+  private static VersionRangeResult resolveVersionRange(
+      RepositorySystem repositorySystem,
+      RepositorySystemSession session,
+      RemoteRepository repository,
+      String groupId,
+      String artifactId)
+      throws MavenRepositoryException {
+    Artifact artifactWithVersionRange = new DefaultArtifact(groupId, artifactId, null, "(,]");
+    VersionRangeRequest request =
+        new VersionRangeRequest(artifactWithVersionRange, ImmutableList.of(repository), null);
+    try {
+      return repositorySystem.resolveVersionRange(session, request);
+    } catch (VersionRangeResolutionException ex) {
+      throw new MavenRepositoryException(ex);
+    }
+  }
+
+  @VisibleForTesting
+  static Path entryFile(
+      Path directory, RemoteRepository repository, String groupId, String artifactId) {
+    // Repository URLs have characters not allowed in file names
+    String repositoryDirectory =
+        Hashing.sha256().hashString(repository.getUrl(), StandardCharsets.UTF_8).toString();
+    return directory
+        .resolve(repositoryDirectory.substring(0, 16))
+        .resolve(groupId)
+        .resolve(artifactId + ".versions");
+  }
+
+  /** Returns the entry in {@code entryFile} or null if it does not exist or cannot be read. */
+  @Nullable
+  private static Entry readEntry(Path entryFile) {
+    try (DataInputStream input =
+        new DataInputStream(new BufferedInputStream(Files.newInputStream(entryFile)))) {
+      if (input.readInt() != FORMAT_VERSION) {
+        return null;
+      }
+      long resolvedMillis = input.readLong();
+      int size = input.readInt();
+      ImmutableList.Builder<Version> versions = ImmutableList.builder();
+      for (int i = 0; i < size; i++) {
+        versions.add(versionScheme.parseVersion(input.readUTF()));
+      }
+      return new Entry(resolvedMillis, versions.build());
+    } catch (NoSuchFileException ex) {
+      return null;
+    } catch (IOException | InvalidVersionSpecificationException ex) {
+      logger.fine("Ignoring unreadable cache entry " + entryFile + ": " + ex);
+      return null;
+    }
+  }
+
+  private static void writeEntry(Path entryFile, Entry entry) {
+    try {
+      Files.createDirectories(entryFile.getParent());
+      // Writing to a temporary file and then renaming it keeps concurrent readers from seeing
+      // incomplete entries.
+      Path temporaryFile = Files.createTempFile(entryFile.getParent(), "versions", ".tmp");
+      try (DataOutputStream output =
+          new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporaryFile)))) {
+        output.writeInt(FORMAT_VERSION);
+        output.writeLong(entry.resolvedMillis);
+        List<Version> versions = entry.versions;
+        output.writeInt(versions.size());
+        for (Version version : versions) {
+          output.writeUTF(version.toString());
+        }
+      }
+      Files.move(
+          temporaryFile,
+          entryFile,
+          StandardCopyOption.REPLACE_EXISTING,
+          StandardCopyOption.ATOMIC_MOVE);
+    } catch (IOException ex) {
+      // The cache is an optimization. Failing to write an entry should not fail the resolution.
+      logger.fine("Failed to write cache entry " + entryFile + ": " + ex);
+    }
+  }
+
+  private static final class Entry {
+    private final long resolvedMillis;
+    // In ascending order
+    private final ImmutableList<Version> versions;
+
+    private Entry(long resolvedMillis, ImmutableList<Version> versions) {
+      this.resolvedMillis = resolvedMillis;
+      this.versions = versions;
+    }
+  }
+}
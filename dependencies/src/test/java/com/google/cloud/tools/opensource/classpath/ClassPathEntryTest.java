@@ -138,6 +138,16 @@ public class ClassPathEntryTest {
     }  
   }
 
+  @Test
+  public void testGetClassNames_directory() throws IOException, URISyntaxException {
+    ClassPathEntry jarEntry = TestHelper.classPathEntryOfResource("testdata/gax-1.48.1.jar");
+    ClassPathEntry directoryEntry =
+        new ClassPathEntry(TestHelper.extractClassFiles("testdata/gax-1.48.1.jar"));
+
+    Truth.assertThat(directoryEntry.getFileNames())
+        .containsExactlyElementsIn(jarEntry.getFileNames());
+  }
+
   private static Artifact resolveArtifact(String coordinates) throws ArtifactResolutionException {
     RepositorySystem system = RepositoryUtility.newRepositorySystem();
     RepositorySystemSession session = RepositoryUtility.newSession(system);
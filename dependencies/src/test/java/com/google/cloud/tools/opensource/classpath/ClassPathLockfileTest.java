@@ -0,0 +1,158 @@
+/*
+ * Copyright 2020 Google LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.opensource.classpath;
+
+import static com.google.cloud.tools.opensource.classpath.TestHelper.absolutePathOfResource;
+import static org.junit.Assert.assertEquals;
+
+import com.google.cloud.tools.opensource.dependencies.DependencyGraph;
+import com.google.cloud.tools.opensource.dependencies.DependencyPath;
+import com.google.cloud.tools.opensource.dependencies.UnresolvableArtifactProblem;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableListMultimap;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.eclipse.aether.artifact.Artifact;
+import org.eclipse.aether.artifact.DefaultArtifact;
+import org.eclipse.aether.graph.DefaultDependencyNode;
+import org.eclipse.aether.graph.Dependency;
+import org.eclipse.aether.graph.Exclusion;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ClassPathLockfileTest {
+
+  private static final ImmutableList<String> INPUTS =
+      ImmutableList.of("artifact:com.google.api:gax:1.48.1", "repository:https://example.com");
+
+  private Path gaxJar;
+  private Artifact gax;
+  private Artifact apiCommon;
+  private ClassPathResult classPathResult;
+  private DependencyGraph dependencyGraph;
+  private DependencyPath pathToGax;
+  private DependencyPath pathToApiCommon;
+  private DependencyPath pathToGuava;
+
+  @Before
+  public void setUp() throws IOException, URISyntaxException {
+    Path directory = Files.createTempDirectory("class-path-lockfile");
+    gaxJar = directory.resolve("gax-1.48.1.jar");
+    Files.copy(absolutePathOfResource("testdata/gax-1.48.1.jar"), gaxJar);
+    Path apiCommonJar = directory.resolve("api-common-1.7.0.jar");
+    Files.copy(absolutePathOfResource("testdata/api-common-1.7.0.jar"), apiCommonJar);
+
+    gax = new DefaultArtifact("com.google.api:gax:1.48.1").setFile(gaxJar.toFile());
+    apiCommon =
+        new DefaultArtifact("com.google.api:api-common:1.7.0").setFile(apiCommonJar.toFile());
+    Artifact guava = new DefaultArtifact("com.google.guava:guava:28.0-android");
+
+    Dependency gaxDependency = new Dependency(gax, "compile");
+    Dependency apiCommonDependency =
+        new Dependency(
+            apiCommon,
+            "compile",
+            true,
+            ImmutableList.of(new Exclusion("com.google.guava", "guava", "", "jar")));
+    Dependency guavaDependency = new Dependency(guava, "runtime");
+    DefaultDependencyNode gaxNode = new DefaultDependencyNode(gaxDependency);
+    gaxNode.setChildren(
+        ImmutableList.of(
+            new DefaultDependencyNode(apiCommonDependency),
+            new DefaultDependencyNode(guavaDependency)));
+    // The root of the dependency tree of multiple artifacts does not have an artifact
+    DefaultDependencyNode root = new DefaultDependencyNode((Dependency) null);
+    root.setChildren(ImmutableList.of(gaxNode));
+    dependencyGraph = DependencyGraph.from(root);
+
+    pathToGax = new DependencyPath(null).append(gaxDependency);
+    pathToApiCommon = pathToGax.append(apiCommonDependency);
+    pathToGuava = pathToGax.append(guavaDependency);
+
+    AnnotatedClassPath annotatedClassPath =
+        AnnotatedClassPath.fromMultimap(
+            ImmutableListMultimap.of(
+                new ClassPathEntry(gax),
+                pathToGax,
+                new ClassPathEntry(apiCommon),
+                pathToApiCommon));
+    classPathResult =
+        new ClassPathResult(
+            annotatedClassPath,
+            ImmutableList.of(new UnresolvableArtifactProblem(guava)),
+            dependencyGraph);
+  }
+
+  @Test
+  public void testWriteAndRead() throws IOException {
+    Path lockfilePath = Files.createTempFile("class-path", ".lock");
+    ClassPathLockfile.create(INPUTS, ImmutableList.of(gax), classPathResult).write(lockfilePath);
+
+    ClassPathLockfile lockfile = ClassPathLockfile.read(lockfilePath);
+
+    assertEquals(ImmutableList.of(gax), lockfile.getArtifacts());
+    ClassPathResult result = lockfile.getClassPathResult();
+    assertEquals(classPathResult.getClassPath(), result.getClassPath());
+    for (ClassPathEntry entry : classPathResult.getClassPath()) {
+      assertEquals(classPathResult.getDependencyPaths(entry), result.getDependencyPaths(entry));
+    }
+    assertEquals(classPathResult.getArtifactProblems(), result.getArtifactProblems());
+    DependencyGraph graph = result.getDependencyGraph();
+    assertEquals(dependencyGraph.list(), graph.list());
+    assertEquals(ImmutableList.of(pathToApiCommon, pathToGuava), graph.getChildren(pathToGax));
+
+    DependencyPath readPathToApiCommon =
+        result.getDependencyPaths(new ClassPathEntry(apiCommon)).get(0);
+    assertEquals(gax, readPathToApiCommon.findExclusion("com.google.guava", "guava"));
+    Assert.assertTrue(lockfile.isUpToDate(INPUTS));
+  }
+
+  @Test
+  public void testIsUpToDate_differentInputs() throws IOException {
+    ClassPathLockfile lockfile =
+        ClassPathLockfile.create(INPUTS, ImmutableList.of(gax), classPathResult);
+
+    Assert.assertFalse(
+        lockfile.isUpToDate(ImmutableList.of("artifact:com.google.api:gax:1.48.1")));
+  }
+
+  @Test
+  public void testIsUpToDate_fileChanged() throws IOException {
+    ClassPathLockfile lockfile =
+        ClassPathLockfile.create(INPUTS, ImmutableList.of(gax), classPathResult);
+
+    Files.write(gaxJar, new byte[] {0});
+
+    Assert.assertFalse(lockfile.isUpToDate(INPUTS));
+  }
+
+  @Test
+  public void testRead_invalidFile() throws IOException {
+    Path lockfilePath = Files.createTempFile("class-path", ".lock");
+    Files.write(lockfilePath, new byte[] {1, 2, 3, 4, 5, 6, 7, 8});
+
+    try {
+      ClassPathLockfile.read(lockfilePath);
+      Assert.fail("Reading an invalid lockfile should throw IOException");
+    } catch (IOException expected) {
+      assertEquals("Not a class path lockfile", expected.getMessage());
+    }
+  }
+}
@@ -17,12 +17,15 @@
 package com.google.cloud.tools.opensource.classpath;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 
 import com.google.cloud.tools.opensource.dependencies.DependencyPath;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableListMultimap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.UnmodifiableIterator;
+import java.io.IOException;
+import java.net.URISyntaxException;
 import java.nio.file.Paths;
 import org.eclipse.aether.artifact.Artifact;
 import org.eclipse.aether.artifact.DefaultArtifact;
@@ -130,4 +133,43 @@ public class ClassPathResultTest {
     UnmodifiableIterator<ClassPathEntry> iterator = classPathEntries.iterator();
     assertEquals(Paths.get("a.jar"), iterator.next().getJar());
   }
+
+  @Test
+  public void testFindEntryById() {
+    Artifact artifactA2 =
+        new DefaultArtifact("com.google:a:2").setFile(Paths.get("a2.jar").toFile());
+    ClassPathEntry jarA2 = new ClassPathEntry(artifactA2);
+    AnnotatedClassPath annotatedClassPath =
+        AnnotatedClassPath.fromMultimap(
+            ImmutableListMultimap.of(
+                jarB, dependencyPath_B,
+                jarA, dependencyPath_A,
+                jarA2, dependencyPath_B_A));
+
+    ClassPathResult result = new ClassPathResult(annotatedClassPath, ImmutableSet.of());
+
+    // The first entry in the class path wins
+    assertEquals(jarA, result.findEntryById("com.google", "a"));
+    assertEquals(jarB, result.findEntryById("com.google", "b"));
+    assertNull(result.findEntryById("com.google", "c"));
+  }
+
+  @Test
+  public void testFindEntryBySymbol() throws IOException, URISyntaxException {
+    Artifact guava =
+        new DefaultArtifact("com.google.guava:guava:23.5-jre")
+            .setFile(TestHelper.absolutePathOfResource("testdata/guava-23.5-jre.jar").toFile());
+    ClassPathEntry guavaEntry = new ClassPathEntry(guava);
+    AnnotatedClassPath annotatedClassPath =
+        AnnotatedClassPath.fromMultimap(
+            ImmutableListMultimap.of(
+                guavaEntry, new DependencyPath(null).append(new Dependency(guava, "compile"))));
+
+    ClassPathResult result = new ClassPathResult(annotatedClassPath, ImmutableSet.of());
+
+    assertEquals(
+        guavaEntry,
+        result.findEntryBySymbol(new ClassSymbol("com.google.common.collect.ImmutableList")));
+    assertNull(result.findEntryBySymbol(new ClassSymbol("com.google.Foo")));
+  }
 }
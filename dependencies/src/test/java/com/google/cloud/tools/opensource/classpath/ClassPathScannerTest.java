@@ -0,0 +1,118 @@
+/*
+ * Copyright 2020 Google LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.opensource.classpath;
+
+import static com.google.cloud.tools.opensource.classpath.TestHelper.classPathEntryOfResource;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.truth.Truth;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ClassPathScannerTest {
+
+  private ClassPathScanner classPathScanner;
+
+  @Before
+  public void setUp() {
+    classPathScanner = new ClassPathScanner(2);
+  }
+
+  @After
+  public void tearDown() {
+    classPathScanner.close();
+  }
+
+  private void assertSameAsClassDumper(ImmutableList<ClassPathEntry> classPath)
+      throws IOException {
+    SymbolReferences expected = ClassDumper.create(classPath).findSymbolReferences();
+
+    SymbolReferences actual =
+        classPathScanner.findSymbolReferences(ClassDumper.create(classPath), classPath);
+
+    Assert.assertEquals(expected, actual);
+    Truth.assertThat(actual.getClassFiles()).containsExactlyElementsIn(expected.getClassFiles());
+  }
+
+  @Test
+  public void testFindSymbolReferences_overlappingClasses()
+      throws IOException, URISyntaxException {
+    // Both JAR files have com.google.cloud.firestore classes
+    assertSameAsClassDumper(
+        ImmutableList.of(
+            classPathEntryOfResource("testdata/google-cloud-firestore-0.65.0-beta.jar"),
+            classPathEntryOfResource("testdata/google-cloud-firestore-0.66.0-beta.jar")));
+  }
+
+  @Test
+  public void testFindSymbolReferences_prefixedClassFirst()
+      throws IOException, URISyntaxException {
+    // This JAR file contains com.google.firestore.v1beta1.FirestoreGrpc under BOOT-INF/classes.
+    assertSameAsClassDumper(
+        ImmutableList.of(
+            classPathEntryOfResource("testdata/dummy-boot-inf-prefix.jar"),
+            classPathEntryOfResource("testdata/grpc-google-cloud-firestore-v1beta1-0.28.0.jar")));
+  }
+
+  @Test
+  public void testFindSymbolReferences_prefixedClassLast()
+      throws IOException, URISyntaxException {
+    assertSameAsClassDumper(
+        ImmutableList.of(
+            classPathEntryOfResource("testdata/grpc-google-cloud-firestore-v1beta1-0.28.0.jar"),
+            classPathEntryOfResource("testdata/dummy-boot-inf-prefix.jar")));
+  }
+
+  @Test
+  public void testFindSymbolReferences_submittedEntry() throws IOException, URISyntaxException {
+    ClassPathEntry entry = classPathEntryOfResource("testdata/gax-1.32.0.jar");
+    classPathScanner.submit(entry);
+
+    // The class path entry after the mediation is a different instance for the same JAR file
+    ImmutableList<ClassPathEntry> classPath =
+        ImmutableList.of(classPathEntryOfResource("testdata/gax-1.32.0.jar"));
+    assertSameAsClassDumper(classPath);
+  }
+
+  @Test
+  public void testFindSymbolReferences_directory() throws IOException, URISyntaxException {
+    ClassPathEntry directoryEntry =
+        new ClassPathEntry(TestHelper.extractClassFiles("testdata/gax-1.48.1.jar"));
+    ClassPathEntry jarEntry = classPathEntryOfResource("testdata/api-common-1.7.0.jar");
+    assertSameAsClassDumper(ImmutableList.of(directoryEntry, jarEntry));
+  }
+
+  @Test
+  public void testLinkageChecker_sameProblems() throws IOException, URISyntaxException {
+    ImmutableList<ClassPathEntry> classPath =
+        ImmutableList.of(
+            classPathEntryOfResource("testdata/gax-1.48.1.jar"),
+            classPathEntryOfResource("testdata/api-common-1.7.0.jar"));
+
+    LinkageChecker stagedLinkageChecker = LinkageChecker.create(classPath);
+    LinkageChecker pipelinedLinkageChecker =
+        LinkageChecker.create(
+            classPath, classPath, ImmutableList.of(), null, classPathScanner);
+
+    Truth.assertThat(pipelinedLinkageChecker.findLinkageProblems())
+        .containsExactlyElementsIn(stagedLinkageChecker.findLinkageProblems());
+  }
+}
@@ -97,4 +97,44 @@ public class GradleDependencyMediationTest {
         .containsExactly(artifactA1, artifactB1)
         .inOrder();
   }
+
+  @Test
+  public void testMediation_versionOrdering() throws InvalidVersionSpecificationException {
+    // Maven's ComparableVersion orders 1.0-20200101 lower than 1.0.1
+    Artifact artifactDated =
+        new DefaultArtifact("g:a:1.0-20200101").setFile(new File("a-1.0-20200101.jar"));
+    Artifact artifactPatch = new DefaultArtifact("g:a:1.0.1").setFile(new File("a-1.0.1.jar"));
+
+    DependencyGraph graph = new DependencyGraph(null);
+    graph.addPath(new DependencyPath(null).append(new Dependency(artifactPatch, "compile")));
+    graph.addPath(new DependencyPath(null).append(new Dependency(artifactDated, "compile")));
+    AnnotatedClassPath result = mediation.mediate(graph);
+
+    Truth.assertThat(result.getClassPath())
+        .comparingElementsUsing(CLASS_PATH_ENTRY_TO_ARTIFACT)
+        .containsExactly(artifactDated);
+  }
+
+  @Test(timeout = 20_000)
+  public void testMediation_largeGraph() throws InvalidVersionSpecificationException {
+    // With 50,000 artifacts in 2 versions each, mediation quadratic to the number of artifacts
+    // takes more than half a minute. Building the graph and the linear mediation take seconds.
+    int artifactCount = 50_000;
+    DependencyGraph graph = new DependencyGraph(null);
+    for (String version : ImmutableList.of("1.0.0", "2.0.0")) {
+      for (int i = 0; i < artifactCount; i++) {
+        Artifact artifact =
+            new DefaultArtifact("g:a" + i + ":" + version)
+                .setFile(new File("a" + i + "-" + version + ".jar"));
+        graph.addPath(new DependencyPath(null).append(new Dependency(artifact, "compile")));
+      }
+    }
+
+    AnnotatedClassPath result = mediation.mediate(graph);
+
+    Truth.assertThat(result.getClassPath()).hasSize(artifactCount);
+    for (ClassPathEntry entry : result.getClassPath()) {
+      assertEquals("2.0.0", entry.getArtifact().getVersion());
+    }
+  }
 }
@@ -16,6 +16,7 @@
 
 package com.google.cloud.tools.opensource.classpath;
 
+import com.google.common.collect.ImmutableList;
 import com.google.common.truth.Correspondence;
 import com.google.common.truth.Truth;
 import java.io.IOException;
@@ -175,4 +176,77 @@ public class LinkageCheckerArgumentsTest {
         LinkageCheckerArguments.readCommandLine("-j", "dummy.jar");
     Assert.assertNull(parsedArguments.getInputExclusionFile());
   }
+
+  @Test
+  public void testReadCommandLine_lockfile() throws ParseException {
+    LinkageCheckerArguments parsedArguments =
+        LinkageCheckerArguments.readCommandLine(
+            "-b", "com.google.cloud:libraries-bom:1.0.0", "-l", "in.lock", "--write-lockfile",
+            "out.lock");
+    Assert.assertEquals(Paths.get("in.lock"), parsedArguments.getInputLockfile());
+    Assert.assertEquals(Paths.get("out.lock"), parsedArguments.getOutputLockfile());
+    Assert.assertEquals(
+        ImmutableList.of(
+            "bom:com.google.cloud:libraries-bom:1.0.0",
+            "repository:https://repo1.maven.org/maven2/"),
+        parsedArguments.getResolutionInputs());
+  }
+
+  @Test
+  public void testReadCommandLine_transportOptions() throws ParseException {
+    LinkageCheckerArguments parsedArguments =
+        LinkageCheckerArguments.readCommandLine(
+            "-j", "dummy.jar", "--download-threads", "16", "-cs", "fail", "-ncr");
+    Assert.assertEquals(Integer.valueOf(16), parsedArguments.getDownloadThreads());
+    Assert.assertEquals("fail", parsedArguments.getChecksumPolicy());
+    Assert.assertFalse(parsedArguments.reuseConnections());
+  }
+
+  @Test
+  public void testReadCommandLine_transportOptions_unspecified() throws ParseException {
+    LinkageCheckerArguments parsedArguments =
+        LinkageCheckerArguments.readCommandLine("-j", "dummy.jar");
+    Assert.assertNull(parsedArguments.getDownloadThreads());
+    Assert.assertNull(parsedArguments.getChecksumPolicy());
+    Assert.assertTrue(parsedArguments.reuseConnections());
+  }
+
+  @Test
+  public void testReadCommandLine_invalidDownloadThreads() {
+    try {
+      LinkageCheckerArguments.readCommandLine("-j", "dummy.jar", "-dt", "0");
+      Assert.fail("Non-positive download threads should be rejected");
+    } catch (ParseException expected) {
+      Assert.assertEquals("Invalid number of download threads: 0", expected.getMessage());
+    }
+  }
+
+  @Test
+  public void testReadCommandLine_invalidChecksumPolicy() {
+    try {
+      LinkageCheckerArguments.readCommandLine("-j", "dummy.jar", "-cs", "strict");
+      Assert.fail("Unknown checksum policy should be rejected");
+    } catch (ParseException expected) {
+      // pass
+    }
+  }
+
+  @Test
+  public void testReadCommandLine_scanThreads() throws ParseException {
+    LinkageCheckerArguments parsedArguments =
+        LinkageCheckerArguments.readCommandLine("-j", "dummy.jar", "--scan-threads", "4");
+    Assert.assertEquals(Integer.valueOf(4), parsedArguments.getScanThreads());
+    Assert.assertNull(
+        LinkageCheckerArguments.readCommandLine("-j", "dummy.jar").getScanThreads());
+  }
+
+  @Test
+  public void testReadCommandLine_invalidScanThreads() {
+    try {
+      LinkageCheckerArguments.readCommandLine("-j", "dummy.jar", "-st", "many");
+      Assert.fail("Non-numeric scan threads should be rejected");
+    } catch (ParseException expected) {
+      Assert.assertEquals("Invalid number of scan threads: many", expected.getMessage());
+    }
+  }
 }
@@ -117,6 +117,56 @@ public class LinkageCheckerMainIntegrationTest {
                 + " com.google.appengine:appengine-api-1.0-sdk:1.9.71 (provided)\n");
   }
 
+  @Test
+  public void testArtifacts_sourceFilterAndReportOnlyReachable()
+      throws IOException, RepositoryException, TransformerException, XMLStreamException {
+    try {
+      // The classes of appengine-api-1.0-sdk are reachable only through the classes of
+      // google-http-client-appengine, which are not in the source filter.
+      LinkageCheckerMain.main(
+          new String[] {
+            "-a",
+            "com.google.http-client:google-http-client-appengine:1.39.2",
+            "-s",
+            "com.google.appengine:appengine-api-1.0-sdk:1.9.71",
+            "-r"
+          });
+      fail("LinkageCheckerMain should throw LinkageCheckResultException upon errors");
+    } catch (LinkageCheckResultException expected) {
+      assertEquals("Found 6 linkage errors", expected.getMessage());
+    }
+
+    Truth.assertThat(readCapturedStdout())
+        .contains(
+            "Class com.google.api.HttpRule is not found;\n"
+                + "  referenced by 1 class file\n"
+                + "    com.google.appengine.repackaged.com.google.api.AnnotationsProto"
+                + " (com.google.appengine:appengine-api-1.0-sdk:1.9.71)");
+  }
+
+  @Test
+  public void testArtifacts_optionalDependency()
+      throws IOException, RepositoryException, TransformerException, XMLStreamException {
+    try {
+      // Dom4j declares jaxen as an optional dependency
+      LinkageCheckerMain.main(new String[] {"-a", "org.dom4j:dom4j:2.1.3"});
+      fail("LinkageCheckerMain should throw LinkageCheckResultException upon errors");
+    } catch (LinkageCheckResultException expected) {
+      // pass
+    }
+
+    // Without a lockfile, the cause comes from the dependency graph of dom4j, which has jaxen
+    Truth.assertThat(readCapturedStdout())
+        .contains(
+            "Class org.jaxen.VariableContext is not found;\n"
+                + "  referenced by 1 class file\n"
+                + "    org.dom4j.swing.XMLTableDefinition (org.dom4j:dom4j:2.1.3)\n"
+                + "  Cause:\n"
+                + "    The valid symbol is in jaxen:jaxen:jar:1.1.6 at org.dom4j:dom4j:jar:2.1.3 /"
+                + " jaxen:jaxen:1.1.6 (runtime, optional) but it was not selected because the path"
+                + " contains an optional dependency\n");
+  }
+
   @Test
   public void testArtifacts_noError()
       throws IOException, RepositoryException, TransformerException, XMLStreamException,
@@ -225,6 +275,42 @@ public class LinkageCheckerMainIntegrationTest {
         output);
   }
 
+  @Test
+  public void testLockfile()
+      throws IOException, RepositoryException, TransformerException, XMLStreamException {
+    Path lockfile = Files.createTempFile("class-path", ".lock");
+    lockfile.toFile().deleteOnExit();
+    String[] arguments = {
+      "-a", "com.google.cloud:google-cloud-firestore:0.65.0-beta", "--write-lockfile",
+      lockfile.toString()
+    };
+    try {
+      LinkageCheckerMain.main(arguments);
+      fail("LinkageCheckerMain should throw LinkageCheckResultException upon errors");
+    } catch (LinkageCheckResultException expected) {
+      // pass
+    }
+    String outputWithResolution = readCapturedStdout();
+    String wroteLockfileMessage =
+        "Wrote the class path as lockfile: " + lockfile + System.lineSeparator();
+    Truth.assertThat(outputWithResolution).startsWith(wroteLockfileMessage);
+
+    capturedOutputStream.reset();
+    try {
+      LinkageCheckerMain.main(
+          new String[] {
+            "-a", "com.google.cloud:google-cloud-firestore:0.65.0-beta", "--lockfile",
+            lockfile.toString()
+          });
+      fail("LinkageCheckerMain should throw LinkageCheckResultException upon errors");
+    } catch (LinkageCheckResultException expected) {
+      // pass
+    }
+    String outputWithLockfile = readCapturedStdout();
+
+    assertEquals(outputWithResolution.substring(wroteLockfileMessage.length()), outputWithLockfile);
+  }
+
   @Test
   public void testInvalidArgument()
       throws IOException, RepositoryException, TransformerException, XMLStreamException,
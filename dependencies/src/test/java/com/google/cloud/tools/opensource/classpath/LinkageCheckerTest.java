@@ -17,8 +17,10 @@
 package com.google.cloud.tools.opensource.classpath;
 
 import static com.google.cloud.tools.opensource.classpath.TestHelper.COORDINATES;
+import static com.google.cloud.tools.opensource.classpath.TestHelper.absolutePathOfResource;
 import static com.google.cloud.tools.opensource.classpath.TestHelper.classPathEntryOfResource;
 import static com.google.common.collect.ImmutableList.toImmutableList;
+import static com.google.common.collect.ImmutableSet.toImmutableSet;
 import static com.google.common.truth.Truth.assertThat;
 import static com.google.common.truth.Truth.assertWithMessage;
 import static org.junit.Assert.assertEquals;
@@ -1368,4 +1370,128 @@ public class LinkageCheckerTest {
     ImmutableSet<LinkageProblem> problems = linkageChecker.findLinkageProblems();
     Truth.assertThat(problems.size()).isEqualTo(3);
   }
+
+  @Test
+  public void testCreate_sourceFilterReadsOnlySourceEntries()
+      throws IOException, URISyntaxException {
+    ClassPathEntry gax =
+        new ClassPathEntry(
+            new DefaultArtifact("com.google.api:gax:1.48.1")
+                .setFile(absolutePathOfResource("testdata/gax-1.48.1.jar").toFile()));
+    ImmutableList<ClassPathEntry> classPath =
+        ImmutableList.of(gax, classPathEntryOfResource("testdata/api-common-1.7.0.jar"));
+    ImmutableSet<LinkageProblem> gaxProblems =
+        LinkageChecker.create(classPath).findLinkageProblems().stream()
+            .filter(problem -> problem.getSourceClass().getClassPathEntry().equals(gax))
+            .collect(toImmutableSet());
+
+    LinkageChecker linkageChecker =
+        LinkageChecker.create(
+            classPath, classPath, ImmutableList.of(gax.getArtifact()), null, false, null);
+
+    for (ClassFile classFile : linkageChecker.getSymbolReferences().getClassFiles()) {
+      assertEquals(gax, classFile.getClassPathEntry());
+    }
+    assertThat(linkageChecker.findLinkageProblems()).containsExactlyElementsIn(gaxProblems);
+    try {
+      linkageChecker.getClassReferenceGraph();
+      fail("The graph of the references only from the source classes should not be available");
+    } catch (IllegalStateException expected) {
+      // pass
+    }
+  }
+
+  @Test
+  public void testCreate_sourceFilterWithReachability() throws IOException, URISyntaxException {
+    ClassPathEntry apiCommon =
+        new ClassPathEntry(
+            new DefaultArtifact("com.google.api:api-common:1.7.0")
+                .setFile(absolutePathOfResource("testdata/api-common-1.7.0.jar").toFile()));
+    ClassPathEntry gax = classPathEntryOfResource("testdata/gax-1.48.1.jar");
+    ImmutableList<ClassPathEntry> classPath = ImmutableList.of(gax, apiCommon);
+
+    // The classes of api-common are reachable only through the references from gax
+    LinkageChecker linkageChecker =
+        LinkageChecker.create(
+            classPath,
+            ImmutableList.of(gax),
+            ImmutableList.of(apiCommon.getArtifact()),
+            null,
+            true,
+            null);
+
+    ClassReferenceGraph graph = linkageChecker.getClassReferenceGraph();
+    assertTrue(graph.isReachable("com.google.api.core.ApiFuture"));
+  }
+
+  private static void assertSameAsFullCheck(
+      ImmutableList<ClassPathEntry> baselineClassPath,
+      ImmutableList<ClassPathEntry> snapshotClassPath)
+      throws IOException {
+    try (ClassPathScanner classPathScanner = new ClassPathScanner(2)) {
+      LinkageChecker baseline =
+          LinkageChecker.create(
+              baselineClassPath, baselineClassPath, ImmutableList.of(), null, classPathScanner);
+      ImmutableSet<LinkageProblem> baselineProblems = baseline.findLinkageProblems();
+      LinkageChecker snapshot =
+          LinkageChecker.create(
+              snapshotClassPath, snapshotClassPath, ImmutableList.of(), null, classPathScanner);
+
+      ImmutableSet<LinkageProblem> problems =
+          snapshot.findLinkageProblems(baseline, baselineProblems);
+
+      assertThat(problems)
+          .containsExactlyElementsIn(LinkageChecker.create(snapshotClassPath).findLinkageProblems());
+    }
+  }
+
+  @Test
+  public void testFindLinkageProblems_baseline_upgradedJar()
+      throws IOException, URISyntaxException {
+    assertSameAsFullCheck(
+        ImmutableList.of(
+            classPathEntryOfResource("testdata/gax-1.32.0.jar"),
+            classPathEntryOfResource("testdata/api-common-1.7.0.jar"),
+            guavaJar),
+        ImmutableList.of(
+            classPathEntryOfResource("testdata/gax-1.48.1.jar"),
+            classPathEntryOfResource("testdata/api-common-1.7.0.jar"),
+            guavaJar));
+  }
+
+  @Test
+  public void testFindLinkageProblems_baseline_removedJar()
+      throws IOException, URISyntaxException {
+    // Removing Guava introduces problems in the classes that reference Guava
+    assertSameAsFullCheck(
+        ImmutableList.of(
+            classPathEntryOfResource("testdata/gax-1.48.1.jar"),
+            classPathEntryOfResource("testdata/api-common-1.7.0.jar"),
+            guavaJar),
+        ImmutableList.of(
+            classPathEntryOfResource("testdata/gax-1.48.1.jar"),
+            classPathEntryOfResource("testdata/api-common-1.7.0.jar")));
+  }
+
+  @Test
+  public void testFindLinkageProblems_baseline_reorderedClassPath()
+      throws IOException, URISyntaxException {
+    assertSameAsFullCheck(
+        ImmutableList.of(
+            classPathEntryOfResource("testdata/google-cloud-firestore-0.65.0-beta.jar"),
+            classPathEntryOfResource("testdata/google-cloud-firestore-0.66.0-beta.jar"),
+            guavaJar),
+        ImmutableList.of(
+            guavaJar,
+            classPathEntryOfResource("testdata/google-cloud-firestore-0.66.0-beta.jar"),
+            classPathEntryOfResource("testdata/google-cloud-firestore-0.65.0-beta.jar")));
+  }
+
+  @Test
+  public void testFindLinkageProblems_baseline_sameClassPath()
+      throws IOException, URISyntaxException {
+    ImmutableList<ClassPathEntry> classPath =
+        ImmutableList.of(classPathEntryOfResource("testdata/gax-1.48.1.jar"), guavaJar);
+    assertSameAsFullCheck(classPath, classPath);
+  }
 }
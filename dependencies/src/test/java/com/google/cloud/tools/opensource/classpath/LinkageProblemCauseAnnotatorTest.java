@@ -20,16 +20,19 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
 import com.google.cloud.tools.opensource.dependencies.Artifacts;
+import com.google.cloud.tools.opensource.dependencies.DependencyGraph;
 import com.google.cloud.tools.opensource.dependencies.DependencyGraphBuilder;
 import com.google.cloud.tools.opensource.dependencies.DependencyPath;
 import com.google.cloud.tools.opensource.dependencies.RepositoryUtility;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
+import java.io.File;
 import java.io.IOException;
 import java.util.Optional;
 import org.eclipse.aether.RepositoryException;
 import org.eclipse.aether.artifact.Artifact;
 import org.eclipse.aether.artifact.DefaultArtifact;
+import org.eclipse.aether.graph.Dependency;
 import org.junit.Test;
 
 public class LinkageProblemCauseAnnotatorTest {
@@ -220,4 +223,106 @@ public class LinkageProblemCauseAnnotatorTest {
     LinkageProblemCause cause = dummyProblem.getCause();
     assertTrue(cause instanceof UnknownCause);
   }
+
+  @Test
+  public void testAnnotate_withDependencyGraph_googleApiClientAndGrpcConflict()
+      throws IOException, RepositoryException {
+    ClassPathBuilder builder = new ClassPathBuilder();
+    ClassPathResult classPathResult =
+        builder.resolve(
+            ImmutableList.of(
+                new DefaultArtifact("com.google.api-client:google-api-client:1.27.0"),
+                new DefaultArtifact("io.grpc:grpc-core:1.17.1")),
+            false,
+            DependencyMediation.MAVEN);
+
+    LinkageChecker linkageChecker = LinkageChecker.create(classPathResult.getClassPath());
+    SymbolNotFoundProblem problem =
+        (SymbolNotFoundProblem)
+            linkageChecker.findLinkageProblems().stream()
+                .filter(linkageProblem -> linkageProblem instanceof SymbolNotFoundProblem)
+                .findFirst()
+                .get();
+
+    // This does not resolve the dependency graph of grpc-core again
+    LinkageProblemCauseAnnotator.annotate(
+        classPathResult.getDependencyGraph(), classPathResult, ImmutableSet.of(problem));
+
+    LinkageProblemCause cause = problem.getCause();
+    assertEquals(DependencyConflict.class, cause.getClass());
+    DependencyConflict conflict = (DependencyConflict) cause;
+    Artifact selectedLeaf = conflict.getPathToSelectedArtifact().getLeaf();
+    assertEquals("guava", selectedLeaf.getArtifactId());
+    assertEquals("20.0", selectedLeaf.getVersion());
+
+    DependencyPath pathToUnselectedArtifact = conflict.getPathToArtifactThruSource();
+    Artifact unselectedLeaf = pathToUnselectedArtifact.getLeaf();
+    assertEquals("guava", unselectedLeaf.getArtifactId());
+    assertEquals("26.0-android", unselectedLeaf.getVersion());
+    assertEquals("grpc-core", pathToUnselectedArtifact.get(1).getArtifactId());
+  }
+
+  @Test
+  public void testAnnotate_withFullDependencyGraph_dom4jOptionalDependency()
+      throws IOException, RepositoryException {
+    ClassPathBuilder builder = new ClassPathBuilder();
+    ClassPathResult classPathResult =
+        builder.resolve(
+            ImmutableList.of(new DefaultArtifact("org.dom4j:dom4j:2.1.3")),
+            false,
+            DependencyMediation.MAVEN);
+    DependencyGraph fullDependencyGraph =
+        new DependencyGraphBuilder()
+            .buildFullDependencyGraph(
+                ImmutableList.of(new DefaultArtifact("org.dom4j:dom4j:2.1.3")));
+
+    ClassPathEntry dom4jEntry = classPathResult.getClassPath().get(0);
+    LinkageProblem problem =
+        new ClassNotFoundProblem(
+            new ClassFile(dom4jEntry, "org.dom4j.DocumentHelper"),
+            new ClassSymbol("org.jaxen.VariableContext"));
+
+    LinkageProblemCauseAnnotator.annotate(
+        fullDependencyGraph, classPathResult, ImmutableSet.of(problem));
+
+    LinkageProblemCause cause = problem.getCause();
+    assertEquals(MissingDependency.class, cause.getClass());
+    DependencyPath pathToMissingArtifact = ((MissingDependency) cause).getPathToMissingArtifact();
+    assertEquals("jaxen", pathToMissingArtifact.getLeaf().getArtifactId());
+  }
+
+  @Test
+  public void testAnnotate_withDependencyGraph_unreadableJarFile()
+      throws IOException, RepositoryException {
+    ClassPathBuilder builder = new ClassPathBuilder();
+    ClassPathResult classPathResult =
+        builder.resolve(
+            ImmutableList.of(new DefaultArtifact("org.dom4j:dom4j:2.1.3")),
+            false,
+            DependencyMediation.MAVEN);
+
+    // The JAR file of the artifact in the graph does not exist
+    Artifact missingJar =
+        new DefaultArtifact("com.example:missing:1.0")
+            .setFile(new File("nonexistent/missing-1.0.jar"));
+    DependencyGraph dependencyGraph = new DependencyGraph(null);
+    dependencyGraph.addPath(
+        new DependencyPath(null).append(new Dependency(missingJar, "compile")));
+
+    ClassPathEntry dom4jEntry = classPathResult.getClassPath().get(0);
+    LinkageProblem classNotFound =
+        new ClassNotFoundProblem(
+            new ClassFile(dom4jEntry, "org.dom4j.DocumentHelper"),
+            new ClassSymbol("org.jaxen.VariableContext"));
+    LinkageProblem otherClassNotFound =
+        new ClassNotFoundProblem(
+            new ClassFile(dom4jEntry, "org.dom4j.DocumentHelper"),
+            new ClassSymbol("org.jaxen.NamespaceContext"));
+
+    LinkageProblemCauseAnnotator.annotate(
+        dependencyGraph, classPathResult, ImmutableSet.of(classNotFound, otherClassNotFound));
+
+    assertEquals(UnknownCause.class, classNotFound.getCause().getClass());
+    assertEquals(UnknownCause.class, otherClassNotFound.getCause().getClass());
+  }
 }
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2020 Google LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.opensource.classpath;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.truth.Truth;
+import java.io.File;
+import org.eclipse.aether.artifact.DefaultArtifact;
+import org.junit.Test;
+
+public class LinkageProblemDiffTest {
+
+  private static ClassFile classFile(String coordinates, String className) {
+    return new ClassFile(
+        new ClassPathEntry(
+            new DefaultArtifact(coordinates).setFile(new File(coordinates.replace(':', '-')))),
+        className);
+  }
+
+  private static LinkageProblem classNotFound(String coordinates, String missingClassName) {
+    return new ClassNotFoundProblem(
+        classFile(coordinates, "com.example.Source"), new ClassSymbol(missingClassName));
+  }
+
+  @Test
+  public void testCompare() {
+    LinkageProblem unchanged = classNotFound("com.example:foo:1.0.0", "com.example.Unchanged");
+    LinkageProblem fixed = classNotFound("com.example:foo:1.0.0", "com.example.Fixed");
+    LinkageProblem added = classNotFound("com.example:foo:2.0.0-SNAPSHOT", "com.example.Added");
+
+    LinkageProblemDiff diff =
+        LinkageProblemDiff.compare(
+            ImmutableList.of(unchanged, fixed),
+            ImmutableList.of(
+                added, classNotFound("com.example:foo:2.0.0-SNAPSHOT", "com.example.Unchanged")));
+
+    assertFalse(diff.isEmpty());
+    Truth.assertThat(diff.getNewProblems()).containsExactly(added);
+    Truth.assertThat(diff.getFixedProblems()).containsExactly(fixed);
+  }
+
+  @Test
+  public void testCompare_otherVersions() {
+    ImmutableList<LinkageProblem> baselineProblems =
+        ImmutableList.of(
+            classNotFound("com.example:foo:1.0.0", "com.example.A"),
+            classNotFound("com.example:bar:1.0.0", "com.example.A"));
+    ImmutableList<LinkageProblem> problems =
+        ImmutableList.of(
+            classNotFound("com.example:bar:1.1.0", "com.example.A"),
+            classNotFound("com.example:foo:2.0.0", "com.example.A"));
+
+    assertTrue(LinkageProblemDiff.compare(baselineProblems, problems).isEmpty());
+  }
+
+  @Test
+  public void testCompare_otherArtifact() {
+    LinkageProblem baselineProblem = classNotFound("com.example:foo:1.0.0", "com.example.A");
+    LinkageProblem problem = classNotFound("com.example:bar:1.0.0", "com.example.A");
+
+    LinkageProblemDiff diff =
+        LinkageProblemDiff.compare(ImmutableList.of(baselineProblem), ImmutableList.of(problem));
+
+    Truth.assertThat(diff.getNewProblems()).containsExactly(problem);
+    Truth.assertThat(diff.getFixedProblems()).containsExactly(baselineProblem);
+  }
+
+  @Test
+  public void testCompare_inputOrder() {
+    ImmutableList<LinkageProblem> problems =
+        ImmutableList.of(
+            classNotFound("com.example:foo:1.0.0", "com.example.C"),
+            classNotFound("com.example:foo:1.0.0", "com.example.A"),
+            classNotFound("com.example:foo:1.0.0", "com.example.B"));
+
+    LinkageProblemDiff diff = LinkageProblemDiff.compare(ImmutableList.of(), problems);
+
+    Truth.assertThat(diff.getNewProblems()).containsExactlyElementsIn(problems).inOrder();
+    Truth.assertThat(diff.getFixedProblems()).isEmpty();
+  }
+}
@@ -0,0 +1,149 @@
+/*
+ * Copyright 2020 Google LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.opensource.classpath;
+
+import static com.google.cloud.tools.opensource.classpath.TestHelper.absolutePathOfResource;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.truth.Truth;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.eclipse.aether.artifact.DefaultArtifact;
+import org.junit.Before;
+import org.junit.Test;
+
+public class LinkageProblemStoreTest {
+
+  private static final String BOM = "com.example:example-bom:1.0.0";
+
+  private Path storeDirectory;
+  private ClassPathEntry gax;
+  private ClassPathEntry apiCommon;
+  private LinkageProblemStore store;
+
+  @Before
+  public void setUp() throws IOException, URISyntaxException {
+    storeDirectory = Files.createTempDirectory("linkage-problems");
+    gax = entry("com.google.api:gax:1.48.1", "testdata/gax-1.48.1.jar");
+    apiCommon = entry("com.google.api:api-common:1.7.0", "testdata/api-common-1.7.0.jar");
+    store = new LinkageProblemStore(storeDirectory, "1.0.0");
+  }
+
+  private static ClassPathEntry entry(String coordinates, String resourceName)
+      throws URISyntaxException {
+    return new ClassPathEntry(
+        new DefaultArtifact(coordinates).setFile(absolutePathOfResource(resourceName).toFile()));
+  }
+
+  @Test
+  public void testWriteAndRead() throws IOException {
+    ImmutableList<ClassPathEntry> classPath = ImmutableList.of(gax, apiCommon);
+    ImmutableSet<LinkageProblem> problems = LinkageChecker.create(classPath).findLinkageProblems();
+    Truth.assertThat(problems).isNotEmpty();
+
+    store.write(BOM, problems);
+
+    assertEquals(problems, store.read(BOM, classPath));
+  }
+
+  @Test
+  public void testWriteAndRead_allProblemTypes() {
+    ClassFile gaxClass = new ClassFile(gax, "com.google.api.gax.core.GaxProperties");
+    ClassFile apiCommonClass = new ClassFile(apiCommon, "com.google.api.core.ApiFuture");
+    MethodSymbol methodSymbol =
+        new MethodSymbol("com.google.api.core.ApiFuture", "get", "()Ljava/lang/Object;", true);
+    FieldSymbol fieldSymbol =
+        new FieldSymbol("com.google.api.core.ApiFuture", "FIELD", "Ljava/lang/String;");
+    ImmutableSet<LinkageProblem> problems =
+        ImmutableSet.of(
+            new ClassNotFoundProblem(gaxClass, new ClassSymbol("com.example.Missing")),
+            new SymbolNotFoundProblem(gaxClass, apiCommonClass, methodSymbol),
+            new InaccessibleClassProblem(
+                gaxClass,
+                apiCommonClass,
+                new ClassSymbol("com.google.api.core.ApiFuture"),
+                AccessModifier.PRIVATE),
+            new InaccessibleMemberProblem(
+                gaxClass, apiCommonClass, fieldSymbol, AccessModifier.DEFAULT),
+            new IncompatibleClassChangeProblem(
+                gaxClass, apiCommonClass, new InterfaceSymbol("com.google.api.core.ApiFuture")),
+            new ReturnTypeChangedProblem(gaxClass, apiCommonClass, methodSymbol, "void"),
+            new AbstractMethodProblem(gaxClass, methodSymbol, apiCommonClass));
+
+    store.write(BOM, problems);
+
+    assertEquals(problems, store.read(BOM, ImmutableList.of(gax, apiCommon)));
+  }
+
+  @Test
+  public void testRead_otherVersions() throws IOException, URISyntaxException {
+    ImmutableSet<LinkageProblem> problems =
+        ImmutableSet.of(
+            new ClassNotFoundProblem(
+                new ClassFile(gax, "com.google.api.gax.core.GaxProperties"),
+                new ClassSymbol("com.example.Missing")));
+    store.write(BOM, problems);
+
+    // The stored problems do not depend on the versions and the files of the artifacts
+    ClassPathEntry otherGax = entry("com.google.api:gax:1.32.0", "testdata/gax-1.32.0.jar");
+    ImmutableSet<LinkageProblem> readProblems =
+        store.read(BOM, ImmutableList.of(otherGax, apiCommon));
+
+    Truth.assertThat(readProblems)
+        .containsExactly(
+            new ClassNotFoundProblem(
+                new ClassFile(otherGax, "com.google.api.gax.core.GaxProperties"),
+                new ClassSymbol("com.example.Missing")));
+  }
+
+  @Test
+  public void testRead_missingEntry() {
+    ImmutableSet<LinkageProblem> problems =
+        ImmutableSet.of(
+            new ClassNotFoundProblem(
+                new ClassFile(gax, "com.google.api.gax.core.GaxProperties"),
+                new ClassSymbol("com.example.Missing")));
+    store.write(BOM, problems);
+
+    assertNull(store.read(BOM, ImmutableList.of(apiCommon)));
+  }
+
+  @Test
+  public void testRead_otherCheckerVersionOrBom() {
+    store.write(BOM, ImmutableSet.of());
+    ImmutableList<ClassPathEntry> classPath = ImmutableList.of(gax, apiCommon);
+    assertEquals(ImmutableSet.of(), store.read(BOM, classPath));
+
+    assertNull(new LinkageProblemStore(storeDirectory, "1.0.1").read(BOM, classPath));
+    assertNull(store.read("com.example:example-bom:1.0.1", classPath));
+  }
+
+  @Test
+  public void testRead_otherJavaVersion() {
+    LinkageProblemStore java8Store = new LinkageProblemStore(storeDirectory, "1.0.0", "1.8");
+    java8Store.write(BOM, ImmutableSet.of());
+    ImmutableList<ClassPathEntry> classPath = ImmutableList.of(gax, apiCommon);
+    assertEquals(ImmutableSet.of(), java8Store.read(BOM, classPath));
+
+    assertNull(new LinkageProblemStore(storeDirectory, "1.0.0", "11").read(BOM, classPath));
+  }
+}
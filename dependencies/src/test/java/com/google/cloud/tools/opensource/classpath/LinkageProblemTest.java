@@ -187,4 +187,30 @@ public class LinkageProblemTest {
         .containsExactly("java.lang.Object", "java.lang.Integer")
         .inOrder();
   }
+
+  @Test
+  public void testGetFingerprint_otherVersion() {
+    ClassPathEntry otherEntry1 =
+        new ClassPathEntry(
+            new DefaultArtifact("com.google:foo:0.0.2").setFile(new File("foo/foo-0.0.2.jar")));
+    LinkageProblem otherVersionProblem =
+        new ClassNotFoundProblem(
+            new ClassFile(otherEntry1, "java.lang.Object"), new ClassSymbol("java.lang.Integer"));
+
+    Truth.assertThat(otherVersionProblem).isNotEqualTo(classLinkageProblem1);
+    assertEquals(classLinkageProblem1.getFingerprint(), otherVersionProblem.getFingerprint());
+  }
+
+  @Test
+  public void testGetFingerprint_otherProblems() {
+    Truth.assertThat(
+            ImmutableSet.of(
+                methodLinkageProblem.getFingerprint(),
+                classLinkageProblem1.getFingerprint(),
+                classLinkageProblem2.getFingerprint(),
+                fieldLinkageProblem.getFingerprint(),
+                new ClassNotFoundProblem(source1, new ClassSymbol("java.lang.Long"))
+                    .getFingerprint()))
+        .hasSize(5);
+  }
 }
@@ -72,4 +72,25 @@ public class MavenDependencyMediationTest {
         .containsExactly(artifactA1, artifactB1)
         .inOrder();
   }
+
+  @Test
+  public void testMediation_classifiers() throws InvalidVersionSpecificationException {
+    Artifact artifactA1Tests =
+        new DefaultArtifact("g:a:jar:tests:1.0.0").setFile(new File("a-1.0.0-tests.jar"));
+    Artifact artifactA2Tests =
+        new DefaultArtifact("g:a:jar:tests:2.0.0").setFile(new File("a-2.0.0-tests.jar"));
+
+    DependencyGraph graph = new DependencyGraph(null);
+    graph.addPath(new DependencyPath(null).append(new Dependency(artifactA2Tests, "compile")));
+    graph.addPath(new DependencyPath(null).append(new Dependency(artifactA1, "compile")));
+    graph.addPath(new DependencyPath(null).append(new Dependency(artifactA1Tests, "compile")));
+    graph.addPath(new DependencyPath(null).append(new Dependency(artifactA2, "compile")));
+    AnnotatedClassPath result = mediation.mediate(graph);
+
+    // Artifacts with different classifiers are mediated separately
+    Truth.assertThat(result.getClassPath())
+        .comparingElementsUsing(CLASS_PATH_ENTRY_TO_ARTIFACT)
+        .containsExactly(artifactA2Tests, artifactA1)
+        .inOrder();
+  }
 }
@@ -0,0 +1,82 @@
+/*
+ * Copyright 2020 Google LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.opensource.classpath;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class SharedJarCacheTest {
+
+  private final SharedJarCache<String> cache = new SharedJarCache<>(100, String::length);
+  private final AtomicInteger readCount = new AtomicInteger();
+
+  private String read(Path jar) throws IOException {
+    return cache.get(
+        jar,
+        () -> {
+          readCount.incrementAndGet();
+          return new String(Files.readAllBytes(jar));
+        });
+  }
+
+  @Test
+  public void testGet_sameFile() throws IOException {
+    Path jar = Files.createTempFile("shared", ".jar");
+    Files.write(jar, "abc".getBytes());
+
+    assertEquals("abc", read(jar));
+    assertEquals("abc", read(jar));
+    assertEquals(1, readCount.get());
+  }
+
+  @Test
+  public void testGet_modifiedFile() throws IOException {
+    Path jar = Files.createTempFile("shared", ".jar");
+    Files.write(jar, "abc".getBytes());
+    Files.setLastModifiedTime(jar, FileTime.fromMillis(1_000_000));
+    assertEquals("abc", read(jar));
+
+    // A rebuilt JAR file with the same size
+    Files.write(jar, "xyz".getBytes());
+    Files.setLastModifiedTime(jar, FileTime.fromMillis(2_000_000));
+
+    assertEquals("xyz", read(jar));
+    assertEquals(2, readCount.get());
+  }
+
+  @Test
+  public void testGet_readFailure() throws IOException {
+    Path jar = Files.createTempFile("shared", ".jar");
+    try {
+      cache.get(
+          jar,
+          () -> {
+            throw new IOException("invalid JAR file");
+          });
+      Assert.fail("get should rethrow the exception of the reader");
+    } catch (IOException expected) {
+      assertEquals("invalid JAR file", expected.getMessage());
+    }
+  }
+}
@@ -22,10 +22,15 @@ import com.google.cloud.tools.opensource.dependencies.Artifacts;
 import com.google.common.collect.ImmutableList;
 import com.google.common.truth.Correspondence;
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.URISyntaxException;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
 import org.eclipse.aether.artifact.Artifact;
 import org.eclipse.aether.artifact.DefaultArtifact;
 import org.eclipse.aether.version.InvalidVersionSpecificationException;
@@ -46,6 +51,26 @@ public class TestHelper {
     return entry;
   }
 
+  /**
+   * Extracts the class files of the JAR file {@code resourceName} to a new temporary directory, as
+   * in {@code target/classes} of a Maven project.
+   */
+  static Path extractClassFiles(String resourceName) throws URISyntaxException, IOException {
+    Path directory = Files.createTempDirectory("classes");
+    try (JarFile jarFile = new JarFile(absolutePathOfResource(resourceName).toFile())) {
+      for (JarEntry jarEntry : Collections.list(jarFile.entries())) {
+        if (jarEntry.getName().endsWith(".class")) {
+          Path classFile = directory.resolve(jarEntry.getName());
+          Files.createDirectories(classFile.getParent());
+          try (InputStream inputStream = jarFile.getInputStream(jarEntry)) {
+            Files.copy(inputStream, classFile);
+          }
+        }
+      }
+    }
+    return directory;
+  }
+
   static final Correspondence<Path, String> PATH_FILE_NAMES =
       Correspondence.from(
           (actual, expected) -> actual.getFileName().toString().equals(expected),
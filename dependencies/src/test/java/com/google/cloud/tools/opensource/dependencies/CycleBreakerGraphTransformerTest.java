@@ -16,11 +16,13 @@
 
 package com.google.cloud.tools.opensource.dependencies;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 import com.google.common.collect.ImmutableList;
 import org.eclipse.aether.DefaultRepositorySystemSession;
+import org.eclipse.aether.RepositoryException;
 import org.eclipse.aether.RepositorySystem;
 import org.eclipse.aether.artifact.Artifact;
 import org.eclipse.aether.artifact.DefaultArtifact;
@@ -73,4 +75,39 @@ public class CycleBreakerGraphTransformerTest {
     assertFalse(transformer.shouldVisitChildren(node1));
     assertTrue(transformer.shouldVisitChildren(node2));
   }
+
+  @Test
+  public void testTransformGraph_removesBackEdges() throws RepositoryException {
+    DependencyNode root = new DefaultDependencyNode(new DefaultArtifact("g:root:1"));
+    DependencyNode child = new DefaultDependencyNode(new DefaultArtifact("g:child:1"));
+    DependencyNode grandchild = new DefaultDependencyNode(new DefaultArtifact("g:grandchild:1"));
+    DependencyNode rootAgain = new DefaultDependencyNode(new DefaultArtifact("g:root:1"));
+    DependencyNode childAgain = new DefaultDependencyNode(new DefaultArtifact("g:child:1"));
+    root.setChildren(ImmutableList.of(child));
+    // Two back-edges and a regular edge from the same parent
+    child.setChildren(ImmutableList.of(rootAgain, grandchild, childAgain));
+
+    new CycleBreakerGraphTransformer().transformGraph(root, null);
+
+    assertEquals(ImmutableList.of(child), root.getChildren());
+    assertEquals(ImmutableList.of(grandchild), child.getChildren());
+  }
+
+  @Test
+  public void testTransformGraph_deepGraph() throws RepositoryException {
+    // A graph deeper than the stack would allow with recursion
+    DependencyNode root = new DefaultDependencyNode(new DefaultArtifact("g:a0:1"));
+    DependencyNode node = root;
+    for (int i = 1; i < 100000; i++) {
+      DependencyNode child = new DefaultDependencyNode(new DefaultArtifact("g:a" + i + ":1"));
+      node.setChildren(ImmutableList.of(child));
+      node = child;
+    }
+    DependencyNode leaf = node;
+    leaf.setChildren(ImmutableList.of(new DefaultDependencyNode(new DefaultArtifact("g:a0:1"))));
+
+    new CycleBreakerGraphTransformer().transformGraph(root, null);
+
+    assertTrue(leaf.getChildren().isEmpty());
+  }
 }
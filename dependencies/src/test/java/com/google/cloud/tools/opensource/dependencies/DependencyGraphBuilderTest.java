@@ -31,6 +31,8 @@ import java.util.stream.Collectors;
 import org.eclipse.aether.artifact.Artifact;
 import org.eclipse.aether.artifact.DefaultArtifact;
 import org.eclipse.aether.graph.Dependency;
+import org.eclipse.aether.graph.DependencyNode;
+import org.eclipse.aether.resolution.DependencyResult;
 import org.junit.Assert;
 import org.junit.Test;
 
@@ -133,6 +135,27 @@ public class DependencyGraphBuilderTest {
     Assert.assertEquals(29, guavaCount);
   }
   
+  @Test
+  public void testResolveFullDependencyTree() {
+    DependencyResult result =
+        dependencyGraphBuilder.resolveFullDependencyTree(ImmutableList.of(datastore));
+    Truth.assertThat(DependencyGraphBuilder.findUnresolvedArtifacts(result)).isEmpty();
+
+    // The tree has a node for each path of the full dependency graph
+    Assert.assertEquals(29, countArtifactId(result.getRoot(), "guava"));
+  }
+
+  private static int countArtifactId(DependencyNode node, String artifactId) {
+    int count = 0;
+    if (node.getArtifact() != null && node.getArtifact().getArtifactId().equals(artifactId)) {
+      count++;
+    }
+    for (DependencyNode child : node.getChildren()) {
+      count += countArtifactId(child, artifactId);
+    }
+    return count;
+  }
+
   @Test
   public void testGetVerboseDependencies() {
     Dependency dependency = new Dependency(datastore, "compile");
@@ -451,4 +474,18 @@ public class DependencyGraphBuilderTest {
     assertNull(paths.get(1).get(0));
     assertEquals("com.google.api:gax:1.57.0", Artifacts.toCoordinates(paths.get(1).getLeaf()));
   }
+
+  @Test
+  public void testBuildFullDependencyGraph_concurrentCollection() {
+    ImmutableList<Artifact> artifacts = ImmutableList.of(datastore, guava, logging);
+    DependencyGraph serialGraph = dependencyGraphBuilder.buildFullDependencyGraph(artifacts);
+
+    DependencyGraphBuilder concurrentGraphBuilder = new DependencyGraphBuilder();
+    concurrentGraphBuilder.setCollectionThreads(3);
+    DependencyGraph concurrentGraph = concurrentGraphBuilder.buildFullDependencyGraph(artifacts);
+
+    Truth.assertThat(concurrentGraph.list())
+        .containsExactlyElementsIn(serialGraph.list())
+        .inOrder();
+  }
 }
@@ -0,0 +1,223 @@
+/*
+ * Copyright 2020 Google LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.opensource.dependencies;
+
+import static org.junit.Assert.assertEquals;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Iterables;
+import com.google.common.hash.Hashing;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.eclipse.aether.artifact.DefaultArtifact;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/** Tests the transport settings of {@link DependencyGraphBuilder} with a loopback HTTP server. */
+public class DependencyGraphBuilderTransportTest {
+
+  private static final int LEAF_COUNT = 8;
+
+  @Rule public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private Path repositoryDirectory;
+  private HttpServer server;
+  private ExecutorService serverExecutor;
+  private String repositoryUrl;
+
+  private final AtomicInteger jarDownloads = new AtomicInteger();
+  private final AtomicInteger maxConcurrentJarDownloads = new AtomicInteger();
+  private final AtomicInteger requestCount = new AtomicInteger();
+  private final Set<Integer> clientPorts = Collections.synchronizedSet(new HashSet<>());
+
+  @Before
+  public void setUp() throws IOException {
+    // com.example:root:1.0 depends on com.example:leaf0:1.0 ... com.example:leaf7:1.0
+    repositoryDirectory = temporaryFolder.newFolder("http-repository").toPath();
+    StringBuilder dependencies = new StringBuilder();
+    for (int i = 0; i < LEAF_COUNT; i++) {
+      String artifactId = "leaf" + i;
+      dependencies
+          .append("<dependency><groupId>com.example</groupId><artifactId>")
+          .append(artifactId)
+          .append("</artifactId><version>1.0</version></dependency>");
+      writeArtifact(artifactId, "", new byte[] {(byte) i});
+    }
+    writeArtifact("root", dependencies.toString(), new byte[] {-1});
+
+    serverExecutor = Executors.newCachedThreadPool();
+    server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+    server.setExecutor(serverExecutor);
+    server.createContext("/", this::handle);
+    server.start();
+    repositoryUrl = "http://127.0.0.1:" + server.getAddress().getPort() + "/";
+  }
+
+  @After
+  public void tearDown() {
+    server.stop(0);
+    serverExecutor.shutdownNow();
+  }
+
+  private void writeArtifact(String artifactId, String dependencies, byte[] jar)
+      throws IOException {
+    String pom =
+        "<project><modelVersion>4.0.0</modelVersion><groupId>com.example</groupId>"
+            + "<artifactId>"
+            + artifactId
+            + "</artifactId><version>1.0</version><dependencies>"
+            + dependencies
+            + "</dependencies></project>";
+    Path directory = repositoryDirectory.resolve("com/example/" + artifactId + "/1.0");
+    writeWithChecksum(
+        directory.resolve(artifactId + "-1.0.pom"), pom.getBytes(StandardCharsets.UTF_8));
+    writeWithChecksum(directory.resolve(artifactId + "-1.0.jar"), jar);
+  }
+
+  private static void writeWithChecksum(Path file, byte[] content) throws IOException {
+    Files.createDirectories(file.getParent());
+    Files.write(file, content);
+    String checksum = Hashing.sha1().hashBytes(content).toString();
+    Files.write(
+        Paths.get(file + ".sha1"), checksum.getBytes(StandardCharsets.UTF_8));
+  }
+
+  private void handle(HttpExchange exchange) throws IOException {
+    requestCount.incrementAndGet();
+    clientPorts.add(exchange.getRemoteAddress().getPort());
+    Path file = repositoryDirectory.resolve(exchange.getRequestURI().getPath().substring(1));
+    boolean isJar = file.toString().endsWith(".jar");
+    try {
+      if (isJar) {
+        maxConcurrentJarDownloads.accumulateAndGet(jarDownloads.incrementAndGet(), Math::max);
+        // Slow downloads let concurrent requests overlap
+        Thread.sleep(100);
+      }
+      if (!Files.isRegularFile(file)) {
+        exchange.sendResponseHeaders(404, -1);
+      } else {
+        byte[] content = Files.readAllBytes(file);
+        exchange.sendResponseHeaders(200, content.length);
+        if (!"HEAD".equals(exchange.getRequestMethod())) {
+          exchange.getResponseBody().write(content);
+        }
+      }
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+    } finally {
+      if (isJar) {
+        jarDownloads.decrementAndGet();
+      }
+      exchange.close();
+    }
+  }
+
+  private DependencyGraph buildGraph(DependencyGraphBuilder builder) throws IOException {
+    builder.setLocalRepository(temporaryFolder.newFolder().toPath());
+    return builder.buildFullDependencyGraph(
+        ImmutableList.of(new DefaultArtifact("com.example:root:1.0")));
+  }
+
+  @Test
+  public void testDownloadThreads_concurrent() throws IOException {
+    DependencyGraphBuilder builder = new DependencyGraphBuilder(ImmutableList.of(repositoryUrl));
+    builder.setDownloadThreads(LEAF_COUNT);
+
+    DependencyGraph graph = buildGraph(builder);
+
+    assertEquals(LEAF_COUNT + 1, graph.list().size());
+    Assert.assertTrue(graph.getUnresolvedArtifacts().isEmpty());
+    Assert.assertTrue(maxConcurrentJarDownloads.get() > 1);
+  }
+
+  @Test
+  public void testDownloadThreads_sequential() throws IOException {
+    DependencyGraphBuilder builder = new DependencyGraphBuilder(ImmutableList.of(repositoryUrl));
+    builder.setDownloadThreads(1);
+
+    DependencyGraph graph = buildGraph(builder);
+
+    Assert.assertTrue(graph.getUnresolvedArtifacts().isEmpty());
+    assertEquals(1, maxConcurrentJarDownloads.get());
+  }
+
+  @Test
+  public void testReuseConnections() throws IOException {
+    DependencyGraphBuilder builder = new DependencyGraphBuilder(ImmutableList.of(repositoryUrl));
+    builder.setDownloadThreads(1);
+    builder.setReuseConnections(true);
+
+    buildGraph(builder);
+
+    // All requests go through one kept-alive connection
+    assertEquals(1, clientPorts.size());
+    Assert.assertTrue(requestCount.get() > 1);
+  }
+
+  @Test
+  public void testChecksumPolicy() throws IOException {
+    Files.write(
+        repositoryDirectory.resolve("com/example/leaf3/1.0/leaf3-1.0.jar.sha1"),
+        "0000000000000000000000000000000000000000".getBytes(StandardCharsets.UTF_8));
+
+    DependencyGraphBuilder failingBuilder =
+        new DependencyGraphBuilder(ImmutableList.of(repositoryUrl));
+    failingBuilder.setChecksumPolicy(repositoryUrl, "fail");
+    Set<UnresolvableArtifactProblem> problems = buildGraph(failingBuilder).getUnresolvedArtifacts();
+    assertEquals(
+        "com.example:leaf3:jar:1.0",
+        Iterables.getOnlyElement(problems).getArtifact().toString());
+
+    DependencyGraphBuilder ignoringBuilder =
+        new DependencyGraphBuilder(ImmutableList.of(repositoryUrl));
+    ignoringBuilder.setChecksumPolicy(repositoryUrl, "ignore");
+    Assert.assertTrue(buildGraph(ignoringBuilder).getUnresolvedArtifacts().isEmpty());
+  }
+
+  @Test
+  public void testSetChecksumPolicy_invalidArguments() {
+    DependencyGraphBuilder builder = new DependencyGraphBuilder(ImmutableList.of(repositoryUrl));
+    try {
+      builder.setChecksumPolicy(repositoryUrl, "strict");
+      Assert.fail("Unknown checksum policy should be rejected");
+    } catch (IllegalArgumentException expected) {
+      // pass
+    }
+    try {
+      builder.setChecksumPolicy("https://example.com/maven2", "fail");
+      Assert.fail("Unknown repository should be rejected");
+    } catch (IllegalArgumentException expected) {
+      // pass
+    }
+  }
+}
@@ -16,12 +16,14 @@
 
 package com.google.cloud.tools.opensource.dependencies;
 
+import com.google.common.collect.ImmutableList;
 import com.google.common.truth.Truth;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import org.eclipse.aether.artifact.Artifact;
 import org.eclipse.aether.artifact.DefaultArtifact;
+import org.eclipse.aether.graph.DefaultDependencyNode;
 import org.eclipse.aether.graph.Dependency;
 import org.junit.Assert;
 import org.junit.Before;
@@ -114,4 +116,37 @@ public class DependencyGraphTest {
     Truth.assertThat(paths).containsExactly(path3, path5);
   }
 
+  @Test
+  public void testCreateUnresolvableArtifactProblems() {
+    // root - bar - baz1
+    //      \ bat1 - baz2
+    DefaultDependencyNode root = new DefaultDependencyNode(new Dependency(foo, "compile"));
+    DefaultDependencyNode barNode = new DefaultDependencyNode(new Dependency(bar, "compile"));
+    DefaultDependencyNode bat1Node = new DefaultDependencyNode(new Dependency(bat1, "compile"));
+    barNode.setChildren(
+        ImmutableList.of(new DefaultDependencyNode(new Dependency(baz1, "compile"))));
+    bat1Node.setChildren(
+        ImmutableList.of(new DefaultDependencyNode(new Dependency(baz2, "compile"))));
+    root.setChildren(ImmutableList.of(barNode, bat1Node));
+    DependencyGraph dependencyGraph = DependencyGraph.from(root);
+    Artifact missing = new DefaultArtifact("com.google:missing:1");
+
+    List<UnresolvableArtifactProblem> problems =
+        dependencyGraph.createUnresolvableArtifactProblems(ImmutableList.of(baz2, missing, bar));
+
+    Assert.assertEquals(
+        ImmutableList.of(
+            dependencyGraph.createUnresolvableArtifactProblem(baz2),
+            dependencyGraph.createUnresolvableArtifactProblem(missing),
+            dependencyGraph.createUnresolvableArtifactProblem(bar)),
+        problems);
+    Assert.assertEquals(
+        "com.google:baz:jar:2 was not resolved. Dependency path: "
+            + "com.google:foo:jar:1 (compile) > com.google:bat:jar:1 (compile) > "
+            + "com.google:baz:jar:2 (compile)",
+        problems.get(0).toString());
+    Assert.assertEquals(
+        "com.google:missing:jar:1 was not resolved. Dependency path is unknown.",
+        problems.get(1).toString());
+  }
 }
@@ -84,6 +84,15 @@ public class DependencyPathTest {
     Assert.assertEquals(bar, path.get(2));
   }
 
+  @Test
+  public void testGetDependencies() {
+    Assert.assertEquals(
+        ImmutableList.of(pathRootFooBar.getDependency(0), pathRootFooBar.getDependency(1)),
+        pathRootFooBar.getDependencies());
+    Assert.assertEquals(foo, pathRootFooBar.getDependencies().get(0).getArtifact());
+    Assert.assertTrue(new DependencyPath(root).getDependencies().isEmpty());
+  }
+
   @Test
   public void testGetParentPath() {
     DependencyPath parent = pathNullRootFooBar.getParentPath();
@@ -241,4 +250,35 @@ public class DependencyPathTest {
     Assert.assertNull(path.findExclusion("g1", "abc"));
     Assert.assertNull(path.findExclusion("abc", "a1"));
   }
+
+  @Test
+  public void testContainsArtifactKey() {
+    Assert.assertTrue(pathRootFooBar.containsArtifactKey("a:b"));
+    Assert.assertTrue(pathRootFooBar.containsArtifactKey("com.google:foo"));
+    Assert.assertTrue(pathRootFooBar.containsArtifactKey("com.google:bar"));
+    Assert.assertFalse(pathRootFooBar.containsArtifactKey("com.google:baz"));
+    Assert.assertFalse(pathNullRootFooBar.containsArtifactKey("a:b"));
+  }
+
+  @Test
+  public void testDistanceFromAncestor() {
+    Assert.assertEquals(2, pathRootFooBar.distanceFromAncestor("a:b", "1"));
+    Assert.assertEquals(1, pathRootFooBar.distanceFromAncestor("com.google:foo", "1"));
+    // The leaf is not an ancestor
+    Assert.assertEquals(-1, pathRootFooBar.distanceFromAncestor("com.google:bar", "1"));
+    Assert.assertEquals(-1, pathRootFooBar.distanceFromAncestor("com.google:foo", "2"));
+    Assert.assertEquals(-1, pathNullRootFooBar.distanceFromAncestor("a:b", "1"));
+  }
+
+  @Test
+  public void testAppend_sharesParent() {
+    DependencyPath parent = new DependencyPath(root).append(new Dependency(foo, "compile"));
+    DependencyPath child1 = parent.append(new Dependency(bar, "compile"));
+    DependencyPath child2 = parent.append(new Dependency(bar, "test"));
+
+    Assert.assertSame(parent, child1.getParentPath());
+    Assert.assertSame(parent, child2.getParentPath());
+    Assert.assertEquals(2, parent.size());
+    Assert.assertNotEquals(child1, child2);
+  }
 }
@@ -0,0 +1,144 @@
+/*
+ * Copyright 2020 Google LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.opensource.dependencies;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import org.eclipse.aether.artifact.Artifact;
+import org.eclipse.aether.artifact.DefaultArtifact;
+import org.eclipse.aether.graph.DefaultDependencyNode;
+import org.eclipse.aether.graph.Dependency;
+import org.junit.Before;
+import org.junit.Test;
+
+public class DependencyTreeWriterTest {
+
+  private DefaultDependencyNode root;
+
+  @Before
+  public void setUp() {
+    // root -> a -> c -> d
+    //      -> b -> c -> d
+    //           -> root:2 (same groupId and artifactId as the root)
+    //           -> d
+    root = new DefaultDependencyNode(new DefaultArtifact("g:root:1"));
+    DefaultDependencyNode a = node("g:a:1");
+    DefaultDependencyNode b = node("g:b:1");
+    DefaultDependencyNode c = node("g:c:1");
+    DefaultDependencyNode d = node("g:d:1");
+    root.getChildren().add(a);
+    root.getChildren().add(b);
+    a.getChildren().add(c);
+    b.getChildren().add(c);
+    b.getChildren().add(node("g:root:2"));
+    b.getChildren().add(d);
+    c.getChildren().add(d);
+  }
+
+  private static DefaultDependencyNode node(String coordinates) {
+    return new DefaultDependencyNode(new Dependency(new DefaultArtifact(coordinates), "compile"));
+  }
+
+  private static String write(
+      DependencyTreeWriter treeWriter, StringWriter writer, DefaultDependencyNode root)
+      throws IOException {
+    treeWriter.write(root);
+    return writer.toString();
+  }
+
+  @Test
+  public void testWrite_sameAsFormatter() throws IOException {
+    StringWriter writer = new StringWriter();
+
+    String actual = write(new DependencyTreeWriter(writer), writer, root);
+
+    assertEquals(
+        DependencyTreeFormatter.formatDependencyPaths(DependencyGraph.from(root).list()), actual);
+  }
+
+  @Test
+  public void testWrite_nullRootArtifact() throws IOException {
+    DefaultDependencyNode pseudoRoot = new DefaultDependencyNode((Artifact) null);
+    pseudoRoot.getChildren().add(node("g:a:1"));
+    StringWriter writer = new StringWriter();
+
+    String actual = write(new DependencyTreeWriter(writer), writer, pseudoRoot);
+
+    assertEquals("  g:a:jar:1\n", actual);
+  }
+
+  @Test
+  public void testWrite_maxDepth() throws IOException {
+    StringWriter writer = new StringWriter();
+
+    String actual = write(new DependencyTreeWriter(writer).setMaxDepth(1), writer, root);
+
+    assertEquals("  g:root:jar:1\n" + "    g:a:jar:1\n" + "    g:b:jar:1\n", actual);
+  }
+
+  @Test
+  public void testWrite_maxChildren() throws IOException {
+    StringWriter writer = new StringWriter();
+
+    String actual = write(new DependencyTreeWriter(writer).setMaxChildren(1), writer, root);
+
+    assertEquals(
+        "  g:root:jar:1\n"
+            + "    g:a:jar:1\n"
+            + "      g:c:jar:1\n"
+            + "        g:d:jar:1\n"
+            + "    ... (1 more)\n",
+        actual);
+  }
+
+  @Test
+  public void testWrite_collapseRepeatedSubtrees() throws IOException {
+    StringWriter writer = new StringWriter();
+
+    String actual =
+        write(new DependencyTreeWriter(writer).setCollapseRepeatedSubtrees(true), writer, root);
+
+    assertEquals(
+        "  g:root:jar:1\n"
+            + "    g:a:jar:1\n"
+            + "      g:c:jar:1\n"
+            + "        g:d:jar:1\n"
+            + "    g:b:jar:1\n"
+            + "      g:c:jar:1 (repeated)\n"
+            + "      g:d:jar:1\n",
+        actual);
+  }
+
+  @Test
+  public void testWrite_deepTree() throws IOException {
+    DefaultDependencyNode deepRoot = new DefaultDependencyNode((Artifact) null);
+    DefaultDependencyNode current = deepRoot;
+    for (int i = 0; i < 5000; i++) {
+      DefaultDependencyNode child = node("g:a" + i + ":1");
+      current.getChildren().add(child);
+      current = child;
+    }
+    StringWriter writer = new StringWriter();
+
+    String actual = write(new DependencyTreeWriter(writer), writer, deepRoot);
+
+    // A recursive formatter would overflow the stack
+    assertEquals(5000, actual.split("\n").length);
+  }
+}
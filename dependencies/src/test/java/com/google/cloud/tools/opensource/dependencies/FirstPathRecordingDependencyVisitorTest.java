@@ -0,0 +1,67 @@
+/*
+ * Copyright 2020 Google LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.opensource.dependencies;
+
+import static org.junit.Assert.assertEquals;
+
+import com.google.common.collect.ImmutableList;
+import org.eclipse.aether.artifact.DefaultArtifact;
+import org.eclipse.aether.graph.DefaultDependencyNode;
+import org.junit.Test;
+
+public class FirstPathRecordingDependencyVisitorTest {
+
+  @Test
+  public void testFirstPaths() {
+    // This setup creates a dependency graph like below. The first path to 'y' goes through 'x',
+    // which is also an artifact to find.
+    //
+    //    root
+    //   /   \
+    //  a     b
+    //   \   /
+    //     x
+    //     |
+    //     y
+
+    DefaultDependencyNode root = new DefaultDependencyNode(new DefaultArtifact("g:r:1"));
+    DefaultDependencyNode a = new DefaultDependencyNode(new DefaultArtifact("g:a:1"));
+    DefaultDependencyNode b = new DefaultDependencyNode(new DefaultArtifact("g:b:1"));
+    DefaultDependencyNode x = new DefaultDependencyNode(new DefaultArtifact("g:x:1"));
+    DefaultDependencyNode y = new DefaultDependencyNode(new DefaultArtifact("g:y:1"));
+
+    root.setChildren(ImmutableList.of(a, b));
+    a.setChildren(ImmutableList.of(x));
+    b.setChildren(ImmutableList.of(x));
+    x.setChildren(ImmutableList.of(y));
+
+    FirstPathRecordingDependencyVisitor visitor =
+        new FirstPathRecordingDependencyVisitor(
+            ImmutableList.of(
+                new DefaultArtifact("g:x:1"),
+                new DefaultArtifact("g:y:1"),
+                new DefaultArtifact("g:b:1"),
+                new DefaultArtifact("g:z:1")));
+
+    root.accept(visitor);
+
+    assertEquals(ImmutableList.of(root, a, x), visitor.getPath(new DefaultArtifact("g:x:1")));
+    assertEquals(ImmutableList.of(root, a, x, y), visitor.getPath(new DefaultArtifact("g:y:1")));
+    assertEquals(ImmutableList.of(root, b), visitor.getPath(new DefaultArtifact("g:b:1")));
+    assertEquals(ImmutableList.of(), visitor.getPath(new DefaultArtifact("g:z:1")));
+  }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright 2020 Google LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.opensource.dependencies;
+
+import static org.junit.Assert.assertEquals;
+
+import com.google.common.collect.ImmutableList;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.eclipse.aether.DefaultRepositorySystemSession;
+import org.eclipse.aether.RepositorySystem;
+import org.eclipse.aether.artifact.Artifact;
+import org.eclipse.aether.artifact.DefaultArtifact;
+import org.eclipse.aether.resolution.ArtifactDescriptorException;
+import org.eclipse.aether.resolution.ArtifactDescriptorRequest;
+import org.eclipse.aether.resolution.ArtifactDescriptorResult;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class PersistentArtifactDescriptorReaderTest {
+
+  private final RepositorySystem system = RepositoryUtility.newRepositorySystem();
+
+  @Test
+  public void testReadArtifactDescriptor_cached() throws Exception {
+    Path cacheDirectory = Files.createTempDirectory("artifact-descriptors");
+    DefaultRepositorySystemSession session = RepositoryUtility.newSession(system);
+    session.setConfigProperty(
+        PersistentArtifactDescriptorReader.CACHE_DIRECTORY_PROPERTY, cacheDirectory.toString());
+    Artifact artifact = new DefaultArtifact("io.grpc:grpc-core:1.29.0");
+
+    ArtifactDescriptorResult firstResult = readArtifactDescriptor(session, artifact);
+    Path entryFile =
+        PersistentArtifactDescriptorReader.entryFile(cacheDirectory, session, artifact);
+    Assert.assertTrue(Files.isRegularFile(entryFile));
+
+    ArtifactDescriptorResult secondResult = readArtifactDescriptor(session, artifact);
+    Assert.assertNotSame(firstResult, secondResult);
+    assertEquals(firstResult.getDependencies(), secondResult.getDependencies());
+    assertEquals(firstResult.getManagedDependencies(), secondResult.getManagedDependencies());
+    assertEquals(firstResult.getRepositories(), secondResult.getRepositories());
+  }
+
+  @Test
+  public void testReadArtifactDescriptor_invalidEntry() throws Exception {
+    Path cacheDirectory = Files.createTempDirectory("artifact-descriptors");
+    DefaultRepositorySystemSession session = RepositoryUtility.newSession(system);
+    session.setConfigProperty(
+        PersistentArtifactDescriptorReader.CACHE_DIRECTORY_PROPERTY, cacheDirectory.toString());
+    Artifact artifact = new DefaultArtifact("io.grpc:grpc-core:1.29.0");
+    Path entryFile =
+        PersistentArtifactDescriptorReader.entryFile(cacheDirectory, session, artifact);
+    Files.createDirectories(entryFile.getParent());
+    Files.write(entryFile, new byte[] {1, 2, 3});
+
+    ArtifactDescriptorResult result = readArtifactDescriptor(session, artifact);
+
+    // The corrupted entry is ignored and overwritten
+    Assert.assertFalse(result.getDependencies().isEmpty());
+    Assert.assertTrue(Files.size(entryFile) > 3);
+  }
+
+  @Test
+  public void testReadArtifactDescriptor_environment() throws Exception {
+    Path cacheDirectory = Files.createTempDirectory("artifact-descriptors");
+    DefaultRepositorySystemSession session = RepositoryUtility.newSession(system);
+    session.setConfigProperty(
+        PersistentArtifactDescriptorReader.CACHE_DIRECTORY_PROPERTY, cacheDirectory.toString());
+    Artifact artifact = new DefaultArtifact("io.grpc:grpc-core:1.29.0");
+    readArtifactDescriptor(session, artifact);
+    Path entryFile =
+        PersistentArtifactDescriptorReader.entryFile(cacheDirectory, session, artifact);
+
+    // Profiles of another Java version or operating system may activate different dependencies
+    DefaultRepositorySystemSession anotherSession = RepositoryUtility.newSession(system);
+    anotherSession.setSystemProperty("java.version", "1.2.3");
+    Path anotherEntryFile =
+        PersistentArtifactDescriptorReader.entryFile(cacheDirectory, anotherSession, artifact);
+    Assert.assertNotEquals(entryFile, anotherEntryFile);
+    Assert.assertFalse(Files.exists(anotherEntryFile));
+
+    DefaultRepositorySystemSession userPropertySession = RepositoryUtility.newSession(system);
+    userPropertySession.setUserProperty("skipTests", "true");
+    Assert.assertNotEquals(
+        PersistentArtifactDescriptorReader.environment(session),
+        PersistentArtifactDescriptorReader.environment(userPropertySession));
+    assertEquals(
+        PersistentArtifactDescriptorReader.environment(session),
+        PersistentArtifactDescriptorReader.environment(RepositoryUtility.newSession(system)));
+  }
+
+  private ArtifactDescriptorResult readArtifactDescriptor(
+      DefaultRepositorySystemSession session, Artifact artifact)
+      throws ArtifactDescriptorException {
+    ArtifactDescriptorRequest request =
+        new ArtifactDescriptorRequest(artifact, ImmutableList.of(RepositoryUtility.CENTRAL), null);
+    return system.readArtifactDescriptor(session, request);
+  }
+}
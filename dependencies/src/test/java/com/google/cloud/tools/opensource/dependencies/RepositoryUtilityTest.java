@@ -21,6 +21,11 @@ import static org.junit.Assert.assertEquals;
 import com.google.common.collect.ImmutableList;
 import com.google.common.truth.Truth;
 import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.apache.maven.repository.internal.MavenRepositorySystemUtils;
+import org.eclipse.aether.DefaultRepositorySystemSession;
 import org.eclipse.aether.RepositorySystem;
 import org.eclipse.aether.RepositorySystemSession;
 import org.eclipse.aether.repository.RemoteRepository;
@@ -44,6 +49,42 @@ public class RepositoryUtilityTest {
     Assert.assertTrue(local.canWrite());
   }
 
+  @Test
+  public void testNewSession_sharedCache() {
+    RepositorySystem system = RepositoryUtility.newRepositorySystem();
+    RepositorySystemSession mavenSession = RepositoryUtility.newSessionForMaven(system);
+    RepositorySystemSession fullSession = RepositoryUtility.newSessionForFullDependency(system);
+
+    Assert.assertNotNull(mavenSession.getCache());
+    Assert.assertSame(mavenSession.getCache(), fullSession.getCache());
+    Assert.assertSame(
+        mavenSession.getLocalRepositoryManager(), fullSession.getLocalRepositoryManager());
+    Assert.assertSame(mavenSession.getData(), fullSession.getData());
+    Assert.assertNotSame(
+        mavenSession.getDependencySelector(), fullSession.getDependencySelector());
+
+    RepositorySystem anotherSystem = RepositoryUtility.newRepositorySystem();
+    Assert.assertNotSame(
+        mavenSession.getCache(), RepositoryUtility.newSession(anotherSystem).getCache());
+  }
+
+  @Test
+  public void testVersionMetadataCache_perLocalRepository() throws IOException {
+    RepositorySystem system = RepositoryUtility.newRepositorySystem();
+    Path localRepository = Files.createTempDirectory("local-repository");
+    DefaultRepositorySystemSession session = MavenRepositorySystemUtils.newSession();
+    RepositoryUtility.useLocalRepository(session, system, localRepository);
+    DefaultRepositorySystemSession anotherSession = MavenRepositorySystemUtils.newSession();
+    RepositoryUtility.useLocalRepository(anotherSession, system, localRepository);
+
+    Assert.assertSame(
+        RepositoryUtility.versionMetadataCache(session),
+        RepositoryUtility.versionMetadataCache(anotherSession));
+    Assert.assertNotSame(
+        RepositoryUtility.versionMetadataCache(RepositoryUtility.newSession(system)),
+        RepositoryUtility.versionMetadataCache(session));
+  }
+
   @Test
   public void testFindVersions() throws MavenRepositoryException {
     RepositorySystem system = RepositoryUtility.newRepositorySystem();
@@ -54,6 +95,17 @@ public class RepositoryUtilityTest {
         .inOrder();
   }
 
+  @Test
+  public void testFindVersions_versionRange()
+      throws MavenRepositoryException, InvalidVersionSpecificationException {
+    RepositorySystem system = RepositoryUtility.newRepositorySystem();
+    ImmutableList<String> versions =
+        RepositoryUtility.findVersions(
+            system, "com.google.cloud", "libraries-bom", "[2.0.0,2.5.0]");
+    Truth.assertThat(versions).containsAtLeast("2.0.0", "2.4.0", "2.5.0").inOrder();
+    Truth.assertThat(versions).doesNotContain("2.6.0");
+  }
+
   @Test
   public void testFindHighestVersions()
       throws MavenRepositoryException, InvalidVersionSpecificationException {
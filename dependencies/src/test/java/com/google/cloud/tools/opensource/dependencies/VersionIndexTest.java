@@ -0,0 +1,69 @@
+/*
+ * Copyright 2020 Google LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.opensource.dependencies;
+
+import static org.junit.Assert.assertEquals;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class VersionIndexTest {
+
+  @Test
+  public void testAdd() {
+    VersionIndex index = new VersionIndex();
+    index.add("com.google.guava:guava", "25.1-jre");
+    index.add("com.google.guava:guava", "20.0");
+    index.add("com.google.guava:guava", "25.1-android");
+    index.add("com.google.api:gax", "1.48.1");
+
+    assertEquals(
+        ImmutableList.of("20.0", "25.1-android", "25.1-jre"),
+        index.getVersions("com.google.guava:guava"));
+    assertEquals("25.1-jre", index.getHighestVersion("com.google.guava:guava"));
+    assertEquals(
+        ImmutableMap.of("com.google.api:gax", "1.48.1", "com.google.guava:guava", "25.1-jre"),
+        index.getHighestVersions());
+    assertEquals(
+        ImmutableList.of("com.google.api:gax", "com.google.guava:guava"),
+        ImmutableList.copyOf(index.keySet()));
+  }
+
+  @Test
+  public void testAdd_equivalentVersions() {
+    VersionIndex index = new VersionIndex();
+    index.add("com.google.guava:guava", "20.0");
+    index.add("com.google.guava:guava", "20.0.0");
+
+    assertEquals(ImmutableList.of("20.0"), index.getVersions("com.google.guava:guava"));
+    assertEquals("20.0", index.getHighestVersion("com.google.guava:guava"));
+  }
+
+  @Test
+  public void testGetHighestVersion_absent() {
+    VersionIndex index = new VersionIndex();
+    Assert.assertNull(index.getHighestVersion("com.google.guava:guava"));
+    Assert.assertTrue(index.getVersions("com.google.guava:guava").isEmpty());
+  }
+
+  @Test
+  public void testParse_sameInstance() {
+    Assert.assertSame(VersionIndex.parse("1.2.3"), VersionIndex.parse("1.2.3"));
+  }
+}
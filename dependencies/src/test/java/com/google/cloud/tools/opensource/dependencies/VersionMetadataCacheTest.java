@@ -0,0 +1,183 @@
+/*
+ * Copyright 2020 Google LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.opensource.dependencies;
+
+import static org.junit.Assert.assertEquals;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.truth.Truth;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import org.eclipse.aether.RepositorySystem;
+import org.eclipse.aether.repository.RemoteRepository;
+import org.eclipse.aether.version.Version;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class VersionMetadataCacheTest {
+
+  private static final Instant START = Instant.parse("2020-09-01T00:00:00Z");
+  private static final Duration TIME_TO_LIVE = Duration.ofHours(1);
+
+  private final RepositorySystem system = RepositoryUtility.newRepositorySystem();
+  private Path repositoryDirectory;
+  private RemoteRepository repository;
+  private Path cacheDirectory;
+
+  @Before
+  public void setUp() throws IOException {
+    // A file:// repository stands in for Maven Central
+    repositoryDirectory = Files.createTempDirectory("version-metadata-repository");
+    repository = RepositoryUtility.mavenRepositoryFromUrl(repositoryDirectory.toUri().toString());
+    cacheDirectory = Files.createTempDirectory("version-metadata-cache");
+    writeMetadata("1.0", "1.10", "1.2");
+  }
+
+  private void writeMetadata(String... versions) throws IOException {
+    StringBuilder metadata = new StringBuilder();
+    metadata.append("<metadata><groupId>com.example</groupId><artifactId>lib</artifactId>");
+    metadata.append("<versioning><versions>");
+    for (String version : versions) {
+      metadata.append("<version>").append(version).append("</version>");
+    }
+    metadata.append("</versions></versioning></metadata>");
+    Path artifactDirectory = repositoryDirectory.resolve("com/example/lib");
+    Files.createDirectories(artifactDirectory);
+    Files.write(
+        artifactDirectory.resolve("maven-metadata.xml"),
+        metadata.toString().getBytes(StandardCharsets.UTF_8));
+  }
+
+  private VersionMetadataCache newCache(Duration elapsed, boolean offline) {
+    return new VersionMetadataCache(
+        cacheDirectory, TIME_TO_LIVE, offline, Clock.fixed(START.plus(elapsed), ZoneOffset.UTC));
+  }
+
+  private ImmutableList<String> getVersions(VersionMetadataCache cache)
+      throws MavenRepositoryException {
+    ImmutableList<Version> versions =
+        cache.getVersions(
+            system, RepositoryUtility.newSession(system), repository, "com.example", "lib");
+    return versions.stream().map(Version::toString).collect(ImmutableList.toImmutableList());
+  }
+
+  @Test
+  public void testGetVersions_ascendingOrder() throws MavenRepositoryException {
+    VersionMetadataCache cache = newCache(Duration.ZERO, false);
+
+    assertEquals(ImmutableList.of("1.0", "1.2", "1.10"), getVersions(cache));
+  }
+
+  @Test
+  public void testGetVersions_freshEntry() throws Exception {
+    VersionMetadataCache cache = newCache(Duration.ZERO, false);
+    getVersions(cache);
+    writeMetadata("1.0", "1.10", "1.2", "2.0");
+
+    // Both the in-memory and the on-disk entries are fresh
+    assertEquals(ImmutableList.of("1.0", "1.2", "1.10"), getVersions(cache));
+    assertEquals(
+        ImmutableList.of("1.0", "1.2", "1.10"),
+        getVersions(newCache(Duration.ofMinutes(59), false)));
+  }
+
+  @Test
+  public void testGetVersions_staleEntry() throws Exception {
+    getVersions(newCache(Duration.ZERO, false));
+    writeMetadata("1.0", "1.10", "1.2", "2.0");
+
+    assertEquals(
+        ImmutableList.of("1.0", "1.2", "1.10", "2.0"),
+        getVersions(newCache(Duration.ofHours(2), false)));
+  }
+
+  @Test
+  public void testGetVersions_offline() throws Exception {
+    getVersions(newCache(Duration.ZERO, false));
+    writeMetadata("1.0", "1.10", "1.2", "2.0");
+
+    // The offline cache returns the stale entry
+    assertEquals(
+        ImmutableList.of("1.0", "1.2", "1.10"), getVersions(newCache(Duration.ofDays(30), true)));
+  }
+
+  @Test
+  public void testGetVersions_failureWithStaleEntry() throws Exception {
+    getVersions(newCache(Duration.ZERO, false));
+    Files.write(
+        repositoryDirectory.resolve("com/example/lib/maven-metadata.xml"),
+        "<metadata".getBytes(StandardCharsets.UTF_8));
+
+    // The stale entry is better than no versions
+    assertEquals(
+        ImmutableList.of("1.0", "1.2", "1.10"), getVersions(newCache(Duration.ofHours(2), false)));
+  }
+
+  @Test
+  public void testGetVersions_failureWithoutEntry() throws Exception {
+    Files.write(
+        repositoryDirectory.resolve("com/example/lib/maven-metadata.xml"),
+        "<metadata".getBytes(StandardCharsets.UTF_8));
+
+    try {
+      getVersions(newCache(Duration.ZERO, false));
+      Assert.fail("The failure should not be hidden by an empty list");
+    } catch (MavenRepositoryException ex) {
+      Truth.assertThat(ex).hasMessageThat().contains("com.example:lib");
+      Assert.assertNotNull(ex.getCause());
+    }
+  }
+
+  @Test
+  public void testGetVersions_versionRange() throws Exception {
+    VersionMetadataCache cache = newCache(Duration.ZERO, false);
+
+    ImmutableList<Version> versions =
+        cache.getVersions(
+            system,
+            RepositoryUtility.newSession(system),
+            repository,
+            "com.example",
+            "lib",
+            "[1.1,2.0)");
+
+    assertEquals(2, versions.size());
+    assertEquals("1.2", versions.get(0).toString());
+    assertEquals("1.10", versions.get(1).toString());
+  }
+
+  @Test
+  public void testEntryFile_perRepository() {
+    RemoteRepository anotherRepository =
+        RepositoryUtility.mavenRepositoryFromUrl("https://example.com/maven2");
+
+    Path entryFile =
+        VersionMetadataCache.entryFile(cacheDirectory, repository, "com.example", "lib");
+
+    Assert.assertNotEquals(
+        entryFile,
+        VersionMetadataCache.entryFile(cacheDirectory, anotherRepository, "com.example", "lib"));
+    assertEquals("lib.versions", entryFile.getFileName().toString());
+  }
+}
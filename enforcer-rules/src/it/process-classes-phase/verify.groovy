@@ -0,0 +1,19 @@
+def buildLog = new File(basedir, "build.log").text.replaceAll("\\r\\n", "\n")
+
+// The rule ran before the package phase
+assert !new File(basedir, "target/test-process-classes-phase-1.0-SNAPSHOT.jar").exists()
+assert new File(basedir, "target/classes/com/google/example/Dummy.class").exists()
+
+assert buildLog.contains('''\
+(com.google.guava:guava:20.0) com.google.common.base.Verify's method "void verify(boolean, String, Object)" is not found;
+  referenced by 3 class files
+    io.grpc.internal.ServiceConfigInterceptor (io.grpc:grpc-core:1.17.1)
+    io.grpc.internal.JndiResourceResolverFactory (io.grpc:grpc-core:1.17.1)
+    io.grpc.internal.DnsNameResolver (io.grpc:grpc-core:1.17.1)
+''')
+
+assert buildLog.contains('''\
+io.grpc:grpc-core:1.17.1 is at:
+  com.google.cloud.tools.opensource:test-process-classes-phase:jar:1.0-SNAPSHOT \
+/ io.grpc:grpc-core:1.17.1 (compile)
+''')
@@ -0,0 +1,211 @@
+/*
+ * Copyright 2020 Google LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.dependencies.enforcer;
+
+import com.google.cloud.tools.opensource.classpath.ClassPathEntry;
+import com.google.cloud.tools.opensource.classpath.ClassPathResult;
+import com.google.cloud.tools.opensource.dependencies.DependencyPath;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.common.io.MoreFiles;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import javax.annotation.Nullable;
+
+/**
+ * The result of the last run of {@link LinkageCheckerRule} for a project, keyed by a fingerprint
+ * of the inputs of the check.
+ *
+ * <p>The fingerprint covers the class path with the dependency paths of its entries, the exclusion
+ * file, the Java version, and the options of the rule. JAR files in the local Maven repository are
+ * identified by their paths, sizes, and modification times. Other files, such as the project's own
+ * JAR file and the JAR files of other modules in the reactor, are identified by the names and the
+ * CRC-32 checksums of their entries, which do not change when the same classes are packaged again.
+ */
+final class LinkageCheckResultCache {
+
+  // Increment when the file format changes
+  private static final int FORMAT_VERSION = 1;
+
+  private final Path cacheFile;
+
+  LinkageCheckResultCache(Path cacheFile) {
+    this.cacheFile = cacheFile;
+  }
+
+  /**
+   * Returns the fingerprint of the inputs of a check.
+   *
+   * @param classPathResult the class path to check
+   * @param localRepository the local Maven repository, of which JAR files do not change
+   * @param exclusionFile the exclusion file of the rule, if any
+   * @param options the checker version, the Java version, and the options of the rule that affect
+   *     the result
+   */
+  static String fingerprint(
+      ClassPathResult classPathResult,
+      Path localRepository,
+      @Nullable Path exclusionFile,
+      List<String> options)
+      throws IOException {
+    Hasher hasher = Hashing.sha256().newHasher();
+    hasher.putInt(options.size());
+    for (String option : options) {
+      putString(hasher, option);
+    }
+
+    hasher.putBoolean(exclusionFile != null);
+    if (exclusionFile != null) {
+      hasher.putBytes(Files.readAllBytes(exclusionFile));
+    }
+
+    Path normalizedLocalRepository = localRepository.toAbsolutePath().normalize();
+    List<ClassPathEntry> classPath = classPathResult.getClassPath();
+    hasher.putInt(classPath.size());
+    for (ClassPathEntry entry : classPath) {
+      putString(hasher, entry.toString());
+      List<DependencyPath> dependencyPaths = classPathResult.getDependencyPaths(entry);
+      hasher.putInt(dependencyPaths.size());
+      for (DependencyPath dependencyPath : dependencyPaths) {
+        putString(hasher, dependencyPath.toString());
+      }
+
+      // The class path of the rule consists of Maven artifacts
+      Path file = entry.getArtifact().getFile().toPath().toAbsolutePath().normalize();
+      putString(hasher, file.toString());
+      if (file.startsWith(normalizedLocalRepository)) {
+        hasher.putLong(Files.size(file));
+        hasher.putLong(Files.getLastModifiedTime(file).toMillis());
+      } else {
+        putContents(hasher, file);
+      }
+    }
+    return hasher.hash().toString();
+  }
+
+  private static void putContents(Hasher hasher, Path file) throws IOException {
+    if (Files.isDirectory(file)) {
+      List<Path> files;
+      try (Stream<Path> stream = Files.walk(file)) {
+        files = stream.filter(Files::isRegularFile).sorted().collect(Collectors.toList());
+      }
+      for (Path classFile : files) {
+        putString(hasher, file.relativize(classFile).toString());
+        hasher.putBytes(MoreFiles.asByteSource(classFile).hash(Hashing.sha256()).asBytes());
+      }
+      return;
+    }
+
+    // The central directory has the checksums of the entries. The entries are sorted because
+    // packaging may add them in a different order.
+    Map<String, Long> checksums = new TreeMap<>();
+    try (ZipFile zipFile = new ZipFile(file.toFile())) {
+      for (Enumeration<? extends ZipEntry> entries = zipFile.entries();
+          entries.hasMoreElements(); ) {
+        ZipEntry entry = entries.nextElement();
+        if (!entry.isDirectory()) {
+          checksums.put(entry.getName(), entry.getCrc());
+        }
+      }
+    }
+    for (Map.Entry<String, Long> checksum : checksums.entrySet()) {
+      putString(hasher, checksum.getKey());
+      hasher.putLong(checksum.getValue());
+    }
+  }
+
+  private static void putString(Hasher hasher, String value) {
+    hasher.putInt(value.length());
+    hasher.putString(value, StandardCharsets.UTF_8);
+  }
+
+  /** Returns the result stored for {@code fingerprint}, or null if there is no such result. */
+  @Nullable
+  Result read(String fingerprint) throws IOException {
+    try (DataInputStream input =
+        new DataInputStream(new BufferedInputStream(Files.newInputStream(cacheFile)))) {
+      if (input.readInt() != FORMAT_VERSION || !fingerprint.equals(input.readUTF())) {
+        return null;
+      }
+      long errorCount = input.readLong();
+      // The report may be longer than the limit of DataInput.readUTF
+      byte[] report = new byte[input.readInt()];
+      input.readFully(report);
+      return new Result(errorCount, new String(report, StandardCharsets.UTF_8));
+    } catch (NoSuchFileException ex) {
+      return null;
+    }
+  }
+
+  /** Replaces the stored result with {@code result} for {@code fingerprint}. */
+  void write(String fingerprint, Result result) throws IOException {
+    Files.createDirectories(cacheFile.getParent());
+    // Writing to a temporary file and then renaming it keeps concurrent builds from reading an
+    // incomplete result.
+    Path temporaryFile = Files.createTempFile(cacheFile.getParent(), "result", ".tmp");
+    try (DataOutputStream output =
+        new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporaryFile)))) {
+      output.writeInt(FORMAT_VERSION);
+      output.writeUTF(fingerprint);
+      output.writeLong(result.errorCount);
+      byte[] report = result.report.getBytes(StandardCharsets.UTF_8);
+      output.writeInt(report.length);
+      output.write(report);
+    }
+    Files.move(
+        temporaryFile,
+        cacheFile,
+        StandardCopyOption.REPLACE_EXISTING,
+        StandardCopyOption.ATOMIC_MOVE);
+  }
+
+  /** The number of linkage errors and the report of a check. */
+  static final class Result {
+    private final long errorCount;
+    private final String report;
+
+    Result(long errorCount, String report) {
+      this.errorCount = errorCount;
+      this.report = report;
+    }
+
+    long getErrorCount() {
+      return errorCount;
+    }
+
+    /** Returns the formatted linkage problems. This is empty when there is no error. */
+    String getReport() {
+      return report;
+    }
+  }
+}
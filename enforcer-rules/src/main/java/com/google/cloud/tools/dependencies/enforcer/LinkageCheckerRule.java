@@ -24,11 +24,13 @@ import com.google.cloud.tools.opensource.classpath.AnnotatedClassPath;
 import com.google.cloud.tools.opensource.classpath.ClassPathBuilder;
 import com.google.cloud.tools.opensource.classpath.ClassPathEntry;
 import com.google.cloud.tools.opensource.classpath.ClassPathResult;
+import com.google.cloud.tools.opensource.classpath.ClassPathScanner;
 import com.google.cloud.tools.opensource.classpath.ClassReferenceGraph;
 import com.google.cloud.tools.opensource.classpath.DependencyMediation;
 import com.google.cloud.tools.opensource.classpath.LinkageChecker;
 import com.google.cloud.tools.opensource.classpath.LinkageProblem;
 import com.google.cloud.tools.opensource.classpath.LinkageProblemCauseAnnotator;
+import com.google.cloud.tools.opensource.classpath.LinkageProblemStore;
 import com.google.cloud.tools.opensource.dependencies.Bom;
 import com.google.cloud.tools.opensource.dependencies.DependencyGraph;
 import com.google.cloud.tools.opensource.dependencies.DependencyGraphBuilder;
@@ -39,12 +41,15 @@ import com.google.cloud.tools.opensource.dependencies.OsProperties;
 import com.google.cloud.tools.opensource.dependencies.UnresolvableArtifactProblem;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -68,10 +73,12 @@ import org.eclipse.aether.RepositorySystem;
 import org.eclipse.aether.RepositorySystemSession;
 import org.eclipse.aether.artifact.Artifact;
 import org.eclipse.aether.artifact.ArtifactTypeRegistry;
+import org.eclipse.aether.graph.DefaultDependencyNode;
 import org.eclipse.aether.graph.Dependency;
 import org.eclipse.aether.graph.DependencyNode;
 import org.eclipse.aether.repository.RemoteRepository;
 import org.eclipse.aether.transfer.ArtifactTransferException;
+import org.eclipse.aether.util.ConfigUtils;
 import org.eclipse.aether.util.graph.selector.AndDependencySelector;
 import org.eclipse.aether.util.graph.selector.ExclusionDependencySelector;
 import org.eclipse.aether.util.graph.selector.OptionalDependencySelector;
@@ -90,6 +97,28 @@ public class LinkageCheckerRule extends AbstractEnforcerRule {
   private static final ImmutableSet<String> UNSUPPORTED_NONBOM_PACKAGING = ImmutableSet.of("pom",
       "java-source", "javadoc");
 
+  /**
+   * Lifecycle phases in which the project's class files exist, from {@code process-classes} to
+   * {@code verify}. Before the {@code package} phase, the rule checks the class files in the
+   * output directory of the project, such as {@code target/classes}.
+   */
+  private static final ImmutableSet<String> PHASES_WITH_CLASS_FILES =
+      ImmutableSet.of(
+          "process-classes",
+          "generate-test-sources",
+          "process-test-sources",
+          "generate-test-resources",
+          "process-test-resources",
+          "test-compile",
+          "process-test-classes",
+          "test",
+          "prepare-package",
+          "package",
+          "pre-integration-test",
+          "integration-test",
+          "post-integration-test",
+          "verify");
+
   /**
    * The section this rule reads dependencies from. By default, it's {@link
    * DependencySection#DEPENDENCIES}.
@@ -108,6 +137,38 @@ public class LinkageCheckerRule extends AbstractEnforcerRule {
 
   private String exclusionFile = null;
 
+  /**
+   * Set to true to report only linkage errors in the project's own classes. The symbol references
+   * in the other JAR files of the class path are not read; the files are read only for the classes
+   * that the project references. This is for the {@code dependencies} section. By default, it's
+   * {@code false}.
+   */
+  private boolean reportOnlyProjectClasses = false;
+
+  /**
+   * {@code groupId:artifactId} of the artifacts in the class path whose linkage errors are
+   * reported, in addition to the project's classes when {@link #reportOnlyProjectClasses} is true.
+   * By default, it's empty and the linkage errors in all artifacts are reported unless {@link
+   * #reportOnlyProjectClasses} is true.
+   */
+  private List<String> sourceArtifacts = new ArrayList<>();
+
+  /**
+   * Number of threads to download the files of the dependencies of the BOM members. By default,
+   * it's Maven's {@code maven.artifact.threads} property, which is 5 unless specified.
+   */
+  private int downloadThreads = 0;
+
+  /**
+   * Directory to store the result of the last check of the project. When the class path, the
+   * class files, the exclusion file, and the options are the same as in the last check, the rule
+   * reports the stored result without checking the class path again. By default, it's the {@code
+   * linkage-checker} directory in the build directory. Modules in a reactor can share a directory,
+   * such as {@code ${maven.multiModuleProjectDirectory}/.linkage-checker}. The result is stored
+   * only when the rule is a release version.
+   */
+  private String resultCacheDirectory = null;
+
   private ClassPathBuilder classPathBuilder;
 
   // Properties managed by the dependency injection
@@ -145,6 +206,16 @@ public class LinkageCheckerRule extends AbstractEnforcerRule {
     this.reportOnlyReachable = reportOnlyReachable;
   }
 
+  @VisibleForTesting
+  void setReportOnlyProjectClasses(boolean reportOnlyProjectClasses) {
+    this.reportOnlyProjectClasses = reportOnlyProjectClasses;
+  }
+
+  @VisibleForTesting
+  void setSourceArtifacts(List<String> sourceArtifacts) {
+    this.sourceArtifacts = sourceArtifacts;
+  }
+
   @VisibleForTesting
   enum DependencySection {
     /** To read {@code dependencyManagement} section in pom.xml. This is for BOM projects */
@@ -158,6 +229,66 @@ public class LinkageCheckerRule extends AbstractEnforcerRule {
     this.exclusionFile = exclusionFile;
   }
 
+  @VisibleForTesting
+  void setDownloadThreads(int downloadThreads) {
+    this.downloadThreads = downloadThreads;
+  }
+
+  /**
+   * Configures {@code dependencyGraphBuilder} to download files in the same way as Maven: with the
+   * checksum policy of each project repository and the number of threads of Maven's session, unless
+   * {@link #downloadThreads} is specified.
+   */
+  private void configureTransport(
+      DependencyGraphBuilder dependencyGraphBuilder,
+      RepositorySystemSession repositorySystemSession) {
+    dependencyGraphBuilder.setDownloadThreads(findDownloadThreads(repositorySystemSession));
+
+    for (Map.Entry<String, String> entry :
+        findChecksumPolicies(repositorySystemSession).entrySet()) {
+      String repositoryUrl = entry.getKey();
+      try {
+        dependencyGraphBuilder.setChecksumPolicy(repositoryUrl, entry.getValue());
+      } catch (IllegalArgumentException ex) {
+        logger.warn("Ignoring checksum policy of " + repositoryUrl + ": " + ex.getMessage());
+      }
+    }
+  }
+
+  /**
+   * Returns the number of threads to download files: {@link #downloadThreads} if specified,
+   * otherwise the number of threads of Maven's session.
+   */
+  @VisibleForTesting
+  int findDownloadThreads(RepositorySystemSession repositorySystemSession) {
+    int threads =
+        downloadThreads > 0
+            ? downloadThreads
+            : ConfigUtils.getInteger(
+                repositorySystemSession,
+                DependencyGraphBuilder.DEFAULT_DOWNLOAD_THREADS,
+                DependencyGraphBuilder.BASIC_CONNECTOR_THREADS,
+                "maven.artifact.threads");
+    return Math.max(1, threads);
+  }
+
+  /** Returns the mapping from the URLs of the project repositories to their checksum policies. */
+  @VisibleForTesting
+  ImmutableMap<String, String> findChecksumPolicies(
+      RepositorySystemSession repositorySystemSession) {
+    // The -C and -c command-line options of Maven override the policies of the repositories
+    String sessionChecksumPolicy = repositorySystemSession.getChecksumPolicy();
+    Map<String, String> checksumPolicies = new LinkedHashMap<>();
+    for (RemoteRepository repository : project.getRemoteProjectRepositories()) {
+      checksumPolicies.putIfAbsent(
+          repository.getUrl(),
+          sessionChecksumPolicy != null
+              ? sessionChecksumPolicy
+              : repository.getPolicy(false).getChecksumPolicy());
+    }
+    return ImmutableMap.copyOf(checksumPolicies);
+  }
+
   private static EnforcerLogger logger;
 
   @Override
@@ -171,10 +302,15 @@ public class LinkageCheckerRule extends AbstractEnforcerRule {
             .map(RemoteRepository::getUrl)
             .collect(toImmutableList());
     DependencyGraphBuilder dependencyGraphBuilder = new DependencyGraphBuilder(repositoryUrls);
+    configureTransport(dependencyGraphBuilder, repositorySystemSession);
     classPathBuilder = new ClassPathBuilder(dependencyGraphBuilder);
 
     boolean readingDependencyManagementSection =
         dependencySection == DependencySection.DEPENDENCY_MANAGEMENT;
+    if (readingDependencyManagementSection) {
+      // The dependency trees of the BOM members are collected concurrently
+      dependencyGraphBuilder.setCollectionThreads(Runtime.getRuntime().availableProcessors());
+    }
     if (readingDependencyManagementSection
         && (project.getDependencyManagement() == null
             || project.getDependencyManagement().getDependencies() == null
@@ -183,6 +319,8 @@ public class LinkageCheckerRule extends AbstractEnforcerRule {
     }
 
     String projectType = project.getArtifact().getType();
+    // The project's JAR file, or its directory of class files before packaging
+    File projectFile = null;
     if (readingDependencyManagementSection) {
       if (!"pom".equals(projectType)) {
         logger.warn("A BOM should have packaging pom");
@@ -192,23 +330,30 @@ public class LinkageCheckerRule extends AbstractEnforcerRule {
       if (UNSUPPORTED_NONBOM_PACKAGING.contains(projectType)) {
         return;
       }
-      if (!"verify".equals(execution.getLifecyclePhase())) {
+      if (!PHASES_WITH_CLASS_FILES.contains(execution.getLifecyclePhase())) {
         throw new EnforcerRuleException(
             "To run the check on the compiled class files, the linkage checker enforcer rule"
-                + " should be bound to the 'verify' phase. Current phase: "
+                + " should be bound to a phase from 'process-classes' to 'verify'. Current phase: "
                 + execution.getLifecyclePhase());
       }
-      if (project.getArtifact().getFile() == null) {
-        // Skipping projects without a file, such as Guava's guava-tests module.
-        // https://github.com/GoogleCloudPlatform/cloud-opensource-java/issues/850
-        return;
+      projectFile = project.getArtifact().getFile();
+      if (projectFile == null) {
+        // Before the package phase, the class files are in the output directory
+        File outputDirectory = new File(project.getBuild().getOutputDirectory());
+        if (!outputDirectory.isDirectory()) {
+          // Skipping projects without class files, such as Guava's guava-tests module.
+          // https://github.com/GoogleCloudPlatform/cloud-opensource-java/issues/850
+          return;
+        }
+        projectFile = outputDirectory;
       }
     }
 
     ClassPathResult classPathResult =
         readingDependencyManagementSection
             ? findBomClasspath(project, repositorySystemSession)
-            : findProjectClasspath(project, repositorySystemSession, projectDependenciesResolver);
+            : findProjectClasspath(
+                project, repositorySystemSession, projectDependenciesResolver, projectFile);
     ImmutableList<ClassPathEntry> classPath = classPathResult.getClassPath();
     if (classPath.isEmpty()) {
       logger.warn("Class path is empty.");
@@ -216,15 +361,70 @@ public class LinkageCheckerRule extends AbstractEnforcerRule {
     }
 
     List<ClassPathEntry> entryPoints = entryPoints(project, classPath);
+    ImmutableList<Artifact> sourceArtifactList = findSourceArtifacts(classPath);
+    boolean filteringSources =
+        (reportOnlyProjectClasses && !readingDependencyManagementSection)
+            || !sourceArtifacts.isEmpty();
+    if (filteringSources && sourceArtifactList.isEmpty()) {
+      logger.warn("None of the source artifacts is in the class path.");
+      return;
+    }
+    Path exclusionFile = this.exclusionFile == null ? null : Paths.get(this.exclusionFile);
+
+    // A snapshot version of the rule may find different problems without changing its version
+    String checkerVersion = LinkageProblemStore.findCheckerVersion();
+    LinkageCheckResultCache resultCache = null;
+    String fingerprint = null;
+    if (checkerVersion != null && !checkerVersion.endsWith("-SNAPSHOT")) {
+      resultCache = new LinkageCheckResultCache(resultCacheFile());
+      try {
+        fingerprint =
+            LinkageCheckResultCache.fingerprint(
+                classPathResult,
+                repositorySystemSession.getLocalRepository().getBasedir().toPath(),
+                exclusionFile,
+                ImmutableList.of(
+                    checkerVersion,
+                    // The system classes of the JVM are part of the class path
+                    System.getProperty("java.specification.version"),
+                    dependencySection.name(),
+                    Boolean.toString(reportOnlyReachable),
+                    Boolean.toString(reportOnlyProjectClasses),
+                    String.join(",", sourceArtifacts),
+                    Integer.toString(entryPoints.size())));
+        LinkageCheckResultCache.Result cachedResult = resultCache.read(fingerprint);
+        if (cachedResult != null) {
+          logger.info("Class path is unchanged since the last check");
+          report(cachedResult);
+          return;
+        }
+      } catch (IOException ex) {
+        // The cache is an optimization. Failing to read it should not fail the rule.
+        logger.debug("Failed to read the result of the last check: " + ex);
+      }
+    }
 
+    LinkageCheckResultCache.Result result;
     try {
 
       // TODO LinkageChecker.create and LinkageChecker.findLinkageProblems
       // should not be two separate public methods since we always call
       // findLinkageProblems immediately after create.
 
-      Path exclusionFile = this.exclusionFile == null ? null : Paths.get(this.exclusionFile);
-      LinkageChecker linkageChecker = LinkageChecker.create(classPath, entryPoints, ImmutableList.of(), exclusionFile);
+      LinkageChecker linkageChecker;
+      // The scanner reuses the JAR files scanned by the executions of the rule for other modules in
+      // this JVM. Only the files that changed, such as the project's own JAR file, are read.
+      try (ClassPathScanner classPathScanner =
+          new ClassPathScanner(Runtime.getRuntime().availableProcessors())) {
+        linkageChecker =
+            LinkageChecker.create(
+                classPath,
+                entryPoints,
+                sourceArtifactList,
+                exclusionFile,
+                reportOnlyReachable,
+                classPathScanner);
+      }
       ImmutableSet<LinkageProblem> linkageProblems = linkageChecker.findLinkageProblems();
       if (reportOnlyReachable) {
         ClassReferenceGraph classReferenceGraph = linkageChecker.getClassReferenceGraph();
@@ -243,44 +443,75 @@ public class LinkageCheckerRule extends AbstractEnforcerRule {
       // Count unique LinkageProblems by their symbols
       long errorCount =
           linkageProblems.stream().map(LinkageProblem::formatSymbolProblem).distinct().count();
-
-      String foundError = reportOnlyReachable ? "reachable error" : "error";
-      if (errorCount > 1) {
-        foundError += "s";
-      }
-      if (errorCount > 0) {
-        String message =
-            String.format(
-                "Linkage Checker rule found %d %s:\n%s",
-                errorCount,
-                foundError,
-                LinkageProblem.formatLinkageProblems(linkageProblems, classPathResult));
-        if (getLevel() == WARN) {
-          logger.warn(message);
-        } else {
-          logger.error(message);
-          logger.info(
-              "For the details of the linkage errors, see "
-                  + "https://github.com/GoogleCloudPlatform/cloud-opensource-java/wiki/Linkage-Checker-Messages");
-          throw new EnforcerRuleException(
-              "Failed while checking class path. See above error report.");
-        }
-      } else {
-        // arguably shouldn't log anything on success
-        logger.info("No " + foundError + " found");
-      }
+      result =
+          new LinkageCheckResultCache.Result(
+              errorCount,
+              errorCount > 0
+                  ? LinkageProblem.formatLinkageProblems(linkageProblems, classPathResult)
+                  : "");
     } catch (IOException ex) {
       // Maven's "-e" flag does not work for EnforcerRuleException
       logger.warn("Failed to run Linkage Checker:" + ex);
       throw new EnforcerRuleException("Failed to run Linkage Checker: " + ex, ex);
     }
+
+    if (fingerprint != null) {
+      try {
+        resultCache.write(fingerprint, result);
+      } catch (IOException ex) {
+        logger.debug("Failed to store the result of the check: " + ex);
+      }
+    }
+    report(result);
+  }
+
+  /**
+   * Returns the file for the result of the last check of the project in {@link
+   * #resultCacheDirectory}.
+   */
+  private Path resultCacheFile() {
+    Path directory =
+        resultCacheDirectory != null
+            ? Paths.get(resultCacheDirectory)
+            : Paths.get(project.getBuild().getDirectory(), "linkage-checker");
+    return directory.resolve(project.getGroupId() + "_" + project.getArtifactId() + ".result");
+  }
+
+  /** Logs the linkage errors in {@code result} and fails if the level of the rule is error. */
+  private void report(LinkageCheckResultCache.Result result) throws EnforcerRuleException {
+    long errorCount = result.getErrorCount();
+    String foundError = reportOnlyReachable ? "reachable error" : "error";
+    if (errorCount > 1) {
+      foundError += "s";
+    }
+    if (errorCount > 0) {
+      String message =
+          String.format(
+              "Linkage Checker rule found %d %s:\n%s", errorCount, foundError, result.getReport());
+      if (getLevel() == WARN) {
+        logger.warn(message);
+      } else {
+        logger.error(message);
+        logger.info(
+            "For the details of the linkage errors, see "
+                + "https://github.com/GoogleCloudPlatform/cloud-opensource-java/wiki/Linkage-Checker-Messages");
+        throw new EnforcerRuleException(
+            "Failed while checking class path. See above error report.");
+      }
+    } else {
+      // arguably shouldn't log anything on success
+      logger.info("No " + foundError + " found");
+    }
   }
 
-  /** Builds a class path for {@code mavenProject}. */
+  /**
+   * Builds a class path for {@code mavenProject}, of which class files are in {@code projectFile}.
+   */
   private static ClassPathResult findProjectClasspath(
       MavenProject mavenProject,
       RepositorySystemSession session,
-      ProjectDependenciesResolver projectDependenciesResolver)
+      ProjectDependenciesResolver projectDependenciesResolver,
+      File projectFile)
       throws EnforcerRuleException {
     try {
       DefaultRepositorySystemSession fullDependencyResolutionSession =
@@ -309,30 +540,41 @@ public class LinkageCheckerRule extends AbstractEnforcerRule {
       DependencyResolutionResult resolutionResult =
           projectDependenciesResolver.resolve(dependencyResolutionRequest);
 
-      return buildClassPathResult(resolutionResult);
+      return buildClassPathResult(resolutionResult, projectFile);
     } catch (DependencyResolutionException e) {
-      return buildClasspathFromException(e);
+      return buildClasspathFromException(e, projectFile);
     }
   }
 
   /** Returns class path built from partial dependency graph of {@code resolutionException}. */
   private static ClassPathResult buildClasspathFromException(
-      DependencyResolutionException resolutionException) throws EnforcerRuleException {
+      DependencyResolutionException resolutionException, File projectFile)
+      throws EnforcerRuleException {
     DependencyResolutionResult result = resolutionException.getResult();
 
+    // Artifacts that failed to download, in the order of the causes and the unresolved
+    // dependencies. They are keyed by coordinates because the same artifact from an exception and
+    // from a dependency may differ in the file and the properties, which DefaultArtifact.equals
+    // compares.
+    Map<String, Artifact> unresolvedArtifacts = new LinkedHashMap<>();
     for (Throwable cause = resolutionException.getCause();
         cause != null;
         cause = cause.getCause()) {
       if (cause instanceof ArtifactTransferException) {
-        
-        DependencyNode root = result.getDependencyGraph();
-        DependencyGraph graph = new DependencyGraph(root);
-        
-        ArtifactTransferException artifactException = (ArtifactTransferException) cause;
-        Artifact artifact = artifactException.getArtifact();
-        String warning = graph.createUnresolvableArtifactProblem(artifact).toString();
-        logger.warn(warning);
-        break;
+        Artifact artifact = ((ArtifactTransferException) cause).getArtifact();
+        unresolvedArtifacts.putIfAbsent(artifact.toString(), artifact);
+      }
+    }
+    for (Dependency dependency : result.getUnresolvedDependencies()) {
+      Artifact artifact = dependency.getArtifact();
+      unresolvedArtifacts.putIfAbsent(artifact.toString(), artifact);
+    }
+    if (!unresolvedArtifacts.isEmpty()) {
+      DependencyGraph graph = new DependencyGraph(result.getDependencyGraph());
+      // One traversal of the graph finds the paths to all unresolved artifacts
+      for (UnresolvableArtifactProblem problem :
+          graph.createUnresolvableArtifactProblems(unresolvedArtifacts.values())) {
+        logger.warn(problem.toString());
       }
     }
     if (result.getResolvedDependencies().isEmpty()) {
@@ -340,17 +582,21 @@ public class LinkageCheckerRule extends AbstractEnforcerRule {
       throw new EnforcerRuleException("Unable to collect dependencies", resolutionException);
     } else {
       // The exception is acceptable enough to build a class path.
-      return buildClassPathResult(result);
+      return buildClassPathResult(result, projectFile);
     }
   }
 
-  private static ClassPathResult buildClassPathResult(DependencyResolutionResult result)
-      throws EnforcerRuleException {
-    // The root node must have the project's JAR file
+  private static ClassPathResult buildClassPathResult(
+      DependencyResolutionResult result, File projectFile) {
+    // The root node must have the project's JAR file or its directory of class files
     DependencyNode root = result.getDependencyGraph();
-    File rootFile = root.getArtifact().getFile();
-    if (rootFile == null) {
-      throw new EnforcerRuleException("The root project artifact is not associated with a file.");
+    if (root.getArtifact().getFile() == null) {
+      // Maven's root node does not have a dependency, which DependencyNode.setArtifact requires.
+      // A copy of the node holds the file without modifying the resolution result.
+      DefaultDependencyNode rootWithFile =
+          new DefaultDependencyNode(root.getArtifact().setFile(projectFile));
+      rootWithFile.setChildren(root.getChildren());
+      root = rootWithFile;
     }
 
     List<Dependency> unresolvedDependencies = result.getUnresolvedDependencies();
@@ -400,6 +646,36 @@ public class LinkageCheckerRule extends AbstractEnforcerRule {
     }
   }
 
+  /**
+   * Returns the artifacts in {@code classPath} whose linkage errors are reported, or an empty list
+   * to report the linkage errors in all artifacts.
+   */
+  private ImmutableList<Artifact> findSourceArtifacts(ImmutableList<ClassPathEntry> classPath) {
+    ImmutableList.Builder<Artifact> sourceArtifactList = ImmutableList.builder();
+    if (reportOnlyProjectClasses) {
+      if (dependencySection == DependencySection.DEPENDENCY_MANAGEMENT) {
+        logger.warn("reportOnlyProjectClasses is ignored for the dependency management section.");
+      } else {
+        // As sorted by level order, the first element in classpath is the project
+        sourceArtifactList.add(classPath.get(0).getArtifact());
+      }
+    }
+    for (String coordinates : sourceArtifacts) {
+      boolean found = false;
+      for (ClassPathEntry entry : classPath) {
+        Artifact artifact = entry.getArtifact();
+        if (coordinates.equals(artifact.getGroupId() + ":" + artifact.getArtifactId())) {
+          sourceArtifactList.add(artifact);
+          found = true;
+        }
+      }
+      if (!found) {
+        logger.warn("Source artifact " + coordinates + " is not in the class path.");
+      }
+    }
+    return sourceArtifactList.build();
+  }
+
   /**
    * Returns the class path entries that contain entry point classes.
    *
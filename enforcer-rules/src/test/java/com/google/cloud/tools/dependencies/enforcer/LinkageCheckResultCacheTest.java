@@ -0,0 +1,127 @@
+/*
+ * Copyright 2020 Google LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.dependencies.enforcer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+
+import com.google.cloud.tools.opensource.classpath.AnnotatedClassPath;
+import com.google.cloud.tools.opensource.classpath.ClassPathEntry;
+import com.google.cloud.tools.opensource.classpath.ClassPathResult;
+import com.google.cloud.tools.opensource.dependencies.DependencyPath;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableListMultimap;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+import org.eclipse.aether.artifact.Artifact;
+import org.eclipse.aether.artifact.DefaultArtifact;
+import org.junit.Before;
+import org.junit.Test;
+
+public class LinkageCheckResultCacheTest {
+
+  private static final ImmutableList<String> OPTIONS = ImmutableList.of("1.0.0", "DEPENDENCIES");
+
+  private Path localRepository;
+  private Path projectJar;
+  private LinkageCheckResultCache cache;
+
+  @Before
+  public void setUp() throws IOException {
+    localRepository = Files.createTempDirectory("repository");
+    projectJar = Files.createTempDirectory("target").resolve("project-1.0.0.jar");
+    cache =
+        new LinkageCheckResultCache(
+            Files.createTempDirectory("linkage-checker").resolve("project.result"));
+  }
+
+  private static void writeJar(Path jar, long time, String classContent) throws IOException {
+    try (ZipOutputStream output = new ZipOutputStream(Files.newOutputStream(jar))) {
+      ZipEntry entry = new ZipEntry("com/example/Foo.class");
+      entry.setTime(time);
+      output.putNextEntry(entry);
+      output.write(classContent.getBytes(StandardCharsets.UTF_8));
+      output.closeEntry();
+    }
+  }
+
+  private String fingerprint() throws IOException {
+    Artifact projectArtifact =
+        new DefaultArtifact("com.example:project:1.0.0").setFile(projectJar.toFile());
+    Path dependencyJar = localRepository.resolve("dependency-1.0.0.jar");
+    if (!Files.exists(dependencyJar)) {
+      try (OutputStream output = Files.newOutputStream(dependencyJar)) {
+        output.write(1);
+      }
+    }
+    Artifact dependencyArtifact =
+        new DefaultArtifact("com.example:dependency:1.0.0").setFile(dependencyJar.toFile());
+    ClassPathResult classPathResult =
+        new ClassPathResult(
+            AnnotatedClassPath.fromMultimap(
+                ImmutableListMultimap.of(
+                    new ClassPathEntry(projectArtifact),
+                    new DependencyPath(projectArtifact),
+                    new ClassPathEntry(dependencyArtifact),
+                    new DependencyPath(projectArtifact).append(
+                        new org.eclipse.aether.graph.Dependency(dependencyArtifact, "compile")))),
+            ImmutableList.of());
+    return LinkageCheckResultCache.fingerprint(classPathResult, localRepository, null, OPTIONS);
+  }
+
+  @Test
+  public void testWriteAndRead() throws IOException {
+    writeJar(projectJar, 0, "foo");
+    String fingerprint = fingerprint();
+    assertNull(cache.read(fingerprint));
+
+    cache.write(fingerprint, new LinkageCheckResultCache.Result(2, "report"));
+
+    LinkageCheckResultCache.Result result = cache.read(fingerprint);
+    assertEquals(2, result.getErrorCount());
+    assertEquals("report", result.getReport());
+  }
+
+  @Test
+  public void testFingerprint_repackagedProjectJar() throws IOException {
+    writeJar(projectJar, 0, "foo");
+    String fingerprint = fingerprint();
+
+    // Packaging the same classes again changes the timestamps of the entries
+    writeJar(projectJar, 1_600_000_000_000L, "foo");
+
+    assertEquals(fingerprint, fingerprint());
+  }
+
+  @Test
+  public void testFingerprint_changedClass() throws IOException {
+    writeJar(projectJar, 0, "foo");
+    String fingerprint = fingerprint();
+    cache.write(fingerprint, new LinkageCheckResultCache.Result(0, ""));
+
+    writeJar(projectJar, 0, "bar");
+
+    assertNotEquals(fingerprint, fingerprint());
+    assertNull(cache.read(fingerprint()));
+  }
+}
@@ -32,8 +32,11 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.graph.Traverser;
 import com.google.common.truth.Truth;
 import java.io.File;
+import java.io.IOException;
 import java.net.URISyntaxException;
 import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.Arrays;
 import java.util.Map;
@@ -44,6 +47,7 @@ import org.apache.maven.enforcer.rule.api.EnforcerLevel;
 import org.apache.maven.enforcer.rule.api.EnforcerLogger;
 import org.apache.maven.enforcer.rule.api.EnforcerRuleException;
 import org.apache.maven.execution.MavenSession;
+import org.apache.maven.model.Build;
 import org.apache.maven.model.DependencyManagement;
 import org.apache.maven.plugin.MojoExecution;
 import org.apache.maven.project.DependencyResolutionException;
@@ -53,6 +57,7 @@ import org.apache.maven.project.MavenProject;
 import org.apache.maven.project.ProjectDependenciesResolver;
 import org.codehaus.plexus.component.configurator.expression.ExpressionEvaluationException;
 import org.codehaus.plexus.component.repository.exception.ComponentLookupException;
+import org.eclipse.aether.DefaultRepositorySystemSession;
 import org.eclipse.aether.RepositoryException;
 import org.eclipse.aether.RepositorySystem;
 import org.eclipse.aether.RepositorySystemSession;
@@ -62,6 +67,8 @@ import org.eclipse.aether.collection.CollectRequest;
 import org.eclipse.aether.graph.DefaultDependencyNode;
 import org.eclipse.aether.graph.Dependency;
 import org.eclipse.aether.graph.DependencyNode;
+import org.eclipse.aether.repository.RemoteRepository;
+import org.eclipse.aether.repository.RepositoryPolicy;
 import org.eclipse.aether.resolution.ArtifactResolutionException;
 import org.eclipse.aether.resolution.DependencyRequest;
 import org.eclipse.aether.resolution.DependencyResult;
@@ -310,6 +317,56 @@ public class LinkageCheckerRuleTest {
     rule.execute();
   }
 
+  @Test
+  public void testExecute_shouldPassBadProject_reportOnlyProjectClasses()
+      throws EnforcerRuleException, RepositoryException {
+    // The linkage errors are in the dependency, not in the project's classes
+    setupMockDependencyResolution("com.google.appengine:appengine-api-1.0-sdk:1.9.64");
+    rule.setReportOnlyProjectClasses(true);
+
+    rule.execute();
+    verify(mockLog).info("No error found");
+  }
+
+  @Test
+  public void testExecute_shouldFailForBadProject_sourceArtifacts() throws RepositoryException {
+    setupMockDependencyResolution(
+        "com.google.api-client:google-api-client:1.27.0", "io.grpc:grpc-core:1.17.1");
+    rule.setReportOnlyProjectClasses(true);
+    rule.setSourceArtifacts(ImmutableList.of("io.grpc:grpc-core"));
+    try {
+      rule.execute();
+      Assert.fail("The rule should raise an EnforcerRuleException for the errors in grpc-core");
+    } catch (EnforcerRuleException ex) {
+      verify(mockLog).error(ArgumentMatchers.startsWith("Linkage Checker rule found 1 error:"));
+    }
+  }
+
+  @Test
+  public void testExecute_shouldPassGoodProject_processClassesPhase()
+      throws EnforcerRuleException, RepositoryException, IOException {
+    setupMockDependencyResolution("com.google.guava:guava:27.0.1-jre");
+    // Before the package phase, neither the project nor the root node has a JAR file. As in
+    // Maven, the root node does not have a dependency.
+    mockProject.getArtifact().setFile(null);
+    DependencyNode resolvedRoot = mockDependencyResolutionResult.getDependencyGraph();
+    DefaultDependencyNode rootNode =
+        new DefaultDependencyNode(resolvedRoot.getArtifact().setFile(null));
+    rootNode.setChildren(resolvedRoot.getChildren());
+    when(mockDependencyResolutionResult.getDependencyGraph()).thenReturn(rootNode);
+    Path outputDirectory = Files.createTempDirectory("classes");
+    Build build = new Build();
+    build.setDirectory(outputDirectory.getParent().toString());
+    build.setOutputDirectory(outputDirectory.toString());
+    when(mockProject.getBuild()).thenReturn(build);
+    when(mockMojoExecution.getLifecyclePhase()).thenReturn("process-classes");
+
+    rule.execute();
+    verify(mockLog).info("No error found");
+    // The rule does not modify the resolution result
+    Assert.assertNull(rootNode.getArtifact().getFile());
+  }
+
   private void setupMockDependencyManagementSection(String... coordinates) {
     org.apache.maven.artifact.DefaultArtifact bomArtifact =
         new org.apache.maven.artifact.DefaultArtifact(
@@ -622,6 +679,36 @@ public class LinkageCheckerRuleTest {
         .warn("xerces:xerces-impl:jar:2.6.2 was not resolved. Dependency path is unknown.");
   }
 
+  @Test
+  public void testArtifactTransferError_sameArtifactInExceptionAndUnresolvedDependency()
+      throws URISyntaxException, DependencyResolutionException, EnforcerRuleException {
+    DefaultDependencyNode child1 =
+        new DefaultDependencyNode(
+            new Dependency(createArtifactWithDummyFile("com.google.foo:child1:1.0.0"), "provided"));
+    DefaultDependencyNode root =
+        new DefaultDependencyNode(createArtifactWithDummyFile("com.google.foo:project:1.0.0"));
+    root.setChildren(ImmutableList.of(child1));
+
+    DependencyResolutionResult resolutionResult = mock(DependencyResolutionResult.class);
+    when(resolutionResult.getDependencyGraph()).thenReturn(root);
+    when(resolutionResult.getResolvedDependencies())
+        .thenReturn(ImmutableList.of(child1.getDependency()));
+    // The unresolved dependency's artifact does not have the file that the exception's one has
+    when(resolutionResult.getUnresolvedDependencies())
+        .thenReturn(
+            ImmutableList.of(
+                new Dependency(new DefaultArtifact("xerces:xerces-impl:jar:2.6.2"), "provided")));
+    DependencyResolutionException exception =
+        createDummyResolutionException(
+            createArtifactWithDummyFile("xerces:xerces-impl:jar:2.6.2"), resolutionResult);
+
+    when(mockProjectDependenciesResolver.resolve(any())).thenThrow(exception);
+
+    rule.execute();
+    verify(mockLog, times(1))
+        .warn("xerces:xerces-impl:jar:2.6.2 was not resolved. Dependency path is unknown.");
+  }
+
   @Test
   public void testSkippingProjectWithoutFile() throws EnforcerRuleException {
     when(mockProject.getArtifact())
@@ -634,6 +721,9 @@ public class LinkageCheckerRuleTest {
                 "jar",
                 null,
                 new DefaultArtifactHandler()));
+    Build build = new Build();
+    build.setOutputDirectory("no-such-directory");
+    when(mockProject.getBuild()).thenReturn(build);
     rule.execute();
   }
 
@@ -657,8 +747,50 @@ public class LinkageCheckerRuleTest {
     } catch (EnforcerRuleException ex) {
       assertEquals(
           "To run the check on the compiled class files, the linkage checker enforcer rule should"
-              + " be bound to the 'verify' phase. Current phase: validate",
+              + " be bound to a phase from 'process-classes' to 'verify'. Current phase: validate",
           ex.getMessage());
     }
   }
+
+  @Test
+  public void testFindDownloadThreads() {
+    DefaultRepositorySystemSession session = RepositoryUtility.newSession(repositorySystem);
+    assertEquals(5, rule.findDownloadThreads(session));
+
+    // Maven's -Dmaven.artifact.threads option
+    session.setConfigProperty("maven.artifact.threads", "8");
+    assertEquals(8, rule.findDownloadThreads(session));
+
+    // The parameter of the rule takes precedence over Maven's session
+    rule.setDownloadThreads(3);
+    assertEquals(3, rule.findDownloadThreads(session));
+  }
+
+  @Test
+  public void testFindChecksumPolicies() {
+    RemoteRepository failingRepository =
+        new RemoteRepository.Builder("failing", "default", "https://example.com/failing")
+            .setPolicy(new RepositoryPolicy(true, null, RepositoryPolicy.CHECKSUM_POLICY_FAIL))
+            .build();
+    when(mockProject.getRemoteProjectRepositories())
+        .thenReturn(ImmutableList.of(RepositoryUtility.CENTRAL, failingRepository));
+    DefaultRepositorySystemSession session = RepositoryUtility.newSession(repositorySystem);
+
+    Truth.assertThat(rule.findChecksumPolicies(session))
+        .containsExactly(
+            RepositoryUtility.CENTRAL.getUrl(),
+            RepositoryUtility.CENTRAL.getPolicy(false).getChecksumPolicy(),
+            "https://example.com/failing",
+            RepositoryPolicy.CHECKSUM_POLICY_FAIL)
+        .inOrder();
+
+    // Maven's -c option overrides the policies of the repositories
+    session.setChecksumPolicy(RepositoryPolicy.CHECKSUM_POLICY_IGNORE);
+    Truth.assertThat(rule.findChecksumPolicies(session))
+        .containsExactly(
+            RepositoryUtility.CENTRAL.getUrl(),
+            RepositoryPolicy.CHECKSUM_POLICY_IGNORE,
+            "https://example.com/failing",
+            RepositoryPolicy.CHECKSUM_POLICY_IGNORE);
+  }
 }
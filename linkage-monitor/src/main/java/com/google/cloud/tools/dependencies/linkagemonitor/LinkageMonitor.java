@@ -23,36 +23,59 @@ import com.google.cloud.tools.opensource.classpath.ClassFile;
 import com.google.cloud.tools.opensource.classpath.ClassPathBuilder;
 import com.google.cloud.tools.opensource.classpath.ClassPathEntry;
 import com.google.cloud.tools.opensource.classpath.ClassPathResult;
+import com.google.cloud.tools.opensource.classpath.ClassPathScanner;
 import com.google.cloud.tools.opensource.classpath.DependencyMediation;
 import com.google.cloud.tools.opensource.classpath.LinkageChecker;
 import com.google.cloud.tools.opensource.classpath.LinkageProblem;
+import com.google.cloud.tools.opensource.classpath.LinkageProblemDiff;
+import com.google.cloud.tools.opensource.classpath.LinkageProblemStore;
 import com.google.cloud.tools.opensource.dependencies.Artifacts;
 import com.google.cloud.tools.opensource.dependencies.Bom;
+import com.google.cloud.tools.opensource.dependencies.DependencyGraphBuilder;
 import com.google.cloud.tools.opensource.dependencies.MavenRepositoryException;
 import com.google.cloud.tools.opensource.dependencies.RepositoryUtility;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Joiner;
 import com.google.common.base.Splitter;
+import com.google.common.base.Throwables;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableListMultimap;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.ImmutableSet.Builder;
+import com.google.common.collect.Maps;
 import com.google.common.collect.Multimaps;
-import com.google.common.collect.Sets;
+import com.google.common.collect.Streams;
+import com.google.common.graph.Traverser;
 import com.google.common.io.MoreFiles;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.UncheckedExecutionException;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.file.Files;
+import java.nio.file.LinkOption;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.logging.Logger;
+import javax.annotation.Nullable;
 import org.apache.commons.cli.CommandLine;
 import org.apache.commons.cli.CommandLineParser;
 import org.apache.commons.cli.DefaultParser;
+import org.apache.commons.cli.Option;
 import org.apache.commons.cli.Options;
 import org.apache.commons.cli.ParseException;
 import org.apache.maven.RepositoryUtils;
@@ -64,6 +87,7 @@ import org.apache.maven.model.building.DefaultModelBuildingRequest;
 import org.apache.maven.model.building.ModelBuildingException;
 import org.apache.maven.model.building.ModelBuildingRequest;
 import org.apache.maven.model.building.ModelBuildingResult;
+import org.apache.maven.model.building.ModelCache;
 import org.apache.maven.project.ProjectModelResolver;
 import org.eclipse.aether.RepositoryException;
 import org.eclipse.aether.RepositorySystem;
@@ -76,6 +100,7 @@ import org.eclipse.aether.internal.impl.DefaultRemoteRepositoryManager;
 import org.eclipse.aether.resolution.ArtifactRequest;
 import org.eclipse.aether.resolution.ArtifactResolutionException;
 import org.eclipse.aether.resolution.ArtifactResult;
+import org.eclipse.aether.version.InvalidVersionSpecificationException;
 
 /**
  * Linkage Monitor detects new linkage errors caused by locally-installed snapshot artifacts for a
@@ -89,6 +114,10 @@ public class LinkageMonitor {
    */
   private static final String LOCAL_ARTIFACT_FILE_NAME = "linkage-monitor-artifacts.txt";
 
+  // Gradle's build directories and Maven's target directories
+  private static final ImmutableSet<String> IGNORED_DIRECTORY_NAMES =
+      ImmutableSet.of("build", "target");
+
   private static final DefaultModelBuilder modelBuilder =
       new DefaultModelBuilderFactory().newInstance();
 
@@ -96,10 +125,35 @@ public class LinkageMonitor {
   private static final RepositorySystem repositorySystem = RepositoryUtility.newRepositorySystem();
   private static final RepositorySystemSession session =
       RepositoryUtility.newSession(repositorySystem);
-  private final ImmutableMap<String, String> localArtifacts =
-      findLocalArtifacts(repositorySystem, session, Paths.get(".").toAbsolutePath());
-
-  private LinkageMonitor() throws IOException {}
+  private final ImmutableMap<String, String> localArtifacts;
+
+  // Null when the version of Linkage Checker is unknown or a snapshot, which may find problems
+  // differently from the version that stored them
+  @Nullable private final LinkageProblemStore baselineProblemStore;
+  private final boolean refreshBaseline;
+
+  // Bounds each of the thread pools: the concurrent tasks, the JAR file scanning, the dependency
+  // collection of the baseline and the snapshot, and the model building of the local pom.xml files
+  private final int threads;
+
+  private LinkageMonitor(boolean refreshBaseline, int threads) throws IOException {
+    String checkerVersion = LinkageProblemStore.findCheckerVersion();
+    baselineProblemStore =
+        checkerVersion == null || checkerVersion.endsWith("-SNAPSHOT")
+            ? null
+            : new LinkageProblemStore(
+                session
+                    .getLocalRepository()
+                    .getBasedir()
+                    .toPath()
+                    .resolve(".cache")
+                    .resolve("linkage-problems"),
+                checkerVersion);
+    this.refreshBaseline = refreshBaseline;
+    this.threads = threads;
+    localArtifacts =
+        findLocalArtifacts(repositorySystem, session, Paths.get(".").toAbsolutePath(), threads);
+  }
 
   public static void main(String[] arguments)
       throws RepositoryException, IOException, MavenRepositoryException, ModelBuildingException {
@@ -116,7 +170,8 @@ public class LinkageMonitor {
     }
     
     Set<LinkageProblem> newLinkageProblems =
-        new LinkageMonitor().run(coordinatesElements.get(0), coordinatesElements.get(1));
+        new LinkageMonitor(commandLine.hasOption("refresh-baseline"), getThreads(commandLine))
+            .run(coordinatesElements.get(0), coordinatesElements.get(1));
     int errorSize = newLinkageProblems.size();
     if (errorSize > 0) {
       logger.severe(
@@ -134,12 +189,35 @@ public class LinkageMonitor {
   static CommandLine parseCommandLine(String[] arguments) {
     Options options = new Options();
     options.addOption("sa", "send-analytics", false, "track results from each run");
+    options.addOption(
+        "rb",
+        "refresh-baseline",
+        false,
+        "find the linkage errors of the baseline BOM again instead of reading the stored ones");
+    options.addOption(
+        Option.builder("t")
+            .longOpt("threads")
+            .hasArg(true)
+            .desc(
+                "maximum number of threads in each thread pool: for the concurrent tasks, the JAR"
+                    + " file scanning, the dependency collection, and the pom.xml model building"
+                    + " (default: the number of processors)")
+            .build());
     CommandLineParser parser = new DefaultParser();
     try {
       CommandLine commandLine = parser.parse(options, arguments);
       if (commandLine.getArgList().size() != 1) {
         printUsageAndDie();
       }
+      if (commandLine.hasOption("threads")) {
+        try {
+          if (Integer.parseInt(commandLine.getOptionValue("threads")) < 1) {
+            printUsageAndDie();
+          }
+        } catch (NumberFormatException ex) {
+          printUsageAndDie();
+        }
+      }
       return commandLine;
     } catch (ParseException ex) {
       printUsageAndDie();
@@ -147,10 +225,18 @@ public class LinkageMonitor {
     }
   }
 
+  @VisibleForTesting
+  static int getThreads(CommandLine commandLine) {
+    return commandLine.hasOption("threads")
+        ? Integer.parseInt(commandLine.getOptionValue("threads"))
+        : Runtime.getRuntime().availableProcessors();
+  }
+
   private static void printUsageAndDie() {
     logger.severe(
         "Usage: java com.google.cloud.tools.dependencies.linkagemonitor.LinkageMonitor"
-        + " [--send-analytics] com.google.cloud:libraries-bom");
+        + " [--send-analytics] [--refresh-baseline] [--threads <number>]"
+        + " com.google.cloud:libraries-bom");
     System.exit(1);
   }
 
@@ -158,66 +244,150 @@ public class LinkageMonitor {
    * Returns a map from versionless coordinates to the versions of the Maven coordinates in all
    * pom.xml. The map also contains the artifact list in the {@code linkage-monitor-artifacts.txt}
    * if the file exists in {@code projectDirectory}.
+   *
+   * <p>The models of the pom.xml files are built in {@code threads} threads and share the parents
+   * and imported BOMs read from Maven repositories. The coordinates are cached across runs in the
+   * local repository until the pom.xml files or their local parents change.
    */
   @VisibleForTesting
   static ImmutableMap<String, String> findLocalArtifacts(
-      RepositorySystem repositorySystem, RepositorySystemSession session, Path projectDirectory)
+      RepositorySystem repositorySystem,
+      RepositorySystemSession session,
+      Path projectDirectory,
+      int threads)
       throws IOException {
-    Map<String, String> artifactToVersion = new HashMap<>();
-    Iterable<Path> paths = MoreFiles.fileTraverser().breadthFirst(projectDirectory);
-
-    for (Path path : paths) {
-      if (!path.getFileName().endsWith("pom.xml")) {
-        continue;
+    ImmutableList<Path> pomFiles = findPomFiles(projectDirectory);
+    LocalArtifactCache localArtifactCache =
+        LocalArtifactCache.read(
+            LocalArtifactCache.cacheFile(
+                session.getLocalRepository().getBasedir().toPath(), projectDirectory));
+
+    ModelCache modelCache = new ConcurrentModelCache();
+    List<Future<Map.Entry<String, String>>> futures = new ArrayList<>();
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    try {
+      for (Path pomFile : pomFiles) {
+        Map.Entry<String, String> cachedArtifact = localArtifactCache.get(pomFile);
+        futures.add(
+            cachedArtifact != null
+                ? Futures.immediateFuture(cachedArtifact)
+                : executor.submit(
+                    () ->
+                        buildLocalArtifact(
+                            repositorySystem, session, modelCache, localArtifactCache, pomFile)));
       }
 
-      // This path element check should not depend on directory name outside the project
-      Path relativePath = path.isAbsolute() ? projectDirectory.relativize(path) : path;
-      ImmutableSet<Path> elements = ImmutableSet.copyOf(relativePath);
-      if (elements.contains(Paths.get("build")) || elements.contains(Paths.get("target"))) {
-        // Exclude Gradle's build directory and Maven's target directory, which would contain irrelevant pom.xml such as
-        // gax/build/tmp/expandedArchives/(... omit ...)/META-INF/maven/org.jacoco/org.jacoco.agent/pom.xml
-        continue;
+      // Puts the artifacts in the order of the traversal, as a later pom.xml with the same
+      // coordinates overrides an earlier one.
+      Map<String, String> artifactToVersion = new HashMap<>();
+      for (Future<Map.Entry<String, String>> future : futures) {
+        Map.Entry<String, String> artifact = Futures.getUnchecked(future);
+        if (artifact != null) {
+          artifactToVersion.put(artifact.getKey(), artifact.getValue());
+        }
       }
+      localArtifactCache.write(pomFiles);
 
-      ModelBuildingRequest modelRequest = new DefaultModelBuildingRequest();
-      modelRequest.setValidationLevel(ModelBuildingRequest.VALIDATION_LEVEL_MINIMAL);
-      modelRequest.setProcessPlugins(false);
-      modelRequest.setTwoPhaseBuilding(false);
-      modelRequest.setPomFile(path.toFile());
-      modelRequest.setModelResolver(
-          new ProjectModelResolver(
-              session,
-              null,
-              repositorySystem,
-              new DefaultRemoteRepositoryManager(),
-              ImmutableList.of(CENTRAL), // Needed when parent pom is not locally available
-              null,
-              null));
-      // Profile activation needs JDK version through system properties
-      // https://github.com/GoogleCloudPlatform/cloud-opensource-java/issues/923
-      modelRequest.setSystemProperties(System.getProperties());
-
-      try {
-        ModelBuildingResult modelBuildingResult = modelBuilder.build(modelRequest);
-        Model model = modelBuildingResult.getEffectiveModel();
-        String versionlessCoordinates = model.getGroupId() + ":" + model.getArtifactId();
-        artifactToVersion.put(versionlessCoordinates, model.getVersion());
-        logger.fine("Found local artifact: " + model);
-      } catch (ModelBuildingException ex) {
-        // Maven may fail to build pom.xml files found in irrelevant directories, such as "target"
-        // and "test" directories of the project. Such failures can be ignored.
-        logger.info("Ignoring bad model: " + path + ": " + ex.getMessage());
-      }
+      // For gax-java (Gradle) repository, which does not have pom.xml,
+      // linkage-monitor-artifacts.txt tells which artifacts to use for the snapshot BOM.
+      ImmutableMap<String, String> localArtifactsFromFile =
+          findLocalArtifactsFromFile(projectDirectory.resolve(LOCAL_ARTIFACT_FILE_NAME));
+      artifactToVersion.putAll(localArtifactsFromFile);
+
+      return ImmutableMap.copyOf(artifactToVersion);
+    } finally {
+      executor.shutdownNow();
     }
+  }
 
-    // For gax-java (Gradle) repository, which does not have pom.xml, linkage-monitor-artifacts.txt
-    // tells which artifacts to use for the snapshot BOM.
-    ImmutableMap<String, String> localArtifactsFromFile =
-        findLocalArtifactsFromFile(projectDirectory.resolve(LOCAL_ARTIFACT_FILE_NAME));
-    artifactToVersion.putAll(localArtifactsFromFile);
+  /**
+   * Returns the pom.xml files in {@code projectDirectory} in breadth-first order. The traversal
+   * does not descend into Gradle's build directories and Maven's target directories, which would
+   * contain irrelevant pom.xml such as
+   * {@code gax/build/tmp/expandedArchives/.../META-INF/maven/org.jacoco/org.jacoco.agent/pom.xml}.
+   */
+  @VisibleForTesting
+  static ImmutableList<Path> findPomFiles(Path projectDirectory) throws IOException {
+    // This directory name check should not depend on directory names outside the project
+    Traverser<Path> traverser =
+        Traverser.forTree(
+            path ->
+                path.equals(projectDirectory)
+                        || !IGNORED_DIRECTORY_NAMES.contains(path.getFileName().toString())
+                    ? listDirectory(path)
+                    : ImmutableList.of());
+    try {
+      return Streams.stream(traverser.breadthFirst(projectDirectory))
+          .filter(path -> path.getFileName().endsWith("pom.xml"))
+          .collect(toImmutableList());
+    } catch (UncheckedIOException ex) {
+      throw ex.getCause();
+    }
+  }
+
+  private static ImmutableList<Path> listDirectory(Path path) {
+    // Same as MoreFiles.fileTraverser, which does not follow symbolic links
+    if (!Files.isDirectory(path, LinkOption.NOFOLLOW_LINKS)) {
+      return ImmutableList.of();
+    }
+    try {
+      return MoreFiles.listFiles(path);
+    } catch (IOException ex) {
+      throw new UncheckedIOException(ex);
+    }
+  }
+
+  /**
+   * Returns the versionless coordinates and the version of the model built from {@code pomFile}
+   * as a map entry, or null if the model cannot be built.
+   */
+  private static Map.Entry<String, String> buildLocalArtifact(
+      RepositorySystem repositorySystem,
+      RepositorySystemSession session,
+      ModelCache modelCache,
+      LocalArtifactCache localArtifactCache,
+      Path pomFile) {
+    ModelBuildingRequest modelRequest = new DefaultModelBuildingRequest();
+    modelRequest.setValidationLevel(ModelBuildingRequest.VALIDATION_LEVEL_MINIMAL);
+    modelRequest.setProcessPlugins(false);
+    modelRequest.setTwoPhaseBuilding(false);
+    modelRequest.setPomFile(pomFile.toFile());
+    // The resolver adds the repositories declared in the models. It cannot be shared.
+    modelRequest.setModelResolver(
+        new ProjectModelResolver(
+            session,
+            null,
+            repositorySystem,
+            new DefaultRemoteRepositoryManager(),
+            ImmutableList.of(CENTRAL), // Needed when parent pom is not locally available
+            null,
+            null));
+    modelRequest.setModelCache(modelCache);
+    // Profile activation needs JDK version through system properties
+    // https://github.com/GoogleCloudPlatform/cloud-opensource-java/issues/923
+    modelRequest.setSystemProperties(System.getProperties());
 
-    return ImmutableMap.copyOf(artifactToVersion);
+    try {
+      ModelBuildingResult modelBuildingResult = modelBuilder.build(modelRequest);
+      Model model = modelBuildingResult.getEffectiveModel();
+      String versionlessCoordinates = model.getGroupId() + ":" + model.getArtifactId();
+      logger.fine("Found local artifact: " + model);
+
+      List<Path> lineageFiles = new ArrayList<>();
+      for (String modelId : modelBuildingResult.getModelIds()) {
+        Model rawModel = modelBuildingResult.getRawModel(modelId);
+        if (rawModel != null && rawModel.getPomFile() != null) {
+          lineageFiles.add(rawModel.getPomFile().toPath());
+        }
+      }
+      localArtifactCache.put(pomFile, lineageFiles, versionlessCoordinates, model.getVersion());
+      return Maps.immutableEntry(versionlessCoordinates, model.getVersion());
+    } catch (ModelBuildingException ex) {
+      // Maven may fail to build pom.xml files found in irrelevant directories, such as "test"
+      // directories of the project. Such failures can be ignored.
+      logger.info("Ignoring bad model: " + pomFile + ": " + ex.getMessage());
+      return null;
+    }
   }
 
   /**
@@ -271,10 +441,58 @@ public class LinkageMonitor {
         RepositoryUtility.findLatestCoordinates(repositorySystem, groupId, artifactId);
     logger.info("BOM Coordinates: " + latestBomCoordinates);
     Bom baseline = Bom.readBom(latestBomCoordinates);
-    ImmutableSet<LinkageProblem> problemsInBaseline =
-        LinkageChecker.create(baseline, null).findLinkageProblems();
-    Bom snapshot = copyWithSnapshot(repositorySystem, session, baseline, localArtifacts);
+    // The baseline and snapshot checks read each JAR file in the two class paths once
+    ListeningExecutorService executor =
+        MoreExecutors.listeningDecorator(Executors.newFixedThreadPool(threads));
+    try (ClassPathScanner classPathScanner = new ClassPathScanner(threads)) {
+      return run(baseline, classPathScanner, executor);
+    } finally {
+      // Stops the tasks that are no longer needed, such as the baseline check when the snapshot is
+      // the same as the baseline
+      executor.shutdownNow();
+    }
+  }
 
+  /**
+   * Returns new problems in the snapshot of {@code baseline}. The baseline check, which is mostly
+   * CPU work, runs concurrently with building the snapshot BOM and resolving its class path,
+   * which are mostly I/O. The tasks join at the comparison of the problems.
+   */
+  private ImmutableSet<LinkageProblem> run(
+      Bom baseline, ClassPathScanner classPathScanner, ListeningExecutorService executor)
+      throws RepositoryException, IOException, ModelBuildingException {
+    ListenableFuture<Bom> snapshotFuture =
+        executor.submit(
+            () -> copyWithSnapshot(repositorySystem, session, baseline, localArtifacts));
+    ListenableFuture<ClassPathResult> snapshotClassPathFuture =
+        Futures.whenAllSucceed(snapshotFuture)
+            .call(
+                () -> resolveSnapshot(Futures.getDone(snapshotFuture), classPathScanner), executor);
+    ListenableFuture<LinkageChecker> snapshotLinkageCheckerFuture =
+        Futures.whenAllSucceed(snapshotFuture, snapshotClassPathFuture)
+            .call(
+                () -> {
+                  int bomSize = Futures.getDone(snapshotFuture).getManagedDependencies().size();
+                  ImmutableList<ClassPathEntry> classpath =
+                      Futures.getDone(snapshotClassPathFuture).getClassPath();
+                  List<ClassPathEntry> entryPointJars = classpath.subList(0, bomSize);
+                  return LinkageChecker.create(
+                      classpath,
+                      ImmutableSet.copyOf(entryPointJars),
+                      ImmutableList.of(),
+                      null,
+                      classPathScanner);
+                },
+                executor);
+    ListenableFuture<LinkageChecker> baselineLinkageCheckerFuture =
+        executor.submit(() -> LinkageChecker.create(baseline, null, classPathScanner, threads));
+    ListenableFuture<ImmutableSet<LinkageProblem>> baselineProblemsFuture =
+        Futures.whenAllSucceed(baselineLinkageCheckerFuture)
+            .call(
+                () -> findBaselineProblems(baseline, Futures.getDone(baselineLinkageCheckerFuture)),
+                executor);
+
+    Bom snapshot = getResult(snapshotFuture);
     // Comparing coordinates because DefaultArtifact does not override equals
     ImmutableList<String> baselineCoordinates = coordinatesList(baseline.getManagedDependencies());
     ImmutableList<String> snapshotCoordinates = coordinatesList(snapshot.getManagedDependencies());
@@ -286,33 +504,85 @@ public class LinkageMonitor {
       return ImmutableSet.of();
     }
 
-    ImmutableList<Artifact> snapshotManagedDependencies = snapshot.getManagedDependencies();
-    ClassPathResult classPathResult =
-        (new ClassPathBuilder())
-            .resolve(snapshotManagedDependencies, true, DependencyMediation.MAVEN);
-    ImmutableList<ClassPathEntry> classpath = classPathResult.getClassPath();
-    List<ClassPathEntry> entryPointJars = classpath.subList(0, snapshotManagedDependencies.size());
+    ClassPathResult classPathResult = getResult(snapshotClassPathFuture);
+    LinkageChecker baselineLinkageChecker = getResult(baselineLinkageCheckerFuture);
+    ImmutableSet<LinkageProblem> problemsInBaseline = getResult(baselineProblemsFuture);
 
+    // Only the classes that differ from the baseline, or reference such classes, are checked
     ImmutableSet<LinkageProblem> problemsInSnapshot =
-        LinkageChecker.create(classpath, ImmutableSet.copyOf(entryPointJars), ImmutableList.of(), null)
-            .findLinkageProblems();
+        getResult(snapshotLinkageCheckerFuture)
+            .findLinkageProblems(baselineLinkageChecker, problemsInBaseline);
 
-    if (problemsInBaseline.equals(problemsInSnapshot)) {
+    // The problems are compared without the versions of the artifacts that contain the classes
+    LinkageProblemDiff diff = LinkageProblemDiff.compare(problemsInBaseline, problemsInSnapshot);
+    if (diff.isEmpty()) {
       logger.info(
           "Snapshot versions have the same " + problemsInBaseline.size() + " errors as baseline");
       return ImmutableSet.of();
     }
 
-    Set<LinkageProblem> fixedProblems = Sets.difference(problemsInBaseline, problemsInSnapshot);
+    ImmutableSet<LinkageProblem> fixedProblems = ImmutableSet.copyOf(diff.getFixedProblems());
     if (!fixedProblems.isEmpty()) {
       logger.info(messageForFixedErrors(fixedProblems));
     }
 
-    Set<LinkageProblem> newProblems = Sets.difference(problemsInSnapshot, problemsInBaseline);
+    ImmutableSet<LinkageProblem> newProblems = ImmutableSet.copyOf(diff.getNewProblems());
     if (!newProblems.isEmpty()) {
       logger.severe(messageForNewErrors(problemsInSnapshot, problemsInBaseline, classPathResult));
     }
-    return ImmutableSet.copyOf(newProblems);
+    return newProblems;
+  }
+
+  /**
+   * Resolves the class path of {@code snapshot}. The scanner reads the JAR files while they are
+   * resolved.
+   */
+  private ClassPathResult resolveSnapshot(Bom snapshot, ClassPathScanner classPathScanner)
+      throws InvalidVersionSpecificationException {
+    DependencyGraphBuilder dependencyGraphBuilder = new DependencyGraphBuilder();
+    dependencyGraphBuilder.setCollectionThreads(threads);
+    dependencyGraphBuilder.setRepositoryListener(classPathScanner.asRepositoryListener());
+    return new ClassPathBuilder(dependencyGraphBuilder)
+        .resolve(snapshot.getManagedDependencies(), true, DependencyMediation.MAVEN);
+  }
+
+  /** Waits for {@code future} and rethrows the exception of its task. */
+  private static <T> T getResult(Future<T> future)
+      throws RepositoryException, IOException, ModelBuildingException {
+    try {
+      return Futures.getUnchecked(future);
+    } catch (UncheckedExecutionException ex) {
+      Throwable cause = ex.getCause();
+      Throwables.throwIfInstanceOf(cause, RepositoryException.class);
+      Throwables.throwIfInstanceOf(cause, IOException.class);
+      Throwables.throwIfInstanceOf(cause, ModelBuildingException.class);
+      Throwables.throwIfUnchecked(cause);
+      throw ex;
+    }
+  }
+
+  /**
+   * Returns the linkage problems of {@code baseline}. Because a released BOM does not change, the
+   * problems are read from {@link #baselineProblemStore} if it has them, unless {@link
+   * #refreshBaseline} is true.
+   */
+  private ImmutableSet<LinkageProblem> findBaselineProblems(
+      Bom baseline, LinkageChecker baselineLinkageChecker) throws IOException {
+    String coordinates = baseline.getCoordinates();
+    if (baselineProblemStore != null && !refreshBaseline) {
+      ImmutableSet<LinkageProblem> storedProblems =
+          baselineProblemStore.read(coordinates, baselineLinkageChecker.getClassPath());
+      if (storedProblems != null) {
+        logger.info("Read " + storedProblems.size() + " stored errors of " + coordinates);
+        return storedProblems;
+      }
+    }
+
+    ImmutableSet<LinkageProblem> problems = baselineLinkageChecker.findLinkageProblems();
+    if (baselineProblemStore != null) {
+      baselineProblemStore.write(coordinates, problems);
+    }
+    return problems;
   }
 
   private static ImmutableList<String> coordinatesList(List<Artifact> artifacts) {
@@ -327,7 +597,8 @@ public class LinkageMonitor {
       Set<LinkageProblem> snapshotProblems,
       Set<LinkageProblem> baselineProblems,
       ClassPathResult classPathResult) {
-    Set<LinkageProblem> newProblems = Sets.difference(snapshotProblems, baselineProblems);
+    ImmutableList<LinkageProblem> newProblems =
+        LinkageProblemDiff.compare(baselineProblems, snapshotProblems).getNewProblems();
     Builder<ClassPathEntry> problematicJars = ImmutableSet.builder();
 
     ImmutableListMultimap<String, LinkageProblem> groupedBySymbolProblem =
@@ -481,4 +752,56 @@ public class LinkageMonitor {
     // "-SNAPSHOT" suffix for coordinate to distinguish easily.
     return new Bom(bom.getCoordinates() + "-SNAPSHOT", managedDependencies.build());
   }
+
+  /**
+   * Thread-safe cache of the parents and imported BOMs that Maven's model builder reads from Maven
+   * repositories, shared by the models built in parallel.
+   */
+  private static final class ConcurrentModelCache implements ModelCache {
+    private final ConcurrentMap<Key, Object> data = new ConcurrentHashMap<>();
+
+    @Override
+    public void put(String groupId, String artifactId, String version, String tag, Object data) {
+      this.data.put(new Key(groupId, artifactId, version, tag), data);
+    }
+
+    @Override
+    public Object get(String groupId, String artifactId, String version, String tag) {
+      return data.get(new Key(groupId, artifactId, version, tag));
+    }
+
+    private static final class Key {
+      private final String groupId;
+      private final String artifactId;
+      private final String version;
+      private final String tag;
+
+      private Key(String groupId, String artifactId, String version, String tag) {
+        this.groupId = groupId;
+        this.artifactId = artifactId;
+        this.version = version;
+        this.tag = tag;
+      }
+
+      @Override
+      public boolean equals(Object other) {
+        if (this == other) {
+          return true;
+        }
+        if (!(other instanceof Key)) {
+          return false;
+        }
+        Key that = (Key) other;
+        return Objects.equals(groupId, that.groupId)
+            && Objects.equals(artifactId, that.artifactId)
+            && Objects.equals(version, that.version)
+            && Objects.equals(tag, that.tag);
+      }
+
+      @Override
+      public int hashCode() {
+        return Objects.hash(groupId, artifactId, version, tag);
+      }
+    }
+  }
 }
@@ -0,0 +1,237 @@
+/*
+ * Copyright 2020 Google LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.dependencies.linkagemonitor;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
+import com.google.common.hash.Hashing;
+import com.google.common.io.MoreFiles;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.logging.Logger;
+import javax.annotation.Nullable;
+
+/**
+ * Versionless coordinates and versions of the pom.xml files in a project directory, persisted
+ * across runs of Linkage Monitor.
+ *
+ * <p>An entry for a pom.xml file is valid while the SHA-256 checksums of the file and of the local
+ * pom.xml files of its parents are the same as when the model was built. Parents in Maven
+ * repositories are assumed immutable. Entries are discarded when the Java version or the operating
+ * system, which activate profiles, differ.
+ */
+final class LocalArtifactCache {
+
+  private static final Logger logger = Logger.getLogger(LocalArtifactCache.class.getName());
+
+  // Increment when the file format changes
+  private static final int FORMAT_VERSION = 1;
+
+  private final Path cacheFile;
+  private final ConcurrentMap<Path, Entry> entries;
+  private volatile boolean modified;
+
+  // Checksums of the pom.xml files read in this run. An empty value means the file does not exist.
+  private final ConcurrentMap<Path, Optional<String>> checksums = new ConcurrentHashMap<>();
+
+  private LocalArtifactCache(Path cacheFile, ConcurrentMap<Path, Entry> entries) {
+    this.cacheFile = cacheFile;
+    this.entries = entries;
+  }
+
+  /** Returns the file for the cache of {@code projectDirectory} under {@code localRepository}. */
+  static Path cacheFile(Path localRepository, Path projectDirectory) {
+    // Directory paths have characters not allowed in file names
+    String projectHash =
+        Hashing.sha256()
+            .hashString(
+                projectDirectory.toAbsolutePath().normalize().toString(), StandardCharsets.UTF_8)
+            .toString();
+    return localRepository
+        .resolve(".cache")
+        .resolve("local-artifacts")
+        .resolve(projectHash.substring(0, 16) + ".models");
+  }
+
+  /**
+   * Returns the cache in {@code cacheFile}. The cache is empty if the file does not exist or
+   * cannot be read.
+   */
+  static LocalArtifactCache read(Path cacheFile) {
+    ConcurrentMap<Path, Entry> entries = new ConcurrentHashMap<>();
+    try (DataInputStream input =
+        new DataInputStream(new BufferedInputStream(Files.newInputStream(cacheFile)))) {
+      if (input.readInt() == FORMAT_VERSION && environment().equals(input.readUTF())) {
+        int size = input.readInt();
+        for (int i = 0; i < size; i++) {
+          Path pomFile = cacheFile.getFileSystem().getPath(input.readUTF());
+          int lineageSize = input.readInt();
+          ImmutableMap.Builder<Path, String> lineage = ImmutableMap.builder();
+          for (int j = 0; j < lineageSize; j++) {
+            lineage.put(cacheFile.getFileSystem().getPath(input.readUTF()), input.readUTF());
+          }
+          entries.put(pomFile, new Entry(lineage.build(), input.readUTF(), input.readUTF()));
+        }
+      }
+    } catch (NoSuchFileException ex) {
+      // First run for the project
+    } catch (IOException ex) {
+      logger.fine("Ignoring unreadable cache " + cacheFile + ": " + ex);
+      entries.clear();
+    }
+    return new LocalArtifactCache(cacheFile, entries);
+  }
+
+  /**
+   * Returns the {@code groupId:artifactId} and the version of {@code pomFile} as a map entry, or
+   * null if the cache does not have a valid entry for the file.
+   */
+  @Nullable
+  Map.Entry<String, String> get(Path pomFile) {
+    Entry entry = entries.get(key(pomFile));
+    if (entry == null) {
+      return null;
+    }
+    for (Map.Entry<Path, String> lineageFile : entry.lineage.entrySet()) {
+      if (!checksum(lineageFile.getKey()).equals(Optional.of(lineageFile.getValue()))) {
+        return null;
+      }
+    }
+    return Maps.immutableEntry(entry.versionlessCoordinates, entry.version);
+  }
+
+  /**
+   * Records {@code versionlessCoordinates} and {@code version} of {@code pomFile}.
+   *
+   * @param lineageFiles {@code pomFile} and the local pom.xml files of its parents
+   */
+  void put(
+      Path pomFile,
+      Collection<Path> lineageFiles,
+      String versionlessCoordinates,
+      String version) {
+    if (version == null) {
+      return;
+    }
+    ImmutableMap.Builder<Path, String> lineage = ImmutableMap.builder();
+    for (Path lineageFile : lineageFiles) {
+      Optional<String> checksum = checksum(lineageFile);
+      if (!checksum.isPresent()) {
+        return;
+      }
+      lineage.put(key(lineageFile), checksum.get());
+    }
+    entries.put(key(pomFile), new Entry(lineage.build(), versionlessCoordinates, version));
+    modified = true;
+  }
+
+  /**
+   * Writes the entries for {@code pomFiles} to the cache file if any entry was added. Entries for
+   * other files, such as deleted ones, are dropped.
+   */
+  void write(Collection<Path> pomFiles) {
+    if (!modified) {
+      return;
+    }
+    try {
+      Files.createDirectories(cacheFile.getParent());
+      // Writing to a temporary file and then renaming it keeps concurrent readers from seeing
+      // incomplete entries.
+      Path temporaryFile = Files.createTempFile(cacheFile.getParent(), "models", ".tmp");
+      Map<Path, Entry> writtenEntries = new LinkedHashMap<>();
+      for (Path pomFile : pomFiles) {
+        Entry entry = entries.get(key(pomFile));
+        if (entry != null) {
+          writtenEntries.put(key(pomFile), entry);
+        }
+      }
+      try (DataOutputStream output =
+          new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporaryFile)))) {
+        output.writeInt(FORMAT_VERSION);
+        output.writeUTF(environment());
+        output.writeInt(writtenEntries.size());
+        for (Map.Entry<Path, Entry> writtenEntry : writtenEntries.entrySet()) {
+          output.writeUTF(writtenEntry.getKey().toString());
+          Entry entry = writtenEntry.getValue();
+          output.writeInt(entry.lineage.size());
+          for (Map.Entry<Path, String> lineageFile : entry.lineage.entrySet()) {
+            output.writeUTF(lineageFile.getKey().toString());
+            output.writeUTF(lineageFile.getValue());
+          }
+          output.writeUTF(entry.versionlessCoordinates);
+          output.writeUTF(entry.version);
+        }
+      }
+      Files.move(
+          temporaryFile,
+          cacheFile,
+          StandardCopyOption.REPLACE_EXISTING,
+          StandardCopyOption.ATOMIC_MOVE);
+    } catch (IOException ex) {
+      // The cache is an optimization. Failing to write it should not fail Linkage Monitor.
+      logger.fine("Failed to write cache " + cacheFile + ": " + ex);
+    }
+  }
+
+  private Optional<String> checksum(Path pomFile) {
+    return checksums.computeIfAbsent(
+        key(pomFile),
+        file -> {
+          try {
+            return Optional.of(MoreFiles.asByteSource(file).hash(Hashing.sha256()).toString());
+          } catch (IOException ex) {
+            return Optional.empty();
+          }
+        });
+  }
+
+  private static Path key(Path pomFile) {
+    return pomFile.toAbsolutePath().normalize();
+  }
+
+  private static String environment() {
+    return System.getProperty("java.version") + " " + System.getProperty("os.name");
+  }
+
+  private static final class Entry {
+    // pom.xml files of the model and its local parents to their checksums
+    private final ImmutableMap<Path, String> lineage;
+    private final String versionlessCoordinates;
+    private final String version;
+
+    private Entry(
+        ImmutableMap<Path, String> lineage, String versionlessCoordinates, String version) {
+      this.lineage = lineage;
+      this.versionlessCoordinates = versionlessCoordinates;
+      this.version = version;
+    }
+  }
+}
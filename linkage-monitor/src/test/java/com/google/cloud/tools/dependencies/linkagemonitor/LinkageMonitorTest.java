@@ -43,9 +43,13 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableListMultimap;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.io.MoreFiles;
+import com.google.common.io.RecursiveDeleteOption;
 import com.google.common.truth.Truth;
 import java.io.File;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.List;
@@ -53,13 +57,16 @@ import java.util.Set;
 import org.apache.maven.model.Dependency;
 import org.apache.maven.model.Model;
 import org.apache.maven.model.building.ModelBuildingException;
+import org.eclipse.aether.DefaultRepositorySystemSession;
 import org.eclipse.aether.RepositoryException;
 import org.eclipse.aether.RepositorySystem;
 import org.eclipse.aether.RepositorySystemSession;
 import org.eclipse.aether.artifact.Artifact;
 import org.eclipse.aether.artifact.DefaultArtifact;
+import org.eclipse.aether.repository.LocalRepository;
 import org.eclipse.aether.resolution.ArtifactDescriptorException;
 import org.eclipse.aether.resolution.ArtifactResolutionException;
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -68,6 +75,11 @@ public class LinkageMonitorTest {
   private RepositorySystem system;
   private RepositorySystemSession session;
 
+  // Holds the local repository of localRepositorySession and the projects written by the tests
+  private Path temporaryDirectory;
+  // Session for findLocalArtifacts, which writes its cache to the local repository
+  private RepositorySystemSession localRepositorySession;
+
   private Artifact artifactA =
       new DefaultArtifact("foo:a:1.2.3").setFile(new File("foo/a-1.2.3.jar"));
   private ClassPathEntry jarA = new ClassPathEntry(artifactA);
@@ -87,6 +99,14 @@ public class LinkageMonitorTest {
     system = RepositoryUtility.newRepositorySystem();
     session = RepositoryUtility.newSession(system);
 
+    temporaryDirectory = Files.createTempDirectory("linkage-monitor-test");
+    DefaultRepositorySystemSession temporarySession = RepositoryUtility.newSession(system);
+    temporarySession.setLocalRepositoryManager(
+        system.newLocalRepositoryManager(
+            temporarySession,
+            new LocalRepository(temporaryDirectory.resolve("repository").toFile())));
+    localRepositorySession = temporarySession;
+
     methodNotFoundProblemFromA =
         new SymbolNotFoundProblem(
             new ClassFile(jarA, "com.abc.AAA"),
@@ -107,6 +127,11 @@ public class LinkageMonitorTest {
                 "(Lcom/google/protobuf/Message;)Lio/grpc/MethodDescriptor$Marshaller;",
                 false));
   }
+
+  @After
+  public void tearDown() throws IOException {
+    MoreFiles.deleteRecursively(temporaryDirectory, RecursiveDeleteOption.ALLOW_INSECURE);
+  }
   
   @Test
   public void testCommandLine() {
@@ -114,6 +139,23 @@ public class LinkageMonitorTest {
     LinkageMonitor.parseCommandLine(arguments);
   }
 
+  @Test
+  public void testCommandLine_refreshBaseline() {
+    String[] arguments = {"--refresh-baseline", "com.google.cloud:libraries-bom"};
+    assertTrue(LinkageMonitor.parseCommandLine(arguments).hasOption("refresh-baseline"));
+  }
+
+  @Test
+  public void testCommandLine_threads() {
+    String[] arguments = {"--threads", "3", "com.google.cloud:libraries-bom"};
+    assertEquals(3, LinkageMonitor.getThreads(LinkageMonitor.parseCommandLine(arguments)));
+
+    String[] argumentsWithoutThreads = {"com.google.cloud:libraries-bom"};
+    assertEquals(
+        Runtime.getRuntime().availableProcessors(),
+        LinkageMonitor.getThreads(LinkageMonitor.parseCommandLine(argumentsWithoutThreads)));
+  }
+
   @Test
   public void testMain()
       throws RepositoryException, IOException, MavenRepositoryException, ModelBuildingException {
@@ -279,7 +321,7 @@ public class LinkageMonitorTest {
   public void testFindLocalArtifacts() throws IOException {
     ImmutableMap<String, String> localArtifacts =
         LinkageMonitor.findLocalArtifacts(
-            system, session, Paths.get("src/test/resources/testproject"));
+            system, localRepositorySession, Paths.get("src/test/resources/testproject"), 2);
 
     // This should not include project under "build" directory
     Truth.assertThat(localArtifacts)
@@ -303,10 +345,10 @@ public class LinkageMonitorTest {
     Path relativePath = Paths.get("src/test/resources/testproject");
     Path absolutePath = relativePath.toAbsolutePath();
     ImmutableMap<String, String> localArtifactsFromAbsolutePath =
-        LinkageMonitor.findLocalArtifacts(system, session, absolutePath);
+        LinkageMonitor.findLocalArtifacts(system, localRepositorySession, absolutePath, 2);
 
     ImmutableMap<String, String> localArtifactsFromRelativePath =
-        LinkageMonitor.findLocalArtifacts(system, session, relativePath);
+        LinkageMonitor.findLocalArtifacts(system, localRepositorySession, relativePath, 2);
 
     assertEquals(
         "findLocalArtifacts should behave the same for relative and absolute paths",
@@ -314,6 +356,64 @@ public class LinkageMonitorTest {
         localArtifactsFromAbsolutePath);
   }
 
+  @Test
+  public void testFindPomFiles() throws IOException {
+    Path projectDirectory = Paths.get("src/test/resources/testproject");
+    ImmutableList<Path> pomFiles = LinkageMonitor.findPomFiles(projectDirectory);
+
+    // The traversal does not descend into the "build" directory
+    Truth.assertThat(pomFiles)
+        .containsExactly(
+            projectDirectory.resolve("pom.xml"),
+            projectDirectory.resolve("gax-bom/pom.xml"),
+            projectDirectory.resolve("testsubproject/pom.xml"));
+    // Breadth-first
+    assertEquals(projectDirectory.resolve("pom.xml"), pomFiles.get(0));
+  }
+
+  @Test
+  public void testFindLocalArtifacts_changedParent() throws IOException {
+    Path projectDirectory = temporaryDirectory.resolve("project");
+    Path parentPom = projectDirectory.resolve("pom.xml");
+    Path childPom = projectDirectory.resolve("child").resolve("pom.xml");
+    Files.createDirectories(childPom.getParent());
+    writePom(
+        parentPom,
+        "<artifactId>parent</artifactId><version>1</version>"
+            + "<properties><revision>1.0.0</revision></properties>");
+    writePom(
+        childPom,
+        "<parent><groupId>com.example</groupId><artifactId>parent</artifactId>"
+            + "<version>1</version></parent><artifactId>child</artifactId>"
+            + "<version>${revision}</version>");
+
+    ImmutableMap<String, String> localArtifacts =
+        LinkageMonitor.findLocalArtifacts(system, localRepositorySession, projectDirectory, 2);
+    assertEquals("1.0.0", localArtifacts.get("com.example:child"));
+    // The second run reads the coordinates from the cache
+    assertEquals(
+        localArtifacts,
+        LinkageMonitor.findLocalArtifacts(system, localRepositorySession, projectDirectory, 2));
+
+    // The child's version comes from the property in the parent, whose pom.xml changes
+    writePom(
+        parentPom,
+        "<artifactId>parent</artifactId><version>1</version>"
+            + "<properties><revision>2.0.0</revision></properties>");
+    localArtifacts =
+        LinkageMonitor.findLocalArtifacts(system, localRepositorySession, projectDirectory, 2);
+    assertEquals("2.0.0", localArtifacts.get("com.example:child"));
+  }
+
+  private static void writePom(Path pomFile, String elements) throws IOException {
+    String pom =
+        "<project><modelVersion>4.0.0</modelVersion><groupId>com.example</groupId>"
+            + "<packaging>pom</packaging>"
+            + elements
+            + "</project>";
+    Files.write(pomFile, pom.getBytes(StandardCharsets.UTF_8));
+  }
+
   @Test
   public void testFindLocalArtifactsFromFile() throws IOException {
     Path artifactFile = Paths.get("src/test/resources/testproject/linkage-monitor-artifacts.txt");